@@ -0,0 +1,119 @@
+package com.labels.fileslabelling.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.labels.fileslabelling.mappers.DocumentProtobuf;
+import com.labels.fileslabelling.models.DocumentPage;
+import com.labels.fileslabelling.models.FileDocument;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * JSON (Jackson) contre Protocol Buffers ({@link DocumentProtobuf}) sur le
+ * corpus synthétique : encodage et décodage d'un document avec ses pages
+ * et d'une page seule. Les tailles (brutes et gzip) sont affichées au
+ * démarrage de chaque fork.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class BinaryFormatBenchmark {
+
+    @Param({"10", "100"})
+    public int pages;
+
+    @Param({"300"})
+    public int wordsPerPage;
+
+    @Param({"5"})
+    public int tables;
+
+    private ObjectMapper objectMapper;
+    private FileDocument document;
+    private DocumentPage page;
+    private byte[] documentJson;
+    private byte[] documentProtobuf;
+    private byte[] pageJson;
+    private byte[] pageProtobuf;
+
+    @Setup
+    public void setUp() throws Exception {
+        // Même configuration que l'ObjectMapper auto-configuré par Spring Boot
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        document = SyntheticDocuments.fileDocument(pages, wordsPerPage, tables);
+        page = document.getPages().get(0);
+
+        documentJson = objectMapper.writeValueAsBytes(document);
+        documentProtobuf = encodeDocumentProtobuf();
+        pageJson = objectMapper.writeValueAsBytes(page);
+        pageProtobuf = encodePageProtobuf();
+        System.out.printf("%nDocument : JSON %d octets (gzip %d), protobuf %d octets (gzip %d)%n",
+                documentJson.length, gzipped(documentJson), documentProtobuf.length, gzipped(documentProtobuf));
+        System.out.printf("Page : JSON %d octets, protobuf %d octets%n", pageJson.length, pageProtobuf.length);
+    }
+
+    @Benchmark
+    public byte[] encodeDocumentJson() throws Exception {
+        return objectMapper.writeValueAsBytes(document);
+    }
+
+    @Benchmark
+    public byte[] encodeDocumentProtobuf() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        CodedOutputStream out = CodedOutputStream.newInstance(bytes);
+        DocumentProtobuf.write(out, document);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    @Benchmark
+    public FileDocument decodeDocumentJson() throws Exception {
+        return objectMapper.readValue(documentJson, FileDocument.class);
+    }
+
+    @Benchmark
+    public FileDocument decodeDocumentProtobuf() throws IOException {
+        return DocumentProtobuf.readFileDocument(CodedInputStream.newInstance(documentProtobuf));
+    }
+
+    @Benchmark
+    public byte[] encodePageJson() throws Exception {
+        return objectMapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public byte[] encodePageProtobuf() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        CodedOutputStream out = CodedOutputStream.newInstance(bytes);
+        DocumentProtobuf.write(out, page);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    @Benchmark
+    public DocumentPage decodePageJson() throws Exception {
+        return objectMapper.readValue(pageJson, DocumentPage.class);
+    }
+
+    @Benchmark
+    public DocumentPage decodePageProtobuf() throws IOException {
+        return DocumentProtobuf.readDocumentPage(CodedInputStream.newInstance(pageProtobuf));
+    }
+
+    private static int gzipped(byte[] data) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            gzip.write(data);
+        }
+        return bytes.size();
+    }
+}
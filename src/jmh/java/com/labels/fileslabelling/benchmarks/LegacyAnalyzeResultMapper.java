@@ -0,0 +1,193 @@
+package com.labels.fileslabelling.benchmarks;
+
+import com.azure.ai.documentintelligence.models.AnalyzeResult;
+import com.labels.fileslabelling.models.BoundingRegion;
+import com.labels.fileslabelling.models.DocumentKey;
+import com.labels.fileslabelling.models.DocumentPage;
+import com.labels.fileslabelling.models.DocumentTable;
+import com.labels.fileslabelling.models.DocumentTableCell;
+import com.labels.fileslabelling.models.DocumentValue;
+import com.labels.fileslabelling.models.DocumentWord;
+import com.labels.fileslabelling.models.KeyValuePair;
+import com.labels.fileslabelling.models.Span;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Copie du mapping tel qu'écrit dans FileService.analyze avant
+ * AnalyzeResultMapper (Optional et Stream imbriqués, une collecte par niveau),
+ * conservée comme référence pour MappingBenchmark. Les polygones sont déjà
+ * convertis en float[], seule l'écriture du mapping diffère.
+ */
+final class LegacyAnalyzeResultMapper {
+
+    /** Convertit les pages et leurs mots. */
+    List<DocumentPage> mapPages(AnalyzeResult result) {
+        return Optional.ofNullable(result.getPages())
+                .orElse(Collections.emptyList())
+                .stream()
+                .map(p -> {
+                    DocumentPage dp = new DocumentPage();
+                    dp.setPageNumber(p.getPageNumber());
+                    dp.setAngle(p.getAngle());
+                    dp.setWidth(p.getWidth());
+                    dp.setHeight(p.getHeight());
+                    dp.setUnit(p.getUnit().toString());
+
+                    List<DocumentWord> words = Optional.ofNullable(p.getWords())
+                            .orElse(Collections.emptyList())
+                            .stream()
+                            .map(w -> {
+                                DocumentWord dw = new DocumentWord();
+                                dw.setContent(w.getContent());
+                                dw.setConfidence(w.getConfidence());
+                                dw.setPolygon(toPolygon(w.getPolygon()));
+                                if (w.getSpan() != null) {
+                                    Span span = new Span();
+                                    span.setOffset(w.getSpan().getOffset());
+                                    span.setLength(w.getSpan().getLength());
+                                    dw.setSpan(span);
+                                }
+                                return dw;
+                            })
+                            .collect(Collectors.toList());
+
+                    dp.setWords(words);
+                    return dp;
+                })
+                .collect(Collectors.toList());
+    }
+
+    /** Convertit les paires clé-valeur. */
+    List<KeyValuePair> mapKeyValuePairs(AnalyzeResult result) {
+        return Optional.ofNullable(result.getKeyValuePairs())
+                .orElse(Collections.emptyList())
+                .stream()
+                .map(kv -> {
+                    KeyValuePair pair = new KeyValuePair();
+                    pair.setConfidence(kv.getConfidence());
+
+                    // Key
+                    DocumentKey key = new DocumentKey();
+                    key.setContent(kv.getKey().getContent());
+                    key.setBoundingRegions(Optional.ofNullable(kv.getKey().getBoundingRegions())
+                            .orElse(Collections.emptyList())
+                            .stream()
+                            .map(r -> {
+                                BoundingRegion br = new BoundingRegion();
+                                br.setPageNumber(r.getPageNumber());
+                                br.setPolygon(toPolygon(r.getPolygon()));
+                                return br;
+                            })
+                            .collect(Collectors.toList()));
+                    key.setSpans(Optional.ofNullable(kv.getKey().getSpans())
+                            .orElse(Collections.emptyList())
+                            .stream()
+                            .map(s -> {
+                                Span sp = new Span();
+                                sp.setOffset(s.getOffset());
+                                sp.setLength(s.getLength());
+                                return sp;
+                            })
+                            .collect(Collectors.toList()));
+                    pair.setKey(key);
+
+                    // Value (optionnel)
+                    if (kv.getValue() != null) {
+                        DocumentValue val = new DocumentValue();
+                        val.setContent(kv.getValue().getContent());
+                        val.setBoundingRegions(Optional.ofNullable(kv.getValue().getBoundingRegions())
+                                .orElse(Collections.emptyList())
+                                .stream()
+                                .map(r -> {
+                                    BoundingRegion br = new BoundingRegion();
+                                    br.setPageNumber(r.getPageNumber());
+                                    br.setPolygon(toPolygon(r.getPolygon()));
+                                    return br;
+                                })
+                                .collect(Collectors.toList()));
+                        val.setSpans(Optional.ofNullable(kv.getValue().getSpans())
+                                .orElse(Collections.emptyList())
+                                .stream()
+                                .map(s -> {
+                                    Span sp = new Span();
+                                    sp.setOffset(s.getOffset());
+                                    sp.setLength(s.getLength());
+                                    return sp;
+                                })
+                                .collect(Collectors.toList()));
+                        pair.setValue(val);
+                    }
+                    return pair;
+                })
+                .collect(Collectors.toList());
+    }
+
+    /** Convertit les tables et leurs cellules. */
+    List<DocumentTable> mapTables(AnalyzeResult result) {
+        return Optional.ofNullable(result.getTables())
+                .orElse(Collections.emptyList())
+                .stream()
+                .map(t -> {
+                    DocumentTable dt = new DocumentTable();
+                    dt.setRowCount(t.getRowCount());
+                    dt.setColumnCount(t.getColumnCount());
+
+                    List<DocumentTableCell> cells = Optional.ofNullable(t.getCells())
+                            .orElse(Collections.emptyList())
+                            .stream()
+                            .map(c -> {
+                                DocumentTableCell cell = new DocumentTableCell();
+                                cell.setKind(c.getKind() != null ? c.getKind().toString() : "");
+                                cell.setRowIndex(c.getRowIndex());
+                                cell.setColumnIndex(c.getColumnIndex());
+                                cell.setContent(c.getContent());
+
+                                cell.setBoundingRegions(Optional.ofNullable(c.getBoundingRegions())
+                                        .orElse(Collections.emptyList())
+                                        .stream()
+                                        .map(r -> {
+                                            BoundingRegion br = new BoundingRegion();
+                                            br.setPageNumber(r.getPageNumber());
+                                            br.setPolygon(toPolygon(r.getPolygon()));
+                                            return br;
+                                        })
+                                        .collect(Collectors.toList()));
+
+                                cell.setSpans(Optional.ofNullable(c.getSpans())
+                                        .orElse(Collections.emptyList())
+                                        .stream()
+                                        .map(s -> {
+                                            Span sp = new Span();
+                                            sp.setOffset(s.getOffset());
+                                            sp.setLength(s.getLength());
+                                            return sp;
+                                        })
+                                        .collect(Collectors.toList()));
+
+                                cell.setElements(Optional.ofNullable(c.getElements())
+                                        .orElse(Collections.emptyList()));
+                                return cell;
+                            })
+                            .collect(Collectors.toList());
+
+                    dt.setCells(cells);
+                    return dt;
+                })
+                .collect(Collectors.toList());
+    }
+
+    private static float[] toPolygon(List<Double> coordinates) {
+        if (coordinates == null) {
+            return new float[0];
+        }
+        float[] polygon = new float[coordinates.size()];
+        for (int i = 0; i < polygon.length; i++) {
+            polygon[i] = coordinates.get(i).floatValue();
+        }
+        return polygon;
+    }
+}
@@ -0,0 +1,74 @@
+package com.labels.fileslabelling.benchmarks;
+
+import com.azure.ai.documentintelligence.models.AnalyzeResult;
+import com.labels.fileslabelling.mappers.AnalyzeResultMapper;
+import com.labels.fileslabelling.models.DocumentPage;
+import com.labels.fileslabelling.models.DocumentTable;
+import com.labels.fileslabelling.models.KeyValuePair;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coût du mapping AnalyzeResult → modèles métier (étape de FileService.analyze
+ * après getFinalResult), en séquentiel et avec conversion parallèle des pages,
+ * comparé à l'ancien mapping Optional/Stream ({@link LegacyAnalyzeResultMapper}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class MappingBenchmark {
+
+    @Param({"10", "100", "500"})
+    public int pages;
+
+    @Param({"300"})
+    public int wordsPerPage;
+
+    @Param({"5"})
+    public int tables;
+
+    private AnalyzeResult result;
+    private AnalyzeResultMapper sequential;
+    private AnalyzeResultMapper parallel;
+    private LegacyAnalyzeResultMapper legacy;
+
+    @Setup
+    public void setUp() {
+        result = SyntheticDocuments.analyzeResult(pages, wordsPerPage, tables);
+        sequential = new AnalyzeResultMapper(Integer.MAX_VALUE);
+        parallel = new AnalyzeResultMapper(1);
+        legacy = new LegacyAnalyzeResultMapper();
+    }
+
+    @Benchmark
+    public void mapLegacy(Blackhole bh) {
+        bh.consume(legacy.mapPages(result));
+        bh.consume(legacy.mapKeyValuePairs(result));
+        bh.consume(legacy.mapTables(result));
+    }
+
+    @Benchmark
+    public void mapSequential(Blackhole bh) {
+        map(sequential, bh);
+    }
+
+    @Benchmark
+    public void mapParallelPages(Blackhole bh) {
+        map(parallel, bh);
+    }
+
+    private void map(AnalyzeResultMapper mapper, Blackhole bh) {
+        List<DocumentPage> mappedPages = mapper.mapPages(result);
+        List<KeyValuePair> kvps = mapper.mapKeyValuePairs(result);
+        List<DocumentTable> mappedTables = mapper.mapTables(result);
+        bh.consume(mappedPages);
+        bh.consume(kvps);
+        bh.consume(mappedTables);
+    }
+}
@@ -0,0 +1,131 @@
+package com.labels.fileslabelling.benchmarks;
+
+import com.labels.fileslabelling.models.FileDocument;
+import com.labels.fileslabelling.models.FileSummary;
+import com.labels.fileslabelling.models.PageChunk;
+import org.bson.BsonBinaryReader;
+import org.bson.BsonBinaryWriter;
+import org.bson.Document;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.DocumentCodec;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Aller-retour « repository » contre un store en mémoire : conversion Spring
+ * Data (MappingMongoConverter, celui de MongoTemplate), encodage BSON tel
+ * qu'envoyé sur le fil, stockage dans une map, puis décodage et relecture.
+ * Couvre l'écriture d'un document et de ses pages (FileService.persist), la
+ * relecture par id, la lecture d'une page et la projection de listing.
+ *
+ * Le coût réseau et serveur de MongoDB/Cosmos n'est pas mesuré ici.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class RepositoryRoundTripBenchmark {
+
+    @Param({"10", "100"})
+    public int pages;
+
+    @Param({"300"})
+    public int wordsPerPage;
+
+    @Param({"5"})
+    public int tables;
+
+    private static final String SUMMARY_PREFIX = "summary:";
+
+    private final DocumentCodec codec = new DocumentCodec();
+    private final Map<String, byte[]> store = new ConcurrentHashMap<>();
+
+    private MappingMongoConverter converter;
+    private FileDocument document;
+    private List<PageChunk> chunks;
+
+    @Setup
+    public void setUp() {
+        MongoMappingContext context = new MongoMappingContext();
+        context.setInitialEntitySet(Set.of(FileDocument.class, PageChunk.class));
+        context.initialize();
+        converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, context);
+        converter.afterPropertiesSet();
+
+        FileDocument full = SyntheticDocuments.fileDocument(pages, wordsPerPage, tables);
+        chunks = full.getPages().stream()
+                .map(p -> PageChunk.of(full.getId(), p))
+                .toList();
+        full.setPages(null);
+        document = full;
+
+        save(document.getId(), document);
+        for (PageChunk chunk : chunks) {
+            save(chunk.getId(), chunk);
+        }
+
+        // Projection de listing appliquée côté serveur : seuls ces champs transitent
+        Document stored = load(document.getId());
+        Document summary = new Document();
+        for (String field : List.of("_id", "fileName", "status", "uploadedAt")) {
+            summary.put(field, stored.get(field));
+        }
+        store.put(SUMMARY_PREFIX + document.getId(), encode(summary));
+    }
+
+    @Benchmark
+    public void saveDocumentAndPages() {
+        save(document.getId(), document);
+        for (PageChunk chunk : chunks) {
+            save(chunk.getId(), chunk);
+        }
+    }
+
+    @Benchmark
+    public FileDocument findById() {
+        return converter.read(FileDocument.class, load(document.getId()));
+    }
+
+    @Benchmark
+    public PageChunk findPage() {
+        return converter.read(PageChunk.class, load(PageChunk.idOf(document.getId(), 1)));
+    }
+
+    @Benchmark
+    public FileSummary findSummary() {
+        return converter.read(FileSummary.class, load(SUMMARY_PREFIX + document.getId()));
+    }
+
+    private void save(String id, Object entity) {
+        Document bson = new Document();
+        converter.write(entity, bson);
+        store.put(id, encode(bson));
+    }
+
+    private byte[] encode(Document bson) {
+        BasicOutputBuffer buffer = new BasicOutputBuffer();
+        try (BsonBinaryWriter writer = new BsonBinaryWriter(buffer)) {
+            codec.encode(writer, bson, EncoderContext.builder().build());
+        }
+        return buffer.toByteArray();
+    }
+
+    private Document load(String id) {
+        try (BsonBinaryReader reader = new BsonBinaryReader(ByteBuffer.wrap(store.get(id)))) {
+            return codec.decode(reader, DecoderContext.builder().build());
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.labels.fileslabelling.benchmarks;
+
+import com.labels.fileslabelling.models.DocumentPage;
+import com.labels.fileslabelling.models.DocumentWord;
+import com.labels.fileslabelling.models.FileDocument;
+import com.labels.fileslabelling.models.SearchHit;
+import com.labels.fileslabelling.services.SearchIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latence de GET /api/files/search sur l'index en mémoire : docs documents de
+ * pages × wordsPerPage mots, tirés d'un vocabulaire de VOCABULARY termes
+ * suivant une loi de Zipf (le terme de rang r apparaît en proportion de 1/r),
+ * comme le texte réel. Les requêtes couvrent un terme fréquent, un terme
+ * moyen, un terme rare, l'intersection d'un terme fréquent et d'un terme
+ * moyen, et un préfixe.
+ *
+ * La construction de l'index (setup) prend environ une minute pour 100 000
+ * documents.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class SearchBenchmark {
+
+    private static final int VOCABULARY = 50_000;
+    private static final long SEED = 42;
+
+    @Param({"100000"})
+    public int docs;
+
+    @Param({"2"})
+    public int pages;
+
+    @Param({"300"})
+    public int wordsPerPage;
+
+    @Param({"w1", "w100", "w20000", "w1 w100", "w12*"})
+    public String query;
+
+    private SearchIndex index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        index = new SearchIndex(null, null, new SimpleMeterRegistry());
+        // Valeur par défaut de app.search.max-matches-per-hit
+        Field maxMatches = ReflectionUtils.findField(SearchIndex.class, "maxMatchesPerHit");
+        ReflectionUtils.makeAccessible(maxMatches);
+        ReflectionUtils.setField(maxMatches, index, 50);
+
+        double[] cumulative = new double[VOCABULARY];
+        double sum = 0;
+        for (int r = 0; r < VOCABULARY; r++) {
+            sum += 1.0 / (r + 1);
+            cumulative[r] = sum;
+        }
+        Random random = new Random(SEED);
+        for (int d = 0; d < docs; d++) {
+            List<DocumentPage> docPages = new ArrayList<>(pages);
+            for (int p = 1; p <= pages; p++) {
+                List<DocumentWord> words = new ArrayList<>(wordsPerPage);
+                for (int w = 0; w < wordsPerPage; w++) {
+                    int rank = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+                    DocumentWord word = new DocumentWord();
+                    word.setContent("w" + ((rank < 0 ? -rank - 1 : rank) + 1));
+                    words.add(word);
+                }
+                DocumentPage page = new DocumentPage();
+                page.setPageNumber(p);
+                page.setWords(words);
+                docPages.add(page);
+            }
+            FileDocument doc = new FileDocument();
+            doc.setId("doc-" + d);
+            doc.setVersion(0L);
+            index.index(doc, docPages);
+        }
+    }
+
+    @Benchmark
+    public Optional<List<SearchHit>> search() {
+        return index.search(query, 20);
+    }
+}
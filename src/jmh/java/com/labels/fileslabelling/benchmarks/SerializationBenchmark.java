@@ -0,0 +1,192 @@
+package com.labels.fileslabelling.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.labels.fileslabelling.config.MongoConversionConfig;
+import com.labels.fileslabelling.models.DocumentPage;
+import com.labels.fileslabelling.models.DocumentWord;
+import com.labels.fileslabelling.models.FileDocument;
+import com.labels.fileslabelling.models.PageChunk;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DocumentCodec;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sérialisation Jackson des réponses REST : GET /api/files/{id} (document sans
+ * pages, comme servi après persistance), document legacy avec pages
+ * embarquées, et GET /api/files/{id}/pages/{n}.
+ *
+ * Les benchmarks *Polygons comparent les polygones de tous les mots du
+ * document en List<Double> (ancienne représentation) et en float[] : avec
+ * -prof gc, gc.alloc.rate.norm des benchmarks build* donne l'empreinte mémoire
+ * de chaque représentation ; la taille JSON de chacune est affichée au setup.
+ *
+ * Côté stockage, le setup affiche aussi la taille BSON des pages (PageChunk)
+ * du document, polygones en tableaux de doubles (conversions par défaut) et
+ * en binaire ({@link MongoConversionConfig}) ; writeBson*Page mesurent la
+ * conversion et l'encodage BSON d'une page dans chacun des deux formats.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class SerializationBenchmark {
+
+    @Param({"10", "100"})
+    public int pages;
+
+    @Param({"300"})
+    public int wordsPerPage;
+
+    @Param({"5"})
+    public int tables;
+
+    private ObjectMapper objectMapper;
+    private FileDocument document;
+    private FileDocument documentWithPages;
+    private DocumentPage page;
+    private byte[] documentJson;
+    private List<float[]> floatPolygons;
+    private List<double[]> decimalPolygons;
+    private List<List<Double>> doublePolygons;
+    private MappingMongoConverter doubleArrayConverter;
+    private MappingMongoConverter packedConverter;
+    private PageChunk pageChunk;
+
+    @Setup
+    public void setUp() throws Exception {
+        // Même configuration que l'ObjectMapper auto-configuré par Spring Boot
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        documentWithPages = SyntheticDocuments.fileDocument(pages, wordsPerPage, tables);
+        page = documentWithPages.getPages().get(0);
+
+        document = SyntheticDocuments.fileDocument(pages, wordsPerPage, tables);
+        document.setPages(null);
+        documentJson = objectMapper.writeValueAsBytes(document);
+
+        floatPolygons = documentWithPages.getPages().stream()
+                .flatMap(p -> p.getWords().stream())
+                .map(DocumentWord::getPolygon)
+                .toList();
+        // Valeurs décimales d'origine (ex. 1.2345), telles que lues par le SDK
+        decimalPolygons = floatPolygons.stream()
+                .map(polygon -> {
+                    double[] decimal = new double[polygon.length];
+                    for (int i = 0; i < polygon.length; i++) {
+                        decimal[i] = Double.parseDouble(Float.toString(polygon[i]));
+                    }
+                    return decimal;
+                })
+                .toList();
+        doublePolygons = buildDoubleListPolygons();
+        System.out.printf(Locale.ROOT, "%nPolygones de %d mots, JSON : List<Double> %d octets, float[] %d octets%n",
+                floatPolygons.size(), objectMapper.writeValueAsBytes(doublePolygons).length,
+                objectMapper.writeValueAsBytes(floatPolygons).length);
+
+        doubleArrayConverter = mongoConverter(new MongoCustomConversions(List.of()));
+        packedConverter = mongoConverter(new MongoConversionConfig().mongoCustomConversions());
+        pageChunk = PageChunk.of("benchmark", page);
+        long doubleArrayBytes = 0;
+        long packedBytes = 0;
+        for (DocumentPage p : documentWithPages.getPages()) {
+            PageChunk chunk = PageChunk.of("benchmark", p);
+            doubleArrayBytes += bson(doubleArrayConverter, chunk).getByteBuffer().remaining();
+            packedBytes += bson(packedConverter, chunk).getByteBuffer().remaining();
+        }
+        System.out.printf(Locale.ROOT, "BSON des %d pages : tableaux de doubles %d octets, binaire %d octets%n",
+                pages, doubleArrayBytes, packedBytes);
+    }
+
+    private static MappingMongoConverter mongoConverter(MongoCustomConversions conversions) {
+        MongoMappingContext context = new MongoMappingContext();
+        context.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        context.afterPropertiesSet();
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, context);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+        return converter;
+    }
+
+    /**
+     * Document BSON encodé, tel qu'envoyé à MongoDB.
+     */
+    private static RawBsonDocument bson(MappingMongoConverter converter, Object entity) {
+        Document document = new Document();
+        converter.write(entity, document);
+        return new RawBsonDocument(document, new DocumentCodec());
+    }
+
+    @Benchmark
+    public byte[] writeDocument() throws Exception {
+        return objectMapper.writeValueAsBytes(document);
+    }
+
+    @Benchmark
+    public byte[] writeDocumentWithPages() throws Exception {
+        return objectMapper.writeValueAsBytes(documentWithPages);
+    }
+
+    @Benchmark
+    public byte[] writePage() throws Exception {
+        return objectMapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public FileDocument readDocument() throws Exception {
+        return objectMapper.readValue(documentJson, FileDocument.class);
+    }
+
+    @Benchmark
+    public List<List<Double>> buildDoubleListPolygons() {
+        List<List<Double>> polygons = new ArrayList<>(decimalPolygons.size());
+        for (double[] polygon : decimalPolygons) {
+            List<Double> coordinates = new ArrayList<>(polygon.length);
+            for (double c : polygon) {
+                coordinates.add(c);
+            }
+            polygons.add(coordinates);
+        }
+        return polygons;
+    }
+
+    @Benchmark
+    public List<float[]> buildFloatArrayPolygons() {
+        List<float[]> polygons = new ArrayList<>(floatPolygons.size());
+        for (float[] polygon : floatPolygons) {
+            polygons.add(polygon.clone());
+        }
+        return polygons;
+    }
+
+    @Benchmark
+    public byte[] writeDoubleListPolygons() throws Exception {
+        return objectMapper.writeValueAsBytes(doublePolygons);
+    }
+
+    @Benchmark
+    public byte[] writeFloatArrayPolygons() throws Exception {
+        return objectMapper.writeValueAsBytes(floatPolygons);
+    }
+
+    @Benchmark
+    public RawBsonDocument writeBsonDoubleArrayPage() {
+        return bson(doubleArrayConverter, pageChunk);
+    }
+
+    @Benchmark
+    public RawBsonDocument writeBsonPackedPage() {
+        return bson(packedConverter, pageChunk);
+    }
+}
@@ -0,0 +1,55 @@
+package com.labels.fileslabelling.benchmarks;
+
+import com.azure.ai.documentintelligence.models.AnalyzeResult;
+import com.labels.fileslabelling.fake.SyntheticAnalyzeResults;
+import com.labels.fileslabelling.mappers.AnalyzeResultMapper;
+import com.labels.fileslabelling.models.FileDocument;
+
+import java.util.Date;
+
+/**
+ * Résultats d'analyse et documents synthétiques pour les benchmarks, dimensionnés
+ * par le triplet pages × mots par page × tables (voir {@link SyntheticAnalyzeResults}).
+ * La graine est fixe pour que les runs soient comparables.
+ */
+public final class SyntheticDocuments {
+
+    private static final long SEED = 42;
+
+    private SyntheticDocuments() {
+    }
+
+    /**
+     * Construit un AnalyzeResult synthétique.
+     *
+     * @param pages        nombre de pages
+     * @param wordsPerPage nombre de mots par page
+     * @param tables       nombre de tables (réparties sur les pages)
+     */
+    public static AnalyzeResult analyzeResult(int pages, int wordsPerPage, int tables) {
+        return SyntheticAnalyzeResults.analyzeResult(pages, wordsPerPage, tables, SEED);
+    }
+
+    /**
+     * Construit un FileDocument complet (pages incluses), tel que produit par
+     * FileService.analyze avant persistance.
+     */
+    public static FileDocument fileDocument(int pages, int wordsPerPage, int tables) {
+        AnalyzeResult result = analyzeResult(pages, wordsPerPage, tables);
+        AnalyzeResultMapper mapper = new AnalyzeResultMapper(Integer.MAX_VALUE);
+
+        FileDocument doc = new FileDocument();
+        doc.setId("bench-" + pages + "x" + wordsPerPage + "x" + tables);
+        doc.setVersion(0L);
+        doc.setFileName("synthetic.pdf");
+        doc.setAzureUrl("https://example.blob.core.windows.net/files/synthetic.pdf");
+        doc.setContentHash("0".repeat(64));
+        doc.setUploadedAt(new Date(0));
+        doc.setStatus("IN_REVIEW");
+        doc.setPageCount(pages);
+        doc.setPages(mapper.mapPages(result));
+        doc.setKeyValuePairs(mapper.mapKeyValuePairs(result));
+        doc.setTables(mapper.mapTables(result));
+        return doc;
+    }
+}
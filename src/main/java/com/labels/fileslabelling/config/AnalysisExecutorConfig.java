@@ -0,0 +1,87 @@
+package com.labels.fileslabelling.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Configuration Spring de l'exécuteur dédié aux analyses asynchrones.
+ *
+ * 
+ * Les analyses Document Intelligence peuvent durer plusieurs dizaines de
+ * secondes ; elles sont donc exécutées hors des threads Tomcat, sur un pool
+ * borné dont la taille et la file d'attente sont configurables. Lorsque la
+ * file est pleine, la soumission est rejetée (TaskRejectedException) et le
+ * contrôleur répond 503 plutôt que d'accumuler du travail sans limite.
+ * 
+ *
+ * 
+ * Deux modes d'exécution sont disponibles (app.analysis.execution-mode) :
+ *   platform : pool de threads classique (ThreadPoolTaskExecutor).
+ *   virtual  : un thread virtuel par analyse ({@link VirtualThreadTaskExecutor}),
+ *              la concurrence étant bornée par virtual-max-concurrency
+ *              (256 par défaut) et non par max-size. Les analyses en
+ *              attente ou bloquées sur le réseau ne coûtent alors presque
+ *              aucun thread de plateforme. À combiner avec
+ *              spring.threads.virtual.enabled=true pour que Tomcat traite
+ *              aussi les uploads synchrones sur des threads virtuels.
+ * 
+ */
+@Configuration
+public class AnalysisExecutorConfig {
+
+    /**
+     * Mode d'exécution des analyses : « platform » ou « virtual ».
+     */
+    @Value("${app.analysis.execution-mode:platform}")
+    private String executionMode;
+
+    /**
+     * Nombre de threads maintenus en permanence dans le pool d'analyse.
+     */
+    @Value("${app.analysis.executor.core-size:4}")
+    private int coreSize;
+
+    /**
+     * Nombre maximal de threads d'analyse simultanés.
+     */
+    @Value("${app.analysis.executor.max-size:4}")
+    private int maxSize;
+
+    /**
+     * Nombre maximal d'analyses simultanées en mode virtual. Une analyse
+     * passe l'essentiel de son temps à attendre le réseau : la limite peut
+     * être bien plus haute que max-size, le débit vers Document Intelligence
+     * restant régulé par l'AnalysisRateLimiter.
+     */
+    @Value("${app.analysis.executor.virtual-max-concurrency:256}")
+    private int virtualMaxConcurrency;
+
+    /**
+     * Nombre maximal d'analyses en attente d'un thread libre.
+     */
+    @Value("${app.analysis.executor.queue-capacity:100}")
+    private int queueCapacity;
+
+    /**
+     * Crée l'exécuteur utilisé par les jobs d'analyse selon le mode configuré.
+     *
+     * @return un exécuteur borné, arrêté proprement avec le contexte
+     */
+    @Bean(name = "analysisExecutor")
+    public TaskExecutor analysisExecutor() {
+        if ("virtual".equalsIgnoreCase(executionMode)) {
+            return new VirtualThreadTaskExecutor("analysis-vt-", virtualMaxConcurrency, queueCapacity);
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(coreSize);
+        executor.setMaxPoolSize(Math.max(coreSize, maxSize));
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("analysis-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+}
@@ -2,6 +2,7 @@ package com.labels.fileslabelling.config;
 
 import com.azure.storage.blob.*;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -15,9 +16,11 @@ import org.springframework.context.annotation.Configuration;
  * application.yml), crée automatiquement le conteneur s'il n'existe pas,
  * et expose un bean {@link BlobContainerClient} pour permettre les opérations
  * d'upload, download et gestion des blobs.
- * 
+ *
+ * Inactive lorsque app.storage.backend=memory (stockage simulé en local).
  */
 @Configuration
+@ConditionalOnProperty(name = "app.storage.backend", havingValue = "azure", matchIfMissing = true)
 public class AzureStorageConfig {
 
     /**
@@ -3,7 +3,9 @@ package com.labels.fileslabelling.config;
 import com.azure.ai.documentintelligence.DocumentIntelligenceClient;
 import com.azure.ai.documentintelligence.DocumentIntelligenceClientBuilder;
 import com.azure.core.credential.AzureKeyCredential;
+import com.labels.fileslabelling.services.AnalysisRateLimiter;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -15,9 +17,11 @@ import org.springframework.context.annotation.Configuration;
  * d'appeler les API d'analyse de documents d'Azure. Les paramètres de
  * connexion (endpoint et clé API) sont injectés depuis les propriétés
  * de l'application pour faciliter la maintenance et la sécurité.
- * 
+ *
+ * Inactive lorsque app.analysis.backend=fake (analyse simulée en local).
  */
 @Configuration
+@ConditionalOnProperty(name = "app.analysis.backend", havingValue = "azure", matchIfMissing = true)
 public class DocumentIntelligenceConfig {
 
     /**
@@ -45,13 +49,16 @@ public class DocumentIntelligenceConfig {
      *   Construit et retourne un client prêt à analyser des documents.</li>
      * 
      *
+     * Les réponses 429 sont signalées à l'{@link AnalysisRateLimiter}.
+     *
      * @return un client singleton pour l'analyse de documents
      */
     @Bean
-    public DocumentIntelligenceClient documentIntelligenceClient() {
+    public DocumentIntelligenceClient documentIntelligenceClient(AnalysisRateLimiter rateLimiter) {
         return new DocumentIntelligenceClientBuilder()
             .endpoint(endpoint)
             .credential(new AzureKeyCredential(apiKey))
+            .addPolicy(rateLimiter.throttleObserver())
             .buildClient();
     }
 }
\ No newline at end of file
@@ -0,0 +1,150 @@
+package com.labels.fileslabelling.config;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.labels.fileslabelling.mappers.DocumentProtobuf;
+import com.labels.fileslabelling.models.DocumentPage;
+import com.labels.fileslabelling.models.DocumentTable;
+import com.labels.fileslabelling.models.DocumentTableCell;
+import com.labels.fileslabelling.models.FileDocument;
+import com.labels.fileslabelling.models.KeyValuePair;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Convertisseur HTTP « application/x-protobuf » pour les modèles du schéma
+ * publié (FileDocument, DocumentPage, DocumentTable, DocumentTableCell,
+ * KeyValuePair, et listes de paires ou de tables), encodés par
+ * {@link DocumentProtobuf}.
+ *
+ * Utilisé en réponse lorsque le client l'accepte explicitement et en
+ * lecture lorsque le corps d'un PATCH est envoyé dans ce format. Les
+ * autres types restent servis en JSON.
+ */
+public class DocumentProtobufHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    public static final MediaType PROTOBUF = MediaType.parseMediaType(DocumentProtobuf.MEDIA_TYPE);
+
+    private static final Set<Class<?>> MESSAGES = Set.of(
+            FileDocument.class, DocumentPage.class, DocumentTable.class, DocumentTableCell.class, KeyValuePair.class);
+
+    private static final Set<Class<?>> LIST_ELEMENTS = Set.of(KeyValuePair.class, DocumentTable.class);
+
+    private final int maxBodyBytes;
+
+    /**
+     * @param maxBodyBytes taille maximale d'un corps lu ; au-delà, la lecture
+     *                     échoue (400) au lieu de continuer à allouer
+     */
+    public DocumentProtobufHttpMessageConverter(int maxBodyBytes) {
+        super(PROTOBUF);
+        this.maxBodyBytes = maxBodyBytes;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return MESSAGES.contains(clazz);
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return supportsType(type) && canRead(mediaType);
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        return (type != null ? supportsType(type) : supports(clazz)) && canWrite(mediaType);
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) throws IOException {
+        CodedInputStream in = CodedInputStream.newInstance(inputMessage.getBody());
+        // Arrivé à la limite, CodedInputStream se comporte comme en fin de flux
+        // et rendrait un corps tronqué sans erreur : la limite laisse lire un
+        // octet de plus, et tout corps qui l'atteint est rejeté
+        in.setSizeLimit((int) Math.min(maxBodyBytes + 1L, Integer.MAX_VALUE));
+        try {
+            Object value = readMessage(type, in);
+            if (in.getTotalBytesRead() > maxBodyBytes) {
+                throw new HttpMessageNotReadableException(
+                        "Protobuf body exceeds " + maxBodyBytes + " bytes", inputMessage);
+            }
+            return value;
+        } catch (InvalidProtocolBufferException e) {
+            throw new HttpMessageNotReadableException("Invalid protobuf body: " + e.getMessage(), e, inputMessage);
+        }
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        return read(clazz, null, inputMessage);
+    }
+
+    /**
+     * Lit le message correspondant au type déclaré du corps.
+     */
+    private static Object readMessage(Type type, CodedInputStream in) throws IOException {
+        ResolvableType resolved = ResolvableType.forType(type);
+        Class<?> clazz = resolved.toClass();
+        if (List.class.isAssignableFrom(clazz)) {
+            return resolved.asCollection().resolveGeneric() == DocumentTable.class
+                    ? DocumentProtobuf.readTables(in)
+                    : DocumentProtobuf.readKeyValuePairs(in);
+        }
+        if (clazz == FileDocument.class) {
+            return DocumentProtobuf.readFileDocument(in);
+        }
+        if (clazz == DocumentPage.class) {
+            return DocumentProtobuf.readDocumentPage(in);
+        }
+        if (clazz == DocumentTable.class) {
+            return DocumentProtobuf.readDocumentTable(in);
+        }
+        if (clazz == DocumentTableCell.class) {
+            return DocumentProtobuf.readDocumentTableCell(in);
+        }
+        return DocumentProtobuf.readKeyValuePair(in);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void writeInternal(Object value, Type type, HttpOutputMessage outputMessage) throws IOException {
+        CodedOutputStream out = CodedOutputStream.newInstance(outputMessage.getBody());
+        switch (value) {
+            case FileDocument doc -> DocumentProtobuf.write(out, doc);
+            case DocumentPage page -> DocumentProtobuf.write(out, page);
+            case DocumentTable table -> DocumentProtobuf.write(out, table);
+            case DocumentTableCell cell -> DocumentProtobuf.write(out, cell);
+            case KeyValuePair pair -> DocumentProtobuf.write(out, pair);
+            case List<?> list when ResolvableType.forType(type).asCollection().resolveGeneric() == DocumentTable.class ->
+                    DocumentProtobuf.writeTables(out, (List<DocumentTable>) list);
+            case List<?> list -> DocumentProtobuf.writeKeyValuePairs(out, (List<KeyValuePair>) list);
+            default -> throw new HttpMessageNotWritableException("Unsupported type: " + value.getClass());
+        }
+        out.flush();
+    }
+
+    /**
+     * Type déclaré pris en charge : un message du schéma ou une liste de
+     * paires ou de tables.
+     */
+    private static boolean supportsType(Type type) {
+        ResolvableType resolved = ResolvableType.forType(type);
+        Class<?> clazz = resolved.toClass();
+        if (List.class.isAssignableFrom(clazz)) {
+            return LIST_ELEMENTS.contains(resolved.asCollection().resolveGeneric());
+        }
+        return MESSAGES.contains(clazz);
+    }
+}
@@ -0,0 +1,27 @@
+package com.labels.fileslabelling.config;
+
+import com.labels.fileslabelling.mappers.PackedFloatsConverter;
+import com.labels.fileslabelling.models.BoundingRegion;
+import com.labels.fileslabelling.models.DocumentWord;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+
+/**
+ * Configuration Spring des conversions MongoDB.
+ *
+ * Les polygones des mots et des régions (float[]) sont persistés sous forme
+ * binaire par {@link PackedFloatsConverter} plutôt qu'en tableaux de doubles.
+ * Ce bean remplace les conversions par défaut de Spring Boot.
+ */
+@Configuration
+public class MongoConversionConfig {
+
+    @Bean
+    public MongoCustomConversions mongoCustomConversions() {
+        PackedFloatsConverter packedFloats = new PackedFloatsConverter();
+        return MongoCustomConversions.create(adapter -> adapter.configurePropertyConversions(registrar -> registrar
+                .registerConverter(DocumentWord.class, "polygon", packedFloats)
+                .registerConverter(BoundingRegion.class, "polygon", packedFloats)));
+    }
+}
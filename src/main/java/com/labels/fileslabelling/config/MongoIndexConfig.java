@@ -0,0 +1,55 @@
+package com.labels.fileslabelling.config;
+
+import com.labels.fileslabelling.models.FileDocument;
+import com.labels.fileslabelling.models.PageChunk;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.util.List;
+
+/**
+ * Configuration Spring de la création des index MongoDB.
+ *
+ * 
+ * Spring Boot désactive la création automatique des index
+ * (spring.data.mongodb.auto-index-creation=false). Cette classe crée
+ * explicitement, au démarrage, les index déclarés par annotations
+ * (@Indexed, @CompoundIndex) sur les entités persistées, afin que les
+ * requêtes de recherche (empreinte de contenu, statut, date…) ne
+ * parcourent jamais toute la collection.
+ * 
+ */
+@Configuration
+public class MongoIndexConfig {
+
+    /**
+     * Entités dont les index annotés doivent être créés.
+     */
+    private static final List<Class<?>> INDEXED_ENTITIES = List.of(FileDocument.class, PageChunk.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final MongoMappingContext mappingContext;
+
+    public MongoIndexConfig(MongoTemplate mongoTemplate, MongoMappingContext mappingContext) {
+        this.mongoTemplate = mongoTemplate;
+        this.mappingContext = mappingContext;
+    }
+
+    /**
+     * Crée (de manière idempotente) les index résolus depuis les annotations.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        IndexResolver resolver = new MongoPersistentEntityIndexResolver(mappingContext);
+        for (Class<?> entity : INDEXED_ENTITIES) {
+            IndexOperations ops = mongoTemplate.indexOps(entity);
+            resolver.resolveIndexFor(entity).forEach(ops::createIndex);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.labels.fileslabelling.config;
+
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Exécuteur lançant chaque tâche sur un thread virtuel (Java 21).
+ *
+ * 
+ * Il reproduit les garanties du pool de threads classique sans en avoir
+ * le coût : au plus maxConcurrency tâches s'exécutent en même temps
+ * (sémaphore) et au plus queueCapacity tâches attendent leur tour. Une
+ * tâche en attente ou bloquée sur une entrée/sortie (upload Blob, polling
+ * Document Intelligence) n'occupe aucun thread de plateforme.
+ * Au-delà de la capacité, la soumission lève TaskRejectedException.
+ * 
+ */
+public class VirtualThreadTaskExecutor implements TaskExecutor, AutoCloseable {
+
+    private final ExecutorService delegate;
+    private final Semaphore permits;
+    private final AtomicInteger pending = new AtomicInteger();
+    private final int capacity;
+
+    /**
+     * @param threadNamePrefix préfixe des noms de threads virtuels
+     * @param maxConcurrency   nombre maximal de tâches exécutées simultanément
+     * @param queueCapacity    nombre maximal de tâches en attente d'un permis
+     */
+    public VirtualThreadTaskExecutor(String threadNamePrefix, int maxConcurrency, int queueCapacity) {
+        this.delegate = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name(threadNamePrefix, 0).factory());
+        this.permits = new Semaphore(maxConcurrency, true);
+        this.capacity = maxConcurrency + queueCapacity;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (pending.incrementAndGet() > capacity) {
+            pending.decrementAndGet();
+            throw new TaskRejectedException("Virtual thread executor is full (" + capacity + " tasks)");
+        }
+        try {
+            delegate.execute(() -> {
+                try {
+                    permits.acquire();
+                } catch (InterruptedException e) {
+                    pending.decrementAndGet();
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                try {
+                    task.run();
+                } finally {
+                    permits.release();
+                    pending.decrementAndGet();
+                }
+            });
+        } catch (RuntimeException e) {
+            pending.decrementAndGet();
+            throw new TaskRejectedException("Executor rejected the task", e);
+        }
+    }
+
+    /**
+     * Nombre de tâches soumises et non encore terminées (en attente ou en cours).
+     */
+    public int getPendingCount() {
+        return pending.get();
+    }
+
+    /**
+     * Attend la fin des tâches en cours (30 s maximum) à l'arrêt du contexte.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        delegate.shutdown();
+        if (!delegate.awaitTermination(30, TimeUnit.SECONDS)) {
+            delegate.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.labels.fileslabelling.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Configuration Spring MVC des formats de réponse.
+ *
+ * Le convertisseur Protocol Buffers ({@link DocumentProtobufHttpMessageConverter})
+ * est ajouté après les convertisseurs par défaut : un client qui n'envoie
+ * pas d'en-tête Accept, ou « Accept: * / * », continue de recevoir du JSON ;
+ * seul « Accept: application/x-protobuf » sélectionne le format binaire.
+ * Le schéma est publié sous /schemas/fileslabelling.proto.
+ */
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    /**
+     * Taille maximale, en octets, d'un corps de requête Protocol Buffers.
+     */
+    @Value("${app.protobuf.max-body-bytes:67108864}")
+    private int protobufMaxBodyBytes;
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new DocumentProtobufHttpMessageConverter(protobufMaxBodyBytes));
+    }
+}
@@ -1,95 +1,526 @@
 package com.labels.fileslabelling.controllers;
 
+import com.labels.fileslabelling.models.AnalysisJob;
+import com.labels.fileslabelling.models.DocumentPage;
+import com.labels.fileslabelling.models.DocumentWord;
 import com.labels.fileslabelling.models.FileDocument;
+import com.labels.fileslabelling.models.FileSummary;
+import com.labels.fileslabelling.models.KeyValueMatch;
 import com.labels.fileslabelling.models.KeyValuePair;
+import com.labels.fileslabelling.models.SearchHit;
 import com.labels.fileslabelling.models.DocumentTable;
+import com.labels.fileslabelling.models.DocumentTableCell;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.labels.fileslabelling.services.AnalysisJobService;
+import com.labels.fileslabelling.services.AnalysisProfile;
+import com.labels.fileslabelling.services.AnalysisRequest;
+import com.labels.fileslabelling.services.BatchUploadService;
+import com.labels.fileslabelling.services.DeduplicationPolicy;
+import com.labels.fileslabelling.services.FileDocumentView;
+import com.labels.fileslabelling.services.FileDocumentWriter;
 import com.labels.fileslabelling.services.FileService;
+import com.labels.fileslabelling.services.StoredBlob;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.data.web.PagedModel;
+import org.springframework.format.annotation.DateTimeFormat;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 /**
  * Contrôleur REST exposant les endpoints pour gérer les fichiers labellisés :
- *   • Liste des fichiers
- *   • Téléversement et analyse d’un nouveau fichier
- *   • Récupération des détails d’un fichier
- *   • Mise à jour des paires clé–valeur
- *   • Mise à jour des tables
+ *   • Liste paginée des fichiers
+ *   • Recherche plein texte dans les mots, paires clé–valeur et tables extraits
+ *   • Extraction des valeurs d’une clé sur l’ensemble des documents
+ *   • Téléversement et analyse d’un nouveau fichier (multipart ou flux brut, synchrone ou asynchrone)
+ *   • Téléversement et analyse d’un lot de fichiers (ou d’une archive zip)
+ *   • Suivi d’un job d’analyse asynchrone
+ *   • Récupération des détails d’un fichier et de ses pages, une à une
+ *   • Recherche des mots d’une page par zone ou par proximité
+ *   • Mise à jour des paires clé–valeur (toutes, ou une seule par index)
+ *   • Mise à jour des tables (toutes, ou une seule cellule par index)
  *   • Approbation des annotations
  *
  * Toutes les opérations déléguent la logique métier au {@link FileService}.
+ *
+ * Les réponses contenant un FileDocument portent un ETag fort formé de sa
+ * version, suffixé selon la représentation (« "3" » en JSON, « "3-pb" » en
+ * protobuf, « "3-gz" » et « "3-pb-gz" » compressés en gzip), deux
+ * représentations différentes ne devant pas partager un ETag fort.
+ * Les PATCH acceptent un en-tête If-Match : la modification n’est appliquée
+ * que si le document n’a pas changé entre-temps, sinon la réponse est
+ * 409 Conflict. Plusieurs relecteurs peuvent ainsi travailler sans verrou
+ * et sans écraser silencieusement les modifications des autres.
+ *
+ * Ces réponses sont écrites en flux par le {@link FileDocumentWriter} et
+ * acceptent une représentation creuse : fields (propriétés à renvoyer),
+ * pages (pages à joindre, GET uniquement) et include=words=false (pages
+ * sans leurs mots). Elles sont compressées en gzip si le client l’accepte.
+ *
+ * Avec « Accept: application/x-protobuf », les FileDocument, DocumentPage,
+ * DocumentTable et KeyValuePair sont envoyés au format Protocol Buffers
+ * (schéma publié sous /schemas/fileslabelling.proto), et les PATCH
+ * acceptent un corps dans ce format ; sinon les échanges restent en JSON.
  */
 @RestController
 @RequestMapping("/api/files")
 public class UploadFileController {
 
+    /** ETag fort d’une représentation : « "version" » suivi de « -pb » et/ou « -gz ». */
+    private static final Pattern IF_MATCH_TAG = Pattern.compile("\"(\\d+)(-pb)?(-gz)?\"");
+
     private final FileService fileService;
+    private final AnalysisJobService jobService;
+    private final BatchUploadService batchService;
+    private final ObjectMapper objectMapper;
+    private final FileDocumentWriter documentWriter;
 
     /**
-     * Injection du service de traitement des fichiers.
+     * Injection des services de traitement des fichiers, des jobs d’analyse et des lots.
      *
-     * @param fileService service contenant la logique d’upload, d’analyse et de persistence
+     * @param fileService  service contenant la logique d’upload, d’analyse et de persistence
+     * @param jobService   service de suivi des analyses asynchrones
+     * @param batchService service d’upload et d’analyse par lot
+     * @param objectMapper   sérialiseur JSON utilisé pour les réponses en flux
+     * @param documentWriter écriture en flux des FileDocument
      */
-    public UploadFileController(FileService fileService) {
+    public UploadFileController(FileService fileService,
+                                AnalysisJobService jobService,
+                                BatchUploadService batchService,
+                                ObjectMapper objectMapper,
+                                FileDocumentWriter documentWriter) {
         this.fileService = fileService;
+        this.jobService = jobService;
+        this.batchService = batchService;
+        this.objectMapper = objectMapper;
+        this.documentWriter = documentWriter;
     }
 
     /**
-     * Retourne la liste de tous les fichiers stockés.
-     * Chaque entrée contient l’ID, le nom, le statut et la date de téléversement.
+     * Retourne une page de la liste des fichiers stockés.
+     * Chaque entrée contient l’ID, le nom, le statut et la date de téléversement ;
+     * seuls ces champs sont lus en base.
      *
-     * GET /api/files
+     * GET /api/files?page=0&size=50&sort=uploadedAt,desc&status=IN_REVIEW&from=...&to=...
      *
-     * @return 200 OK + liste simplifiée des documents
+     * @param status   filtre optionnel sur le statut (IN_REVIEW, APPROVED)
+     * @param from     date de téléversement minimale (ISO-8601, incluse), optionnelle
+     * @param to       date de téléversement maximale (ISO-8601, exclue), optionnelle
+     * @param pageable page, taille (50 par défaut) et tri (uploadedAt décroissant par défaut)
+     * @return 200 OK + page de résumés
      */
     @GetMapping
-    public ResponseEntity<List<Map<String,Object>>> listFiles() {
-        List<Map<String,Object>> out = fileService.findAll().stream()
-            .map(d -> Map.<String,Object>of(
-                "id",         d.getId(),
-                "fileName",   d.getFileName(),
-                "status",     d.getStatus(),
-                "uploadedAt", d.getUploadedAt()
-            ))
-            .collect(Collectors.toList());
-        return ResponseEntity.ok(out);
+    public ResponseEntity<PagedModel<FileSummary>> listFiles(
+        @RequestParam(value = "status", required = false) String status,
+        @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date from,
+        @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date to,
+        @PageableDefault(size = 50, sort = "uploadedAt", direction = Sort.Direction.DESC) Pageable pageable
+    ) {
+        return ResponseEntity.ok(new PagedModel<>(fileService.listSummaries(status, from, to, pageable)));
+    }
+
+    /**
+     * Recherche plein texte dans les documents analysés : mots des pages,
+     * clés et valeurs des paires, contenu des cellules de tables.
+     * Tous les termes doivent être présents ; un terme terminé par « * »
+     * est recherché comme préfixe. La casse et les accents sont ignorés.
+     * Les documents sont triés par nombre d’occurrences décroissant ; chacun
+     * détaille ses occurrences (source, page, position du mot).
+     *
+     * GET /api/files/search?q=IBAN+FR76*&limit=50
+     *
+     * @param q     texte recherché
+     * @param limit nombre maximal de documents (50 par défaut, 500 au plus)
+     * @return 200 OK + documents trouvés, 400 Bad Request si la requête ne contient aucun terme
+     */
+    @GetMapping("/search")
+    public ResponseEntity<List<SearchHit>> search(
+        @RequestParam("q") String q,
+        @RequestParam(value = "limit", defaultValue = "50") int limit
+    ) {
+        return fileService.search(q, Math.clamp(limit, 1, 500))
+            .map(ResponseEntity::ok)
+            .orElse(ResponseEntity.badRequest().build());
+    }
+
+    /**
+     * Liste, sur l’ensemble des documents, les valeurs extraites pour une clé.
+     * La clé est comparée sans tenir compte de la casse, des accents ni de la
+     * ponctuation, et étendue à ses synonymes (app.keys.synonyms) : « invoice
+     * number » peut ainsi retrouver « N° facture ».
+     *
+     * Les résultats sont écrits au fil de la lecture en base, un objet
+     * KeyValueMatch JSON par ligne (application/x-ndjson), sans être
+     * accumulés en mémoire.
+     *
+     * GET /api/files/keyValuePairs?key=Invoice+Number&status=APPROVED&minConfidence=0.8
+     *
+     * @param key           clé recherchée
+     * @param status        filtre optionnel sur le statut (IN_REVIEW, APPROVED)
+     * @param from          date de téléversement minimale (ISO-8601, incluse), optionnelle
+     * @param to            date de téléversement maximale (ISO-8601, exclue), optionnelle
+     * @param minConfidence confiance minimale de la paire (0 à 1), optionnelle
+     * @param response      réponse HTTP dans laquelle les résultats sont écrits
+     * @throws IOException si l’écriture de la réponse échoue
+     */
+    @GetMapping("/keyValuePairs")
+    public void streamKeyValuePairs(
+        @RequestParam("key") String key,
+        @RequestParam(value = "status", required = false) String status,
+        @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date from,
+        @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date to,
+        @RequestParam(value = "minConfidence", required = false) Double minConfidence,
+        HttpServletResponse response
+    ) throws IOException {
+        if (key.isBlank()) {
+            response.setStatus(HttpStatus.BAD_REQUEST.value());
+            return;
+        }
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType("application/x-ndjson");
+        OutputStream out = response.getOutputStream();
+        try (Stream<KeyValueMatch> matches = fileService.streamKeyValues(key, status, from, to, minConfidence)) {
+            for (Iterator<KeyValueMatch> it = matches.iterator(); it.hasNext(); ) {
+                out.write(objectMapper.writeValueAsBytes(it.next()));
+                out.write('\n');
+            }
+        }
+        out.flush();
     }
 
     /**
      * Téléverse un nouveau fichier et déclenche son analyse.
-     * En cas de succès, retourne l’objet FileDocument complet, incluant
-     * pages, paires clé–valeur et tables extraites.
+     *
+     * Si un fichier au contenu identique a déjà été analysé, la politique de
+     * déduplication (paramètre dedup, ou app.dedup.policy par défaut) décide
+     * s’il est réutilisé (REUSE), lié à un nouveau document (LINK) ou
+     * réanalysé (FORCE) ; dans les deux premiers cas la réponse est 200 OK.
+     *
+     * En mode synchrone (par défaut), retourne l’objet FileDocument avec ses
+     * paires clé–valeur, ses tables et le nombre de pages analysées (pageCount) ;
+     * le contenu des pages se consulte via GET /api/files/{fileId}/pages/{pageNumber}.
+     * En mode asynchrone (async=true), le fichier est stocké puis l’analyse
+     * est planifiée sur l’exécuteur dédié : la réponse 202 contient le job
+     * à suivre via GET /api/files/jobs/{jobId}.
+     *
+     * Le profil d’analyse (READ, LAYOUT, LAYOUT_KVP ou CUSTOM avec modelId)
+     * et la plage de pages (ex. « 1-3,5 ») permettent de limiter l’analyse
+     * aux sorties utiles ; par défaut app.analysis.profile, document entier.
      *
      * POST /api/files/upload
      *
-     * @param file fichier multipart envoyé par le client
-     * @return 400 Bad Request si le fichier est vide, sinon 200 OK + FileDocument
+     * @param file    fichier multipart envoyé par le client
+     * @param async   true pour ne pas attendre la fin de l’analyse
+     * @param dedup   politique de déduplication (REUSE, LINK ou FORCE), optionnelle
+     * @param profile profil d’analyse, optionnel
+     * @param modelId identifiant du modèle personnalisé (profil CUSTOM)
+     * @param pages   pages à analyser, optionnel
+     * @param fields  propriétés du FileDocument à renvoyer (mode synchrone), optionnel
+     * @param include options de la réponse (ex. « words=false »), optionnel
+     * @param headers en-têtes Accept (JSON ou protobuf) et Accept-Encoding (gzip)
+     * @return 400 Bad Request si le fichier est vide ou les paramètres d’analyse invalides,
+     *         503 si la file d’analyse est pleine,
+     *         202 Accepted + AnalysisJob en mode asynchrone, sinon 200 OK + FileDocument
      * @throws Exception en cas d’erreur d’upload ou d’analyse
      */
     @PostMapping("/upload")
-    public ResponseEntity<FileDocument> uploadFile(@RequestParam("file") MultipartFile file) throws Exception {
-        if (file.isEmpty()) {
+    public ResponseEntity<?> uploadFile(
+        @RequestParam("file") MultipartFile file,
+        @RequestParam(value = "async", defaultValue = "false") boolean async,
+        @RequestParam(value = "dedup", required = false) DeduplicationPolicy dedup,
+        @RequestParam(value = "profile", required = false) AnalysisProfile profile,
+        @RequestParam(value = "modelId", required = false) String modelId,
+        @RequestParam(value = "pages", required = false) String pages,
+        @RequestParam(value = "fields", required = false) String fields,
+        @RequestParam(value = "include", required = false) String include,
+        @RequestHeader HttpHeaders headers
+    ) throws Exception {
+        Optional<AnalysisRequest> analysis = analysisRequest(profile, modelId, pages);
+        Optional<FileDocumentView> view = view(fields, null, include);
+        if (file.isEmpty() || analysis.isEmpty() || view.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (!async) {
+            FileDocument saved = fileService.uploadAndAnalyze(file, dedup, analysis.get());
+            return document(saved, view.get(), headers);
+        }
+        String fileName = file.getOriginalFilename();
+        String contentHash = fileService.contentHash(file);
+        Optional<FileDocument> duplicate = fileService.resolveDuplicate(fileName, contentHash, dedup, analysis.get());
+        if (duplicate.isPresent()) {
+            return ResponseEntity.ok(duplicate.get());
+        }
+        return submitAnalysis(fileName, fileService.storeBlob(file, contentHash), analysis.get());
+    }
+
+    /**
+     * Téléverse un fichier envoyé comme corps brut de la requête (non multipart)
+     * et déclenche son analyse. Le corps est lu une seule fois, sans fichier
+     * temporaire : il est envoyé en flux vers le blob, empreinte et taille étant
+     * calculées pendant le transfert ; le blob d’un doublon est ensuite supprimé.
+     * Mêmes modes et mêmes réponses que POST /api/files/upload.
+     *
+     * POST /api/files/upload/stream?fileName=...
+     *
+     * @param fileName    nom du fichier
+     * @param contentType type MIME du corps, enregistré sur le blob
+     * @param body        corps de la requête
+     * @param async       true pour ne pas attendre la fin de l’analyse
+     * @param dedup       politique de déduplication (REUSE, LINK ou FORCE), optionnelle
+     * @param profile     profil d’analyse, optionnel
+     * @param modelId     identifiant du modèle personnalisé (profil CUSTOM)
+     * @param pages       pages à analyser, optionnel
+     * @param fields      propriétés du FileDocument à renvoyer (mode synchrone), optionnel
+     * @param include     options de la réponse (ex. « words=false »), optionnel
+     * @param headers en-têtes Accept (JSON ou protobuf) et Accept-Encoding (gzip)
+     * @return 400 Bad Request si le corps est vide, sinon comme POST /api/files/upload
+     * @throws Exception en cas d’erreur d’upload ou d’analyse
+     */
+    @PostMapping("/upload/stream")
+    public ResponseEntity<?> uploadStream(
+        @RequestParam("fileName") String fileName,
+        @RequestHeader(value = "Content-Type", required = false) String contentType,
+        InputStream body,
+        @RequestParam(value = "async", defaultValue = "false") boolean async,
+        @RequestParam(value = "dedup", required = false) DeduplicationPolicy dedup,
+        @RequestParam(value = "profile", required = false) AnalysisProfile profile,
+        @RequestParam(value = "modelId", required = false) String modelId,
+        @RequestParam(value = "pages", required = false) String pages,
+        @RequestParam(value = "fields", required = false) String fields,
+        @RequestParam(value = "include", required = false) String include,
+        @RequestHeader HttpHeaders headers
+    ) throws Exception {
+        Optional<AnalysisRequest> analysis = analysisRequest(profile, modelId, pages);
+        Optional<FileDocumentView> view = view(fields, null, include);
+        if (analysis.isEmpty() || view.isEmpty()) {
             return ResponseEntity.badRequest().build();
         }
-        FileDocument saved = fileService.uploadAndAnalyze(file);
-        return ResponseEntity.ok(saved);
+        PushbackInputStream in = new PushbackInputStream(body);
+        int first = in.read();
+        if (first == -1) {
+            return ResponseEntity.badRequest().build();
+        }
+        in.unread(first);
+        if (!async) {
+            return document(fileService.ingest(fileName, in, contentType, dedup, analysis.get()), view.get(), headers);
+        }
+        StoredBlob stored = fileService.storeBlob(fileName, in, contentType);
+        Optional<FileDocument> duplicate = fileService.resolveDuplicate(fileName, stored, dedup, analysis.get());
+        if (duplicate.isPresent()) {
+            return ResponseEntity.ok(duplicate.get());
+        }
+        return submitAnalysis(fileName, stored, analysis.get());
+    }
+
+    /**
+     * Téléverse et analyse un lot de fichiers (les archives .zip sont dépliées).
+     * Les fichiers sont traités en parallèle sous la limite app.batch.max-concurrency
+     * et persistés par insertions groupées. La réponse est un flux NDJSON :
+     * une ligne BatchItemResult par fichier, écrite dès que celui-ci est traité.
+     *
+     * POST /api/files/upload/batch
+     *
+     * @param files    fichiers multipart envoyés par le client
+     * @param dedup    politique de déduplication (REUSE, LINK ou FORCE), optionnelle
+     * @param profile  profil d’analyse appliqué à tout le lot, optionnel
+     * @param modelId  identifiant du modèle personnalisé (profil CUSTOM)
+     * @param pages    pages à analyser dans chaque fichier, optionnel
+     * @param response réponse HTTP dans laquelle les résultats sont écrits
+     * @throws IOException si l’écriture de la réponse échoue
+     */
+    @PostMapping("/upload/batch")
+    public void uploadBatch(
+        @RequestParam("files") List<MultipartFile> files,
+        @RequestParam(value = "dedup", required = false) DeduplicationPolicy dedup,
+        @RequestParam(value = "profile", required = false) AnalysisProfile profile,
+        @RequestParam(value = "modelId", required = false) String modelId,
+        @RequestParam(value = "pages", required = false) String pages,
+        HttpServletResponse response
+    ) throws IOException {
+        Optional<AnalysisRequest> analysis = analysisRequest(profile, modelId, pages);
+        if (analysis.isEmpty()) {
+            response.setStatus(HttpStatus.BAD_REQUEST.value());
+            return;
+        }
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType("application/x-ndjson");
+        OutputStream out = response.getOutputStream();
+        batchService.process(files, dedup, analysis.get(), result -> {
+            synchronized (out) {
+                try {
+                    out.write(objectMapper.writeValueAsBytes(result));
+                    out.write('\n');
+                    out.flush();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Planifie l’analyse d’un fichier stocké et sans doublon.
+     *
+     * @return 202 Accepted + job, ou 503 si la file est pleine
+     */
+    private ResponseEntity<?> submitAnalysis(String fileName, StoredBlob stored, AnalysisRequest analysis) {
+        try {
+            AnalysisJob job = jobService.submit(fileName, stored, analysis);
+            return ResponseEntity.accepted()
+                .location(URI.create("/api/files/jobs/" + job.getId()))
+                .body(job);
+        } catch (TaskRejectedException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+
+    /**
+     * Récupère l’état d’un job d’analyse asynchrone.
+     *
+     * GET /api/files/jobs/{jobId}
+     *
+     * @param jobId identifiant du job retourné par l’upload asynchrone
+     * @return 200 OK + AnalysisJob si trouvé, sinon 404 Not Found
+     */
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<AnalysisJob> getJob(@PathVariable String jobId) {
+        return jobService.findById(jobId)
+            .map(ResponseEntity::ok)
+            .orElse(ResponseEntity.notFound().build());
     }
 
     /**
      * Récupère les détails d’un fichier déjà analysé.
+     * Le document est servi depuis le cache lorsqu’il y est présent. Si le
+     * client envoie If-None-Match avec l’ETag courant, la réponse est
+     * 304 Not Modified, sans corps.
      *
-     * GET /api/files/{fileId}
+     * Seules les propriétés demandées sont écrites ; les pages demandées
+     * sont lues et envoyées une à une, sans charger tout le document.
      *
-     * @param fileId identifiant unique du document
-     * @return 200 OK + FileDocument si trouvé, sinon 404 Not Found
+     * GET /api/files/{fileId}?fields=status,keyValuePairs&pages=3-5&include=words=false
+     *
+     * @param fileId  identifiant unique du document
+     * @param fields  propriétés à renvoyer (id toujours inclus), optionnel
+     * @param pages   pages à joindre (ex. « 3-5 », « 1,4- »), optionnel
+     * @param include options de la réponse (ex. « words=false »), optionnel
+     * @param headers en-têtes Accept (JSON ou protobuf) et Accept-Encoding (gzip)
+     * @param request requête, pour la comparaison avec If-None-Match
+     * @return 200 OK + FileDocument (et son ETag) si trouvé, 304 s’il n’a pas changé,
+     *         400 Bad Request si pages ou include sont mal formés, sinon 404 Not Found
      */
     @GetMapping("/{fileId}")
-    public ResponseEntity<FileDocument> getFile(@PathVariable String fileId) {
-        return fileService.findById(fileId)
+    public ResponseEntity<StreamingResponseBody> getFile(
+        @PathVariable String fileId,
+        @RequestParam(value = "fields", required = false) String fields,
+        @RequestParam(value = "pages", required = false) String pages,
+        @RequestParam(value = "include", required = false) String include,
+        @RequestHeader HttpHeaders headers,
+        WebRequest request
+    ) {
+        Optional<FileDocumentView> view = view(fields, pages, include);
+        if (view.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        Optional<FileDocument> doc = fileService.findById(fileId);
+        if (doc.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        MediaType contentType = contentType(headers);
+        boolean gzip = documentWriter.gzip(headers.getFirst(HttpHeaders.ACCEPT_ENCODING));
+        // Le corps en flux échappe au contrôle automatique de l’ETag
+        if (request.checkNotModified(eTag(doc.get(), contentType, gzip))) {
+            return null;
+        }
+        return document(doc.get(), view.get(), contentType, gzip);
+    }
+
+    /**
+     * Récupère une page d’un fichier analysé (dimensions, mots et polygones).
+     * Les pages ne sont pas incluses dans GET /api/files/{fileId} : le nombre
+     * de pages est donné par le champ pageCount du document.
+     *
+     * GET /api/files/{fileId}/pages/{pageNumber}
+     *
+     * @param fileId     identifiant unique du document
+     * @param pageNumber numéro de page (1-indexé)
+     * @return 200 OK + DocumentPage si trouvée, sinon 404 Not Found
+     */
+    @GetMapping("/{fileId}/pages/{pageNumber}")
+    public ResponseEntity<DocumentPage> getPage(
+        @PathVariable String fileId,
+        @PathVariable int pageNumber
+    ) {
+        return fileService.findPage(fileId, pageNumber)
+            .map(ResponseEntity::ok)
+            .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Recherche spatiale des mots d’une page, sans transférer la page entière.
+     *
+     * Avec x0, y0, x1, y1 : mots dont la boîte englobante recoupe le rectangle
+     * (within=true : entièrement contenue), dans l’ordre de lecture.
+     * Avec x, y : les k mots les plus proches du point, du plus proche au
+     * plus lointain. Les coordonnées sont dans l’unité de la page.
+     *
+     * GET /api/files/{fileId}/pages/{pageNumber}/words?x0=1&y0=1&x1=3&y1=2
+     * GET /api/files/{fileId}/pages/{pageNumber}/words?x=2.5&y=1.2&k=5
+     *
+     * @param fileId     identifiant unique du document
+     * @param pageNumber numéro de page (1-indexé)
+     * @param within     true pour exclure les mots qui débordent du rectangle
+     * @param k          nombre de mots pour la recherche par proximité (1 par défaut, 100 au plus)
+     * @return 200 OK + mots trouvés, 400 Bad Request si ni rectangle ni point complet,
+     *         404 Not Found si le document ou la page n’existe pas
+     */
+    @GetMapping("/{fileId}/pages/{pageNumber}/words")
+    public ResponseEntity<List<DocumentWord>> getPageWords(
+        @PathVariable String fileId,
+        @PathVariable int pageNumber,
+        @RequestParam(value = "x0", required = false) Float x0,
+        @RequestParam(value = "y0", required = false) Float y0,
+        @RequestParam(value = "x1", required = false) Float x1,
+        @RequestParam(value = "y1", required = false) Float y1,
+        @RequestParam(value = "within", defaultValue = "false") boolean within,
+        @RequestParam(value = "x", required = false) Float x,
+        @RequestParam(value = "y", required = false) Float y,
+        @RequestParam(value = "k", defaultValue = "1") int k
+    ) {
+        Optional<List<DocumentWord>> words;
+        if (x0 != null && y0 != null && x1 != null && y1 != null) {
+            words = fileService.findWordsInBox(fileId, pageNumber, x0, y0, x1, y1, within);
+        } else if (x != null && y != null) {
+            words = fileService.findNearestWords(fileId, pageNumber, x, y, Math.clamp(k, 1, 100));
+        } else {
+            return ResponseEntity.badRequest().build();
+        }
+        return words
             .map(ResponseEntity::ok)
             .orElse(ResponseEntity.notFound().build());
     }
@@ -102,16 +533,65 @@ public class UploadFileController {
      *
      * @param fileId identifiant du document à modifier
      * @param edits liste des nouvelles paires clé–valeur
-     * @return 200 OK + FileDocument mis à jour
+     * @param ifMatch ETag attendu (optionnel)
+     * @param fields  propriétés à renvoyer, optionnel
+     * @param include options de la réponse, optionnel
+     * @param headers en-têtes Accept (JSON ou protobuf) et Accept-Encoding (gzip)
+     * @return 200 OK + FileDocument mis à jour, 404 Not Found si le document n’existe pas,
+     *         409 Conflict si l’ETag ne correspond plus, 400 ou 412 si If-Match est
+     *         mal formé ou faible
      */
     @PatchMapping("/{fileId}/keyValuePairs")
-    public ResponseEntity<FileDocument> patchKeyValuePairs(
+    public ResponseEntity<StreamingResponseBody> patchKeyValuePairs(
         @PathVariable String fileId,
-        @RequestBody List<KeyValuePair> edits
+        @RequestBody List<KeyValuePair> edits,
+        @RequestHeader(value = "If-Match", required = false) String ifMatch,
+        @RequestParam(value = "fields", required = false) String fields,
+        @RequestParam(value = "include", required = false) String include,
+        @RequestHeader HttpHeaders headers
     ) {
-        return ResponseEntity.ok(
-          fileService.updateKeyValuePairs(fileId, edits)
-        );
+        Optional<FileDocumentView> view = view(fields, null, include);
+        if (view.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        return fileService.updateKeyValuePairs(fileId, edits, expectedVersion(ifMatch))
+          .map(doc -> document(doc, view.get(), headers))
+          .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Remplace une seule paire clé–valeur, désignée par sa position dans la liste.
+     *
+     * PATCH /api/files/{fileId}/keyValuePairs/{index}
+     *
+     * @param fileId identifiant du document à modifier
+     * @param index  position (0-based) de la paire dans keyValuePairs
+     * @param edit   nouvelle paire clé–valeur
+     * @param ifMatch ETag attendu (optionnel)
+     * @param fields  propriétés à renvoyer, optionnel
+     * @param include options de la réponse, optionnel
+     * @param headers en-têtes Accept (JSON ou protobuf) et Accept-Encoding (gzip)
+     * @return 200 OK + FileDocument mis à jour, 404 Not Found si le document ou la paire
+     *         n’existe pas, 409 Conflict si l’ETag ne correspond plus, 400 ou 412 si
+     *         If-Match est mal formé ou faible
+     */
+    @PatchMapping("/{fileId}/keyValuePairs/{index}")
+    public ResponseEntity<StreamingResponseBody> patchKeyValuePair(
+        @PathVariable String fileId,
+        @PathVariable int index,
+        @RequestBody KeyValuePair edit,
+        @RequestHeader(value = "If-Match", required = false) String ifMatch,
+        @RequestParam(value = "fields", required = false) String fields,
+        @RequestParam(value = "include", required = false) String include,
+        @RequestHeader HttpHeaders headers
+    ) {
+        Optional<FileDocumentView> view = view(fields, null, include);
+        if (view.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        return fileService.updateKeyValuePair(fileId, index, edit, expectedVersion(ifMatch))
+          .map(doc -> document(doc, view.get(), headers))
+          .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
     /**
@@ -122,16 +602,67 @@ public class UploadFileController {
      *
      * @param fileId identifiant du document à modifier
      * @param edits liste des nouvelles tables
-     * @return 200 OK + FileDocument mis à jour
+     * @param ifMatch ETag attendu (optionnel)
+     * @param fields  propriétés à renvoyer, optionnel
+     * @param include options de la réponse, optionnel
+     * @param headers en-têtes Accept (JSON ou protobuf) et Accept-Encoding (gzip)
+     * @return 200 OK + FileDocument mis à jour, 404 Not Found si le document n’existe pas,
+     *         409 Conflict si l’ETag ne correspond plus, 400 ou 412 si If-Match est
+     *         mal formé ou faible
      */
     @PatchMapping("/{fileId}/tables")
-    public ResponseEntity<FileDocument> patchTables(
+    public ResponseEntity<StreamingResponseBody> patchTables(
         @PathVariable String fileId,
-        @RequestBody List<DocumentTable> edits
+        @RequestBody List<DocumentTable> edits,
+        @RequestHeader(value = "If-Match", required = false) String ifMatch,
+        @RequestParam(value = "fields", required = false) String fields,
+        @RequestParam(value = "include", required = false) String include,
+        @RequestHeader HttpHeaders headers
     ) {
-        return ResponseEntity.ok(
-          fileService.updateTables(fileId, edits)
-        );
+        Optional<FileDocumentView> view = view(fields, null, include);
+        if (view.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        return fileService.updateTables(fileId, edits, expectedVersion(ifMatch))
+          .map(doc -> document(doc, view.get(), headers))
+          .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Remplace une seule cellule d’une table.
+     *
+     * PATCH /api/files/{fileId}/tables/{tableIndex}/cells/{cellIndex}
+     *
+     * @param fileId     identifiant du document à modifier
+     * @param tableIndex position (0-based) de la table dans tables
+     * @param cellIndex  position (0-based) de la cellule dans la table
+     * @param edit       nouvelle cellule
+     * @param ifMatch    ETag attendu (optionnel)
+     * @param fields  propriétés à renvoyer, optionnel
+     * @param include options de la réponse, optionnel
+     * @param headers en-têtes Accept (JSON ou protobuf) et Accept-Encoding (gzip)
+     * @return 200 OK + FileDocument mis à jour, 404 Not Found si le document, la table ou la cellule
+     *         n’existe pas, 409 Conflict si l’ETag ne correspond plus, 400 ou 412 si
+     *         If-Match est mal formé ou faible
+     */
+    @PatchMapping("/{fileId}/tables/{tableIndex}/cells/{cellIndex}")
+    public ResponseEntity<StreamingResponseBody> patchTableCell(
+        @PathVariable String fileId,
+        @PathVariable int tableIndex,
+        @PathVariable int cellIndex,
+        @RequestBody DocumentTableCell edit,
+        @RequestHeader(value = "If-Match", required = false) String ifMatch,
+        @RequestParam(value = "fields", required = false) String fields,
+        @RequestParam(value = "include", required = false) String include,
+        @RequestHeader HttpHeaders headers
+    ) {
+        Optional<FileDocumentView> view = view(fields, null, include);
+        if (view.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        return fileService.updateTableCell(fileId, tableIndex, cellIndex, edit, expectedVersion(ifMatch))
+          .map(doc -> document(doc, view.get(), headers))
+          .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
     /**
@@ -141,14 +672,141 @@ public class UploadFileController {
      * PATCH /api/files/{fileId}/approve
      *
      * @param fileId identifiant du document à approuver
-     * @return 200 OK + FileDocument mis à jour
+     * @param ifMatch ETag attendu (optionnel)
+     * @param fields  propriétés à renvoyer, optionnel
+     * @param include options de la réponse, optionnel
+     * @param headers en-têtes Accept (JSON ou protobuf) et Accept-Encoding (gzip)
+     * @return 200 OK + FileDocument mis à jour, 404 Not Found si le document n’existe pas,
+     *         409 Conflict si l’ETag ne correspond plus, 400 ou 412 si If-Match est
+     *         mal formé ou faible
      */
     @PatchMapping("/{fileId}/approve")
-    public ResponseEntity<FileDocument> approuveAnnotation(
-        @PathVariable String fileId
+    public ResponseEntity<StreamingResponseBody> approuveAnnotation(
+        @PathVariable String fileId,
+        @RequestHeader(value = "If-Match", required = false) String ifMatch,
+        @RequestParam(value = "fields", required = false) String fields,
+        @RequestParam(value = "include", required = false) String include,
+        @RequestHeader HttpHeaders headers
     ) {
-        return ResponseEntity.ok(
-          fileService.approuveAnnotation(fileId)
-        );
+        Optional<FileDocumentView> view = view(fields, null, include);
+        if (view.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        return fileService.approuveAnnotation(fileId, expectedVersion(ifMatch))
+          .map(doc -> document(doc, view.get(), headers))
+          .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Conflit de version détecté lors d’un PATCH conditionnel.
+     *
+     * @return 409 Conflict
+     */
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<Void> onVersionConflict() {
+        return ResponseEntity.status(HttpStatus.CONFLICT).build();
+    }
+
+    /**
+     * Soumission refusée faute de capacité (file d'analyse ou limiteur
+     * Document Intelligence saturé).
+     *
+     * @return 503 Service Unavailable
+     */
+    @ExceptionHandler(TaskRejectedException.class)
+    public ResponseEntity<Void> onRejected() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+    }
+
+    /**
+     * Réponse 200 OK portant la vue demandée du document, écrite en flux
+     * dans le format négocié (JSON ou protobuf), et son ETag.
+     */
+    private ResponseEntity<StreamingResponseBody> document(FileDocument doc, FileDocumentView view,
+                                                           HttpHeaders headers) {
+        return document(doc, view, contentType(headers),
+            documentWriter.gzip(headers.getFirst(HttpHeaders.ACCEPT_ENCODING)));
+    }
+
+    private ResponseEntity<StreamingResponseBody> document(FileDocument doc, FileDocumentView view,
+                                                           MediaType contentType, boolean gzip) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+            .eTag(eTag(doc, contentType, gzip))
+            .contentType(contentType)
+            .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(out -> documentWriter.write(doc, view, contentType, out, gzip));
+    }
+
+    private MediaType contentType(HttpHeaders headers) {
+        return documentWriter.contentType(String.join(",", headers.getOrEmpty(HttpHeaders.ACCEPT)));
+    }
+
+    /**
+     * ETag fort d’une représentation du document : sa version, suffixée de
+     * « -pb » en protobuf et de « -gz » si le corps est compressé.
+     */
+    private static String eTag(FileDocument doc, MediaType contentType, boolean gzip) {
+        return "\"" + (doc.getVersion() != null ? doc.getVersion() : 0L)
+            + (MediaType.APPLICATION_JSON.isCompatibleWith(contentType) ? "" : "-pb")
+            + (gzip ? "-gz" : "") + "\"";
+    }
+
+    /**
+     * Valide les paramètres de représentation creuse d’un FileDocument.
+     *
+     * @return vide si pages ou include sont mal formés
+     */
+    private static Optional<FileDocumentView> view(String fields, String pages, String include) {
+        try {
+            return Optional.of(FileDocumentView.of(fields, pages, include));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Extrait la version attendue d’un en-tête If-Match (« "3" », ou l’ETag
+     * d’une autre représentation : « "3-pb" », « "3-gz" », « "3-pb-gz" »).
+     *
+     * If-Match impose une comparaison forte : un ETag faible (« W/"3" ») ne
+     * correspond jamais à la ressource.
+     *
+     * @return null si l’en-tête est absent ou vaut « * »
+     * @throws ResponseStatusException 412 Precondition Failed pour un ETag faible,
+     *         400 Bad Request pour un ETag mal formé
+     */
+    private static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || "*".equals(ifMatch.trim())) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "Weak ETag in If-Match");
+        }
+        Matcher matcher = IF_MATCH_TAG.matcher(tag);
+        if (!matcher.matches()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Malformed If-Match " + ifMatch);
+        }
+        try {
+            return Long.parseLong(matcher.group(1));
+        } catch (NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Malformed If-Match " + ifMatch);
+        }
+    }
+
+    /**
+     * Construit les paramètres d’analyse d’un upload.
+     *
+     * @return Optional vide si les paramètres sont invalides (modèle manquant, pages mal formées)
+     */
+    private static Optional<AnalysisRequest> analysisRequest(AnalysisProfile profile, String modelId, String pages) {
+        try {
+            return Optional.of(AnalysisRequest.of(profile, modelId, pages));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
     }
 }
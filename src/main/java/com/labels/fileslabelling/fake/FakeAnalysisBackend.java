@@ -0,0 +1,135 @@
+package com.labels.fileslabelling.fake;
+
+import com.azure.ai.documentintelligence.models.AnalyzeDocumentOptions;
+import com.azure.ai.documentintelligence.models.AnalyzeOperationDetails;
+import com.azure.ai.documentintelligence.models.AnalyzeResult;
+import com.azure.core.exception.HttpResponseException;
+import com.azure.core.http.HttpHeaderName;
+import com.azure.core.http.HttpHeaders;
+import com.azure.core.util.polling.LongRunningOperationStatus;
+import com.azure.core.util.polling.PollResponse;
+import com.azure.core.util.polling.SyncPoller;
+import com.azure.json.JsonProviders;
+import com.azure.json.JsonReader;
+import com.labels.fileslabelling.services.AnalysisBackend;
+import com.labels.fileslabelling.services.AnalysisRateLimiter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Analyse simulée, sans réseau, pour les tests de charge locaux
+ * (app.analysis.backend=fake).
+ *
+ * Chaque analyse dure une latence tirée d'une loi log-normale (médiane
+ * latency.median-ms, dispersion latency.sigma) augmentée de
+ * latency.per-page-ms par page ; le nombre de pages est tiré entre pages.min
+ * et pages.max, ou vaut le nombre de pages demandées. Le résultat est un
+ * AnalyzeResult synthétique ({@link SyntheticAnalyzeResults}) de
+ * words-per-page mots et tables tables. Une fraction throttle-rate des
+ * soumissions reçoit un 429 avec Retry-After, signalé au limiteur comme le
+ * ferait le client Azure.
+ */
+@Component
+@ConditionalOnProperty(name = "app.analysis.backend", havingValue = "fake")
+public class FakeAnalysisBackend implements AnalysisBackend {
+
+    private final AnalysisRateLimiter rateLimiter;
+
+    @Value("${app.fake.analysis.latency.median-ms:1500}")
+    private long medianLatencyMs;
+
+    @Value("${app.fake.analysis.latency.sigma:0.5}")
+    private double latencySigma;
+
+    @Value("${app.fake.analysis.latency.per-page-ms:200}")
+    private long perPageLatencyMs;
+
+    @Value("${app.fake.analysis.pages.min:1}")
+    private int minPages;
+
+    @Value("${app.fake.analysis.pages.max:10}")
+    private int maxPages;
+
+    @Value("${app.fake.analysis.words-per-page:300}")
+    private int wordsPerPage;
+
+    @Value("${app.fake.analysis.tables:2}")
+    private int tables;
+
+    @Value("${app.fake.analysis.throttle-rate:0.0}")
+    private double throttleRate;
+
+    @Value("${app.fake.analysis.throttle.retry-after-seconds:1}")
+    private long throttleRetryAfterSeconds;
+
+    public FakeAnalysisBackend(AnalysisRateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    @Override
+    public SyncPoller<AnalyzeOperationDetails, AnalyzeResult> beginAnalyze(String modelId,
+                                                                           AnalyzeDocumentOptions options) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (random.nextDouble() < throttleRate) {
+            Duration retryAfter = Duration.ofSeconds(throttleRetryAfterSeconds);
+            rateLimiter.onThrottled(retryAfter);
+            HttpHeaders headers = new HttpHeaders()
+                    .set(HttpHeaderName.RETRY_AFTER, Long.toString(retryAfter.toSeconds()));
+            throw new HttpResponseException("Too Many Requests (simulated)",
+                    new InMemoryHttpResponse(null, 429, headers, null));
+        }
+
+        int pages = options.getPages() != null
+                ? countPages(options.getPages())
+                : random.nextInt(minPages, Math.max(minPages, maxPages) + 1);
+        long latencyMs = (long) (medianLatencyMs * Math.exp(latencySigma * random.nextGaussian()))
+                + perPageLatencyMs * pages;
+        OffsetDateTime createdOn = OffsetDateTime.now(ZoneOffset.UTC);
+        OffsetDateTime completedOn = createdOn.plusNanos(latencyMs * 1_000_000);
+        long seed = random.nextLong();
+
+        return SyncPoller.createPoller(Duration.ofSeconds(1),
+                context -> new PollResponse<>(LongRunningOperationStatus.NOT_STARTED,
+                        details("notStarted", createdOn, createdOn)),
+                context -> OffsetDateTime.now(ZoneOffset.UTC).isBefore(completedOn)
+                        ? new PollResponse<>(LongRunningOperationStatus.IN_PROGRESS,
+                                details("running", createdOn, OffsetDateTime.now(ZoneOffset.UTC)))
+                        : new PollResponse<>(LongRunningOperationStatus.SUCCESSFULLY_COMPLETED,
+                                details("succeeded", createdOn, completedOn)),
+                (context, response) -> response.getValue(),
+                context -> SyntheticAnalyzeResults.analyzeResult(pages, wordsPerPage, tables, seed));
+    }
+
+    /**
+     * Nombre de pages d'une liste de plages (« 1-3 », « 5 »).
+     */
+    static int countPages(Iterable<String> ranges) {
+        int count = 0;
+        for (String range : ranges) {
+            int dash = range.indexOf('-');
+            count += dash < 0 ? 1
+                    : Integer.parseInt(range.substring(dash + 1).trim())
+                    - Integer.parseInt(range.substring(0, dash).trim()) + 1;
+        }
+        return Math.max(count, 1);
+    }
+
+    private static AnalyzeOperationDetails details(String status, OffsetDateTime createdOn,
+                                                   OffsetDateTime lastUpdatedOn) {
+        String json = "{\"status\":\"" + status + "\",\"createdDateTime\":\"" + createdOn
+                + "\",\"lastUpdatedDateTime\":\"" + lastUpdatedOn + "\"}";
+        try (JsonReader reader = JsonProviders.createReader(json)) {
+            return AnalyzeOperationDetails.fromJson(reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.labels.fileslabelling.fake;
+
+import com.azure.core.http.HttpClient;
+import com.azure.core.http.HttpHeaderName;
+import com.azure.core.http.HttpHeaders;
+import com.azure.core.http.HttpMethod;
+import com.azure.core.http.HttpRequest;
+import com.azure.core.http.HttpResponse;
+import com.azure.core.util.BinaryData;
+import com.azure.core.util.Context;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Client HTTP simulant l'API REST Blob Storage en mémoire, pour construire un
+ * BlobContainerClient sans réseau (app.storage.backend=memory).
+ *
+ * Couvre les opérations utilisées par l'application : upload en une requête
+ * (Put Blob) ou par blocs (Put Block puis Put Block List), lecture des
+ * propriétés (exists), téléchargement et suppression. Les autres requêtes
+ * (création de conteneur, etc.) reçoivent une réponse de succès vide.
+ *
+ * La mémoire est bornée : au-delà de maxBytes octets stockés, les blobs les
+ * plus anciens sont oubliés. Pour un test de charge, keepContent=false ne
+ * conserve que la taille de chaque blob ; son téléchargement renvoie alors
+ * des zéros.
+ */
+public class InMemoryBlobHttpClient implements HttpClient {
+
+    private static final Pattern BLOCK_ID = Pattern.compile("<(?:Latest|Uncommitted|Committed)>([^<]+)</");
+    private static final HttpHeaderName ERROR_CODE = HttpHeaderName.fromString("x-ms-error-code");
+    private static final HttpHeaderName BLOB_TYPE = HttpHeaderName.fromString("x-ms-blob-type");
+    private static final HttpHeaderName REQUEST_ID = HttpHeaderName.fromString("x-ms-request-id");
+    private static final HttpHeaderName SERVER_ENCRYPTED = HttpHeaderName.fromString("x-ms-request-server-encrypted");
+
+    private final long maxBytes;
+    private final boolean keepContent;
+
+    // Blobs par ordre d'écriture (contenu, ou tableau vide si keepContent=false), protégés par this
+    private final Map<String, byte[]> blobs = new LinkedHashMap<>();
+    private final Map<String, Long> lengths = new HashMap<>();
+    private long storedBytes;
+
+    private final Map<String, Map<String, byte[]>> stagedBlocks = new ConcurrentHashMap<>();
+    private final AtomicLong etags = new AtomicLong();
+
+    /**
+     * @param maxBytes    taille totale au-delà de laquelle les blobs les plus anciens sont oubliés
+     * @param keepContent false pour ne conserver que la taille des blobs
+     */
+    public InMemoryBlobHttpClient(long maxBytes, boolean keepContent) {
+        this.maxBytes = maxBytes;
+        this.keepContent = keepContent;
+    }
+
+    @Override
+    public Mono<HttpResponse> send(HttpRequest request) {
+        return Mono.fromCallable(() -> handle(request));
+    }
+
+    @Override
+    public HttpResponse sendSync(HttpRequest request, Context context) {
+        return handle(request);
+    }
+
+    /** Nombre de blobs stockés. */
+    public synchronized int size() {
+        return blobs.size();
+    }
+
+    private HttpResponse handle(HttpRequest request) {
+        String path = request.getUrl().getPath();
+        String query = request.getUrl().getQuery() != null ? request.getUrl().getQuery() : "";
+        HttpMethod method = request.getHttpMethod();
+        if ("container".equals(parameter(query, "restype"))) {
+            return response(request, method == HttpMethod.PUT ? 201 : 200, null);
+        }
+        String comp = parameter(query, "comp");
+        if (method == HttpMethod.PUT && "block".equals(comp)) {
+            String blockId = parameter(query, "blockid");
+            stagedBlocks.computeIfAbsent(path, p -> new ConcurrentHashMap<>()).put(blockId, body(request));
+            return response(request, 201, null);
+        }
+        if (method == HttpMethod.PUT && "blocklist".equals(comp)) {
+            Map<String, byte[]> staged = stagedBlocks.remove(path);
+            ByteArrayOutputStream content = new ByteArrayOutputStream();
+            Matcher ids = BLOCK_ID.matcher(new String(body(request)));
+            while (ids.find()) {
+                byte[] block = staged != null ? staged.get(ids.group(1)) : null;
+                if (block == null) {
+                    return error(request, 400, "InvalidBlockList");
+                }
+                content.writeBytes(block);
+            }
+            put(path, content.toByteArray());
+            return response(request, 201, null);
+        }
+        if (method == HttpMethod.PUT) {
+            put(path, body(request));
+            return response(request, 201, null);
+        }
+        if (method == HttpMethod.HEAD || method == HttpMethod.GET) {
+            byte[] blob;
+            long length;
+            synchronized (this) {
+                blob = blobs.get(path);
+                length = blob != null ? lengths.get(path) : 0;
+            }
+            if (blob == null) {
+                return error(request, 404, "BlobNotFound");
+            }
+            byte[] body = method != HttpMethod.GET ? null : keepContent ? blob : new byte[(int) length];
+            HttpResponse response = response(request, 200, body);
+            response.getHeaders()
+                    .set(HttpHeaderName.CONTENT_LENGTH, Long.toString(length))
+                    .set(BLOB_TYPE, "BlockBlob");
+            return response;
+        }
+        if (method == HttpMethod.DELETE) {
+            return remove(path) ? response(request, 202, null) : error(request, 404, "BlobNotFound");
+        }
+        return error(request, 400, "UnsupportedOperation");
+    }
+
+    /**
+     * Enregistre un blob puis oublie les plus anciens tant que maxBytes est dépassé.
+     */
+    private synchronized void put(String path, byte[] content) {
+        remove(path);
+        blobs.put(path, keepContent ? content : new byte[0]);
+        lengths.put(path, (long) content.length);
+        storedBytes += content.length;
+        Iterator<String> oldest = blobs.keySet().iterator();
+        while (storedBytes > maxBytes && oldest.hasNext()) {
+            String evicted = oldest.next();
+            oldest.remove();
+            storedBytes -= lengths.remove(evicted);
+        }
+    }
+
+    private synchronized boolean remove(String path) {
+        if (blobs.remove(path) == null) {
+            return false;
+        }
+        storedBytes -= lengths.remove(path);
+        return true;
+    }
+
+    private static byte[] body(HttpRequest request) {
+        BinaryData body = request.getBodyAsBinaryData();
+        return body != null ? body.toBytes() : new byte[0];
+    }
+
+    private static String parameter(String query, String name) {
+        for (String pair : query.split("&")) {
+            if (pair.startsWith(name + "=")) {
+                return URLDecoder.decode(pair.substring(name.length() + 1), StandardCharsets.UTF_8);
+            }
+        }
+        return "";
+    }
+
+    private HttpResponse response(HttpRequest request, int status, byte[] body) {
+        HttpHeaders headers = new HttpHeaders()
+                .set(HttpHeaderName.ETAG, "\"0x" + Long.toHexString(etags.incrementAndGet()) + "\"")
+                .set(HttpHeaderName.LAST_MODIFIED,
+                        DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC)))
+                .set(REQUEST_ID, UUID.randomUUID().toString())
+                .set(SERVER_ENCRYPTED, "true");
+        return new InMemoryHttpResponse(request, status, headers, body);
+    }
+
+    private static HttpResponse error(HttpRequest request, int status, String code) {
+        HttpHeaders headers = new HttpHeaders()
+                .set(ERROR_CODE, code)
+                .set(REQUEST_ID, UUID.randomUUID().toString());
+        return new InMemoryHttpResponse(request, status, headers, null);
+    }
+}
@@ -0,0 +1,70 @@
+package com.labels.fileslabelling.fake;
+
+import com.azure.core.http.HttpHeaders;
+import com.azure.core.http.HttpRequest;
+import com.azure.core.http.HttpResponse;
+import com.azure.core.util.BinaryData;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Réponse HTTP construite en mémoire (statut, en-têtes, corps).
+ */
+class InMemoryHttpResponse extends HttpResponse {
+
+    private final int statusCode;
+    private final HttpHeaders headers;
+    private final byte[] body;
+
+    InMemoryHttpResponse(HttpRequest request, int statusCode, HttpHeaders headers, byte[] body) {
+        super(request);
+        this.statusCode = statusCode;
+        this.headers = headers;
+        this.body = body != null ? body : new byte[0];
+    }
+
+    @Override
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    @Override
+    @Deprecated
+    public String getHeaderValue(String name) {
+        return headers.getValue(name);
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        return headers;
+    }
+
+    @Override
+    public Flux<ByteBuffer> getBody() {
+        return Flux.just(ByteBuffer.wrap(body));
+    }
+
+    @Override
+    public BinaryData getBodyAsBinaryData() {
+        return BinaryData.fromBytes(body);
+    }
+
+    @Override
+    public Mono<byte[]> getBodyAsByteArray() {
+        return Mono.just(body);
+    }
+
+    @Override
+    public Mono<String> getBodyAsString() {
+        return getBodyAsString(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public Mono<String> getBodyAsString(Charset charset) {
+        return Mono.just(new String(body, charset));
+    }
+}
@@ -0,0 +1,41 @@
+package com.labels.fileslabelling.fake;
+
+import com.azure.storage.blob.BlobContainerClient;
+import com.azure.storage.blob.BlobContainerClientBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Stockage Blob simulé en mémoire (app.storage.backend=memory), à la place
+ * d'AzureStorageConfig : le BlobContainerClient est le client du SDK, branché
+ * sur {@link InMemoryBlobHttpClient} au lieu du réseau.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.storage.backend", havingValue = "memory")
+public class InMemoryStorageConfig {
+
+    @Value("${azure.storage.container-name:files}")
+    private String containerName;
+
+    /**
+     * Taille totale des blobs gardés en mémoire ; au-delà, les plus anciens sont oubliés.
+     */
+    @Value("${app.fake.storage.max-bytes:268435456}")
+    private long maxBytes;
+
+    /**
+     * false pour ne garder que la taille des blobs (tests de charge).
+     */
+    @Value("${app.fake.storage.keep-content:true}")
+    private boolean keepContent;
+
+    @Bean
+    public BlobContainerClient blobContainerClient() {
+        return new BlobContainerClientBuilder()
+                .endpoint("http://127.0.0.1:10000/devstoreaccount1/" + containerName)
+                .httpClient(new InMemoryBlobHttpClient(maxBytes, keepContent))
+                .buildClient();
+    }
+}
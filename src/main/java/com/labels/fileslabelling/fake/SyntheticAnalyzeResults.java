@@ -0,0 +1,155 @@
+package com.labels.fileslabelling.fake;
+
+import com.azure.ai.documentintelligence.models.AnalyzeResult;
+import com.azure.json.JsonProviders;
+import com.azure.json.JsonReader;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Générateur de résultats d'analyse synthétiques, au format renvoyé par
+ * Document Intelligence (prebuilt-layout avec paires clé-valeur).
+ *
+ * Les modèles du SDK n'exposant pas de constructeur public, l'AnalyzeResult est
+ * construit à partir d'un JSON au format du service (AnalyzeResult.fromJson).
+ * La taille est pilotée par le triplet pages × mots par page × tables ; chaque
+ * table compte 10 lignes × 5 colonnes et une paire clé-valeur est générée par
+ * tranche de 20 mots. Les mots et les clés sont tirés d'un vocabulaire de
+ * factures ; à graine égale, le résultat est identique.
+ */
+public final class SyntheticAnalyzeResults {
+
+    private static final int TABLE_ROWS = 10;
+    private static final int TABLE_COLUMNS = 5;
+    private static final int WORDS_PER_KEY_VALUE_PAIR = 20;
+
+    private static final String[] WORDS = {
+            "facture", "invoice", "total", "montant", "amount", "date", "client", "adresse",
+            "TVA", "numéro", "référence", "quantité", "prix", "unitaire", "échéance", "payé",
+            "remise", "livraison", "commande", "désignation", "HT", "TTC", "Paris", "Lyon"
+    };
+
+    private static final String[] KEYS = {
+            "Numéro de facture", "Date", "Date d'échéance", "Client", "Adresse", "Total HT",
+            "TVA", "Total TTC", "Référence commande", "Mode de paiement"
+    };
+
+    private SyntheticAnalyzeResults() {
+    }
+
+    /**
+     * Construit un AnalyzeResult synthétique.
+     *
+     * @param pages        nombre de pages
+     * @param wordsPerPage nombre de mots par page
+     * @param tables       nombre de tables (réparties sur les pages)
+     * @param seed         graine du générateur pseudo-aléatoire
+     */
+    public static AnalyzeResult analyzeResult(int pages, int wordsPerPage, int tables, long seed) {
+        String json = json(pages, wordsPerPage, tables, seed);
+        try (JsonReader reader = JsonProviders.createReader(json)) {
+            return AnalyzeResult.fromJson(reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * JSON « analyzeResult » correspondant à {@link #analyzeResult}.
+     */
+    public static String json(int pages, int wordsPerPage, int tables, long seed) {
+        Random random = new Random(seed);
+        StringBuilder json = new StringBuilder(pages * wordsPerPage * 160 + 1024);
+        int offset = 0;
+
+        json.append("{\"apiVersion\":\"2024-11-30\",\"modelId\":\"prebuilt-layout\",")
+                .append("\"stringIndexType\":\"utf16CodeUnit\",\"content\":\"\",\"pages\":[");
+        for (int p = 1; p <= pages; p++) {
+            if (p > 1) {
+                json.append(',');
+            }
+            json.append("{\"pageNumber\":").append(p)
+                    .append(",\"angle\":0,\"width\":8.5,\"height\":11,\"unit\":\"inch\",")
+                    .append("\"spans\":[{\"offset\":").append(offset)
+                    .append(",\"length\":").append(wordsPerPage * 8).append("}],\"words\":[");
+            for (int w = 0; w < wordsPerPage; w++) {
+                if (w > 0) {
+                    json.append(',');
+                }
+                String word = random.nextInt(4) == 0
+                        ? Integer.toString(random.nextInt(10_000))
+                        : WORDS[random.nextInt(WORDS.length)];
+                json.append("{\"content\":\"").append(word).append("\",\"polygon\":");
+                polygon(json, random);
+                json.append(",\"span\":{\"offset\":").append(offset).append(",\"length\":")
+                        .append(word.length()).append("},\"confidence\":")
+                        .append(String.format(Locale.ROOT, "%.3f", 0.8 + random.nextDouble() * 0.2))
+                        .append('}');
+                offset += word.length() + 1;
+            }
+            json.append("]}");
+        }
+        json.append("],\"keyValuePairs\":[");
+        int pairs = pages * wordsPerPage / WORDS_PER_KEY_VALUE_PAIR;
+        for (int i = 0; i < pairs; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            int page = 1 + i % Math.max(pages, 1);
+            json.append("{\"key\":");
+            element(json, random, KEYS[i % KEYS.length], page, i * 16);
+            json.append(",\"value\":");
+            element(json, random, Integer.toString(random.nextInt(100_000)), page, i * 16 + 8);
+            json.append(",\"confidence\":")
+                    .append(String.format(Locale.ROOT, "%.3f", 0.5 + random.nextDouble() * 0.5))
+                    .append('}');
+        }
+        json.append("],\"tables\":[");
+        for (int t = 0; t < tables; t++) {
+            if (t > 0) {
+                json.append(',');
+            }
+            int page = 1 + t % Math.max(pages, 1);
+            json.append("{\"rowCount\":").append(TABLE_ROWS)
+                    .append(",\"columnCount\":").append(TABLE_COLUMNS).append(",\"cells\":[");
+            for (int r = 0; r < TABLE_ROWS; r++) {
+                for (int c = 0; c < TABLE_COLUMNS; c++) {
+                    if (r > 0 || c > 0) {
+                        json.append(',');
+                    }
+                    json.append("{\"kind\":\"").append(r == 0 ? "columnHeader" : "content")
+                            .append("\",\"rowIndex\":").append(r)
+                            .append(",\"columnIndex\":").append(c)
+                            .append(",\"content\":\"cell ").append(r).append('-').append(c)
+                            .append("\",\"boundingRegions\":[{\"pageNumber\":").append(page)
+                            .append(",\"polygon\":");
+                    polygon(json, random);
+                    json.append("}],\"spans\":[{\"offset\":0,\"length\":5}],")
+                            .append("\"elements\":[\"/paragraphs/").append(r * TABLE_COLUMNS + c).append("\"]}");
+                }
+            }
+            json.append("]}");
+        }
+        json.append("]}");
+        return json.toString();
+    }
+
+    private static void element(StringBuilder json, Random random, String content, int page, int offset) {
+        json.append("{\"content\":\"").append(content)
+                .append("\",\"boundingRegions\":[{\"pageNumber\":").append(page).append(",\"polygon\":");
+        polygon(json, random);
+        json.append("}],\"spans\":[{\"offset\":").append(offset).append(",\"length\":7}]}");
+    }
+
+    private static void polygon(StringBuilder json, Random random) {
+        double x = random.nextDouble() * 8;
+        double y = random.nextDouble() * 10.5;
+        double w = 0.2 + random.nextDouble() * 0.5;
+        double h = 0.15;
+        json.append(String.format(Locale.ROOT, "[%.4f,%.4f,%.4f,%.4f,%.4f,%.4f,%.4f,%.4f]",
+                x, y, x + w, y, x + w, y + h, x, y + h));
+    }
+}
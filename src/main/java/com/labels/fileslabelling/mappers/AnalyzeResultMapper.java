@@ -0,0 +1,226 @@
+package com.labels.fileslabelling.mappers;
+
+import com.azure.ai.documentintelligence.models.AnalyzeResult;
+import com.azure.ai.documentintelligence.models.DocumentKeyValueElement;
+import com.azure.ai.documentintelligence.models.DocumentSpan;
+import com.labels.fileslabelling.models.BoundingRegion;
+import com.labels.fileslabelling.models.DocumentKey;
+import com.labels.fileslabelling.models.DocumentPage;
+import com.labels.fileslabelling.models.DocumentTable;
+import com.labels.fileslabelling.models.DocumentTableCell;
+import com.labels.fileslabelling.models.DocumentValue;
+import com.labels.fileslabelling.models.DocumentWord;
+import com.labels.fileslabelling.models.KeyValuePair;
+import com.labels.fileslabelling.models.Span;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Transforme le résultat SDK Document Intelligence ({@link AnalyzeResult})
+ * en modèles métier (pages, mots, paires clé-valeur, tables).
+ *
+ * Le mapping est écrit en boucles simples sur des listes pré-dimensionnées :
+ * ni Optional, ni Stream, ni redimensionnement de liste par élément. Les
+ * conversions de régions et de spans, communes aux clés, valeurs et cellules,
+ * sont partagées. Au-delà de app.mapping.parallel-page-threshold pages, les
+ * pages sont converties en parallèle (ForkJoinPool commun), l'ordre étant
+ * conservé.
+ */
+@Component
+public class AnalyzeResultMapper {
+
+    /**
+     * Nombre de pages à partir duquel les pages sont converties en parallèle.
+     */
+    private final int parallelPageThreshold;
+
+    public AnalyzeResultMapper(@Value("${app.mapping.parallel-page-threshold:200}") int parallelPageThreshold) {
+        this.parallelPageThreshold = parallelPageThreshold;
+    }
+
+    /**
+     * Convertit les pages et leurs mots.
+     *
+     * @param result résultat d'analyse
+     * @return pages dans l'ordre du résultat (liste vide si aucune)
+     */
+    public List<DocumentPage> mapPages(AnalyzeResult result) {
+        List<com.azure.ai.documentintelligence.models.DocumentPage> source = result.getPages();
+        if (source == null || source.isEmpty()) {
+            return new ArrayList<>();
+        }
+        DocumentPage[] pages = new DocumentPage[source.size()];
+        if (pages.length >= parallelPageThreshold) {
+            IntStream.range(0, pages.length).parallel().forEach(i -> pages[i] = toPage(source.get(i)));
+        } else {
+            for (int i = 0; i < pages.length; i++) {
+                pages[i] = toPage(source.get(i));
+            }
+        }
+        return new ArrayList<>(Arrays.asList(pages));
+    }
+
+    /**
+     * Convertit les paires clé-valeur.
+     *
+     * @param result résultat d'analyse
+     * @return paires dans l'ordre du résultat (liste vide si aucune)
+     */
+    public List<KeyValuePair> mapKeyValuePairs(AnalyzeResult result) {
+        List<com.azure.ai.documentintelligence.models.DocumentKeyValuePair> source = result.getKeyValuePairs();
+        if (source == null) {
+            return new ArrayList<>();
+        }
+        List<KeyValuePair> pairs = new ArrayList<>(source.size());
+        for (com.azure.ai.documentintelligence.models.DocumentKeyValuePair kv : source) {
+            KeyValuePair pair = new KeyValuePair();
+            pair.setConfidence(kv.getConfidence());
+
+            DocumentKeyValueElement k = kv.getKey();
+            DocumentKey key = new DocumentKey();
+            if (k != null) {
+                key.setContent(k.getContent());
+                key.setBoundingRegions(toRegions(k.getBoundingRegions()));
+                key.setSpans(toSpans(k.getSpans()));
+            }
+            pair.setKey(key);
+
+            // Value (optionnelle)
+            DocumentKeyValueElement v = kv.getValue();
+            if (v != null) {
+                DocumentValue value = new DocumentValue();
+                value.setContent(v.getContent());
+                value.setBoundingRegions(toRegions(v.getBoundingRegions()));
+                value.setSpans(toSpans(v.getSpans()));
+                pair.setValue(value);
+            }
+            pairs.add(pair);
+        }
+        return pairs;
+    }
+
+    /**
+     * Convertit les tables et leurs cellules.
+     *
+     * @param result résultat d'analyse
+     * @return tables dans l'ordre du résultat (liste vide si aucune)
+     */
+    public List<DocumentTable> mapTables(AnalyzeResult result) {
+        List<com.azure.ai.documentintelligence.models.DocumentTable> source = result.getTables();
+        if (source == null) {
+            return new ArrayList<>();
+        }
+        List<DocumentTable> tables = new ArrayList<>(source.size());
+        for (com.azure.ai.documentintelligence.models.DocumentTable t : source) {
+            DocumentTable table = new DocumentTable();
+            table.setRowCount(t.getRowCount());
+            table.setColumnCount(t.getColumnCount());
+
+            List<com.azure.ai.documentintelligence.models.DocumentTableCell> sourceCells = t.getCells();
+            List<DocumentTableCell> cells = new ArrayList<>(sourceCells != null ? sourceCells.size() : 0);
+            if (sourceCells != null) {
+                for (com.azure.ai.documentintelligence.models.DocumentTableCell c : sourceCells) {
+                    DocumentTableCell cell = new DocumentTableCell();
+                    cell.setKind(c.getKind() != null ? c.getKind().toString() : "");
+                    cell.setRowIndex(c.getRowIndex());
+                    cell.setColumnIndex(c.getColumnIndex());
+                    cell.setContent(c.getContent());
+                    cell.setBoundingRegions(toRegions(c.getBoundingRegions()));
+                    cell.setSpans(toSpans(c.getSpans()));
+                    cell.setElements(c.getElements() != null ? c.getElements() : Collections.emptyList());
+                    cells.add(cell);
+                }
+            }
+            table.setCells(cells);
+            tables.add(table);
+        }
+        return tables;
+    }
+
+    private static DocumentPage toPage(com.azure.ai.documentintelligence.models.DocumentPage p) {
+        DocumentPage page = new DocumentPage();
+        page.setPageNumber(p.getPageNumber());
+        page.setAngle(p.getAngle() != null ? p.getAngle() : 0d);
+        page.setWidth(p.getWidth() != null ? p.getWidth() : 0d);
+        page.setHeight(p.getHeight() != null ? p.getHeight() : 0d);
+        page.setUnit(p.getUnit() != null ? p.getUnit().toString() : null);
+
+        List<com.azure.ai.documentintelligence.models.DocumentWord> source = p.getWords();
+        List<DocumentWord> words = new ArrayList<>(source != null ? source.size() : 0);
+        if (source != null) {
+            for (com.azure.ai.documentintelligence.models.DocumentWord w : source) {
+                DocumentWord word = new DocumentWord();
+                word.setContent(w.getContent());
+                word.setConfidence(w.getConfidence());
+                word.setPolygon(toPolygon(w.getPolygon()));
+                if (w.getSpan() != null) {
+                    word.setSpan(toSpan(w.getSpan()));
+                }
+                words.add(word);
+            }
+        }
+        page.setWords(words);
+        return page;
+    }
+
+    /**
+     * Convertit des régions SDK ; partagé par clés, valeurs et cellules.
+     */
+    static List<BoundingRegion> toRegions(List<com.azure.ai.documentintelligence.models.BoundingRegion> source) {
+        if (source == null) {
+            return new ArrayList<>(0);
+        }
+        List<BoundingRegion> regions = new ArrayList<>(source.size());
+        for (com.azure.ai.documentintelligence.models.BoundingRegion r : source) {
+            BoundingRegion region = new BoundingRegion();
+            region.setPageNumber(r.getPageNumber());
+            region.setPolygon(toPolygon(r.getPolygon()));
+            regions.add(region);
+        }
+        return regions;
+    }
+
+    /**
+     * Convertit des spans SDK ; partagé par clés, valeurs et cellules.
+     */
+    static List<Span> toSpans(List<DocumentSpan> source) {
+        if (source == null) {
+            return new ArrayList<>(0);
+        }
+        List<Span> spans = new ArrayList<>(source.size());
+        for (DocumentSpan s : source) {
+            spans.add(toSpan(s));
+        }
+        return spans;
+    }
+
+    private static Span toSpan(DocumentSpan s) {
+        Span span = new Span();
+        span.setOffset(s.getOffset());
+        span.setLength(s.getLength());
+        return span;
+    }
+
+    /**
+     * Convertit un polygone du SDK (List<Double>) en tableau primitif.
+     *
+     * @param coordinates coordonnées [x1, y1, ..., xn, yn], éventuellement null
+     * @return tableau de même longueur (vide si coordinates est null)
+     */
+    static float[] toPolygon(List<Double> coordinates) {
+        if (coordinates == null) {
+            return new float[0];
+        }
+        float[] polygon = new float[coordinates.size()];
+        for (int i = 0; i < polygon.length; i++) {
+            polygon[i] = coordinates.get(i).floatValue();
+        }
+        return polygon;
+    }
+}
@@ -0,0 +1,693 @@
+package com.labels.fileslabelling.mappers;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.WireFormat;
+import com.labels.fileslabelling.models.BoundingRegion;
+import com.labels.fileslabelling.models.DocumentKey;
+import com.labels.fileslabelling.models.DocumentPage;
+import com.labels.fileslabelling.models.DocumentTable;
+import com.labels.fileslabelling.models.DocumentTableCell;
+import com.labels.fileslabelling.models.DocumentValue;
+import com.labels.fileslabelling.models.DocumentWord;
+import com.labels.fileslabelling.models.FileDocument;
+import com.labels.fileslabelling.models.KeyValuePair;
+import com.labels.fileslabelling.models.Span;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Encodage et décodage des modèles au format Protocol Buffers, selon le
+ * schéma publié (static/schemas/fileslabelling.proto).
+ *
+ * Le format est écrit directement avec CodedOutputStream / CodedInputStream,
+ * sans classes générées : les modèles existants sont encodés tels quels,
+ * sans copie intermédiaire. La taille d'un message imbriqué est calculée
+ * avant son écriture (préfixe de longueur), comme le fait le code généré.
+ * Les polygones sont des « repeated float » compactés (4 octets par
+ * coordonnée), ce qui évite l'essentiel du coût de lecture du JSON.
+ *
+ * Les valeurs par défaut de proto3 (chaîne vide, zéro, liste vide) ne sont
+ * pas écrites ; au décodage, une chaîne ou une liste absente vaut null.
+ * Les champs inconnus sont ignorés à la lecture.
+ */
+public final class DocumentProtobuf {
+
+    /** Type MIME des réponses et corps de requête au format Protocol Buffers. */
+    public static final String MEDIA_TYPE = "application/x-protobuf";
+
+    private static final int VARINT = WireFormat.WIRETYPE_VARINT;
+    private static final int I64 = WireFormat.WIRETYPE_FIXED64;
+    private static final int I32 = WireFormat.WIRETYPE_FIXED32;
+    private static final int LEN = WireFormat.WIRETYPE_LENGTH_DELIMITED;
+
+    /** Numéro du champ FileDocument.pages, écrit à part lors d'un envoi en flux. */
+    private static final int FILE_PAGES = 11;
+
+    /** Capacité initiale d'un polygone lu (valeurs float). */
+    private static final int PACKED_FLOATS_CHUNK = 64;
+
+    private DocumentProtobuf() {
+    }
+
+    // ---------------------------------------------------------------- écriture
+
+    /**
+     * Écrit un FileDocument complet (message FileDocument).
+     */
+    public static void write(CodedOutputStream out, FileDocument doc) throws IOException {
+        writeFileDocument(out, doc, property -> true);
+    }
+
+    /**
+     * Écrit les propriétés retenues d'un FileDocument (noms JSON : « status »,
+     * « keyValuePairs »...). Les pages ne sont écrites que si « pages » est
+     * retenu ; d'autres pages peuvent ensuite être ajoutées au même message
+     * avec {@link #writePageField}.
+     */
+    public static void writeFileDocument(CodedOutputStream out, FileDocument doc, Predicate<String> includes)
+            throws IOException {
+        if (includes.test("id")) {
+            writeString(out, 1, doc.getId());
+        }
+        if (includes.test("version") && doc.getVersion() != null) {
+            out.writeInt64(2, doc.getVersion());
+        }
+        if (includes.test("fileName")) {
+            writeString(out, 3, doc.getFileName());
+        }
+        if (includes.test("azureUrl")) {
+            writeString(out, 4, doc.getAzureUrl());
+        }
+        if (includes.test("contentHash")) {
+            writeString(out, 5, doc.getContentHash());
+        }
+        if (includes.test("sourceDocumentId")) {
+            writeString(out, 6, doc.getSourceDocumentId());
+        }
+        if (includes.test("analysisProfile")) {
+            writeString(out, 7, doc.getAnalysisProfile());
+        }
+        if (includes.test("uploadedAt") && doc.getUploadedAt() != null) {
+            out.writeInt64(8, doc.getUploadedAt().getTime());
+        }
+        if (includes.test("status")) {
+            writeString(out, 9, doc.getStatus());
+        }
+        if (includes.test("pageCount")) {
+            writeInt(out, 10, doc.getPageCount());
+        }
+        if (includes.test("pages") && doc.getPages() != null) {
+            for (DocumentPage page : doc.getPages()) {
+                writePageField(out, page);
+            }
+        }
+        if (includes.test("keyValuePairs") && doc.getKeyValuePairs() != null) {
+            for (KeyValuePair pair : doc.getKeyValuePairs()) {
+                out.writeTag(12, LEN);
+                out.writeUInt32NoTag(sizeOf(pair));
+                write(out, pair);
+            }
+        }
+        if (includes.test("tables") && doc.getTables() != null) {
+            for (DocumentTable table : doc.getTables()) {
+                out.writeTag(13, LEN);
+                out.writeUInt32NoTag(sizeOf(table));
+                write(out, table);
+            }
+        }
+    }
+
+    /**
+     * Écrit une page comme élément de FileDocument.pages.
+     */
+    public static void writePageField(CodedOutputStream out, DocumentPage page) throws IOException {
+        out.writeTag(FILE_PAGES, LEN);
+        out.writeUInt32NoTag(sizeOf(page));
+        write(out, page);
+    }
+
+    /**
+     * Écrit une page (message DocumentPage).
+     */
+    public static void write(CodedOutputStream out, DocumentPage page) throws IOException {
+        writeInt(out, 1, page.getPageNumber());
+        writeDouble(out, 2, page.getAngle());
+        writeDouble(out, 3, page.getWidth());
+        writeDouble(out, 4, page.getHeight());
+        writeString(out, 5, page.getUnit());
+        if (page.getWords() != null) {
+            for (DocumentWord word : page.getWords()) {
+                out.writeTag(6, LEN);
+                out.writeUInt32NoTag(sizeOf(word));
+                writeWord(out, word);
+            }
+        }
+    }
+
+    /**
+     * Écrit une table (message DocumentTable).
+     */
+    public static void write(CodedOutputStream out, DocumentTable table) throws IOException {
+        writeInt(out, 1, table.getRowCount());
+        writeInt(out, 2, table.getColumnCount());
+        if (table.getCells() != null) {
+            for (DocumentTableCell cell : table.getCells()) {
+                out.writeTag(3, LEN);
+                out.writeUInt32NoTag(sizeOf(cell));
+                write(out, cell);
+            }
+        }
+    }
+
+    /**
+     * Écrit une cellule (message DocumentTableCell).
+     */
+    public static void write(CodedOutputStream out, DocumentTableCell cell) throws IOException {
+        writeString(out, 1, cell.getKind());
+        writeInt(out, 2, cell.getRowIndex());
+        writeInt(out, 3, cell.getColumnIndex());
+        writeString(out, 4, cell.getContent());
+        writeRegions(out, 5, cell.getBoundingRegions());
+        writeSpans(out, 6, cell.getSpans());
+        if (cell.getElements() != null) {
+            for (String element : cell.getElements()) {
+                out.writeString(7, element != null ? element : "");
+            }
+        }
+    }
+
+    /**
+     * Écrit une paire clé–valeur (message KeyValuePair).
+     */
+    public static void write(CodedOutputStream out, KeyValuePair pair) throws IOException {
+        DocumentKey key = pair.getKey();
+        if (key != null) {
+            out.writeTag(1, LEN);
+            out.writeUInt32NoTag(textSize(key.getContent(), key.getBoundingRegions(), key.getSpans()));
+            writeText(out, key.getContent(), key.getBoundingRegions(), key.getSpans());
+        }
+        DocumentValue value = pair.getValue();
+        if (value != null) {
+            out.writeTag(2, LEN);
+            out.writeUInt32NoTag(textSize(value.getContent(), value.getBoundingRegions(), value.getSpans()));
+            writeText(out, value.getContent(), value.getBoundingRegions(), value.getSpans());
+        }
+        writeDouble(out, 3, pair.getConfidence());
+    }
+
+    /**
+     * Écrit une liste de paires (message KeyValuePairList).
+     */
+    public static void writeKeyValuePairs(CodedOutputStream out, List<KeyValuePair> pairs) throws IOException {
+        for (KeyValuePair pair : pairs) {
+            out.writeTag(1, LEN);
+            out.writeUInt32NoTag(sizeOf(pair));
+            write(out, pair);
+        }
+    }
+
+    /**
+     * Écrit une liste de tables (message DocumentTableList).
+     */
+    public static void writeTables(CodedOutputStream out, List<DocumentTable> tables) throws IOException {
+        for (DocumentTable table : tables) {
+            out.writeTag(1, LEN);
+            out.writeUInt32NoTag(sizeOf(table));
+            write(out, table);
+        }
+    }
+
+    private static void writeWord(CodedOutputStream out, DocumentWord word) throws IOException {
+        writeString(out, 1, word.getContent());
+        writeFloats(out, 2, word.getPolygon());
+        writeDouble(out, 3, word.getConfidence());
+        if (word.getSpan() != null) {
+            out.writeTag(4, LEN);
+            out.writeUInt32NoTag(sizeOf(word.getSpan()));
+            writeSpan(out, word.getSpan());
+        }
+    }
+
+    private static void writeText(CodedOutputStream out, String content, List<BoundingRegion> regions,
+                                  List<Span> spans) throws IOException {
+        writeString(out, 1, content);
+        writeRegions(out, 2, regions);
+        writeSpans(out, 3, spans);
+    }
+
+    private static void writeRegions(CodedOutputStream out, int field, List<BoundingRegion> regions)
+            throws IOException {
+        if (regions == null) {
+            return;
+        }
+        for (BoundingRegion region : regions) {
+            out.writeTag(field, LEN);
+            out.writeUInt32NoTag(sizeOf(region));
+            writeInt(out, 1, region.getPageNumber());
+            writeFloats(out, 2, region.getPolygon());
+        }
+    }
+
+    private static void writeSpans(CodedOutputStream out, int field, List<Span> spans) throws IOException {
+        if (spans == null) {
+            return;
+        }
+        for (Span span : spans) {
+            out.writeTag(field, LEN);
+            out.writeUInt32NoTag(sizeOf(span));
+            writeSpan(out, span);
+        }
+    }
+
+    private static void writeSpan(CodedOutputStream out, Span span) throws IOException {
+        writeInt(out, 1, span.getOffset());
+        writeInt(out, 2, span.getLength());
+    }
+
+    private static void writeString(CodedOutputStream out, int field, String value) throws IOException {
+        if (value != null && !value.isEmpty()) {
+            out.writeString(field, value);
+        }
+    }
+
+    private static void writeInt(CodedOutputStream out, int field, int value) throws IOException {
+        if (value != 0) {
+            out.writeInt32(field, value);
+        }
+    }
+
+    private static void writeDouble(CodedOutputStream out, int field, double value) throws IOException {
+        if (Double.doubleToRawLongBits(value) != 0) {
+            out.writeDouble(field, value);
+        }
+    }
+
+    private static void writeFloats(CodedOutputStream out, int field, float[] values) throws IOException {
+        if (values == null || values.length == 0) {
+            return;
+        }
+        out.writeTag(field, LEN);
+        out.writeUInt32NoTag(values.length * 4);
+        for (float value : values) {
+            out.writeFloatNoTag(value);
+        }
+    }
+
+    // ---------------------------------------------------------------- tailles
+
+    private static int sizeOf(DocumentPage page) {
+        int size = intSize(1, page.getPageNumber())
+                + doubleSize(2, page.getAngle())
+                + doubleSize(3, page.getWidth())
+                + doubleSize(4, page.getHeight())
+                + stringSize(5, page.getUnit());
+        if (page.getWords() != null) {
+            for (DocumentWord word : page.getWords()) {
+                size += messageSize(6, sizeOf(word));
+            }
+        }
+        return size;
+    }
+
+    private static int sizeOf(DocumentWord word) {
+        int size = stringSize(1, word.getContent())
+                + floatsSize(2, word.getPolygon())
+                + doubleSize(3, word.getConfidence());
+        if (word.getSpan() != null) {
+            size += messageSize(4, sizeOf(word.getSpan()));
+        }
+        return size;
+    }
+
+    private static int sizeOf(DocumentTable table) {
+        int size = intSize(1, table.getRowCount()) + intSize(2, table.getColumnCount());
+        if (table.getCells() != null) {
+            for (DocumentTableCell cell : table.getCells()) {
+                size += messageSize(3, sizeOf(cell));
+            }
+        }
+        return size;
+    }
+
+    private static int sizeOf(DocumentTableCell cell) {
+        int size = stringSize(1, cell.getKind())
+                + intSize(2, cell.getRowIndex())
+                + intSize(3, cell.getColumnIndex())
+                + stringSize(4, cell.getContent())
+                + regionsSize(5, cell.getBoundingRegions())
+                + spansSize(6, cell.getSpans());
+        if (cell.getElements() != null) {
+            for (String element : cell.getElements()) {
+                size += CodedOutputStream.computeStringSize(7, element != null ? element : "");
+            }
+        }
+        return size;
+    }
+
+    private static int sizeOf(KeyValuePair pair) {
+        int size = doubleSize(3, pair.getConfidence());
+        DocumentKey key = pair.getKey();
+        if (key != null) {
+            size += messageSize(1, textSize(key.getContent(), key.getBoundingRegions(), key.getSpans()));
+        }
+        DocumentValue value = pair.getValue();
+        if (value != null) {
+            size += messageSize(2, textSize(value.getContent(), value.getBoundingRegions(), value.getSpans()));
+        }
+        return size;
+    }
+
+    private static int textSize(String content, List<BoundingRegion> regions, List<Span> spans) {
+        return stringSize(1, content) + regionsSize(2, regions) + spansSize(3, spans);
+    }
+
+    private static int sizeOf(BoundingRegion region) {
+        return intSize(1, region.getPageNumber()) + floatsSize(2, region.getPolygon());
+    }
+
+    private static int sizeOf(Span span) {
+        return intSize(1, span.getOffset()) + intSize(2, span.getLength());
+    }
+
+    private static int regionsSize(int field, List<BoundingRegion> regions) {
+        int size = 0;
+        if (regions != null) {
+            for (BoundingRegion region : regions) {
+                size += messageSize(field, sizeOf(region));
+            }
+        }
+        return size;
+    }
+
+    private static int spansSize(int field, List<Span> spans) {
+        int size = 0;
+        if (spans != null) {
+            for (Span span : spans) {
+                size += messageSize(field, sizeOf(span));
+            }
+        }
+        return size;
+    }
+
+    private static int messageSize(int field, int size) {
+        return CodedOutputStream.computeTagSize(field) + CodedOutputStream.computeUInt32SizeNoTag(size) + size;
+    }
+
+    private static int stringSize(int field, String value) {
+        return value == null || value.isEmpty() ? 0 : CodedOutputStream.computeStringSize(field, value);
+    }
+
+    private static int intSize(int field, int value) {
+        return value == 0 ? 0 : CodedOutputStream.computeInt32Size(field, value);
+    }
+
+    private static int doubleSize(int field, double value) {
+        return Double.doubleToRawLongBits(value) == 0 ? 0 : CodedOutputStream.computeDoubleSize(field, value);
+    }
+
+    private static int floatsSize(int field, float[] values) {
+        return values == null || values.length == 0 ? 0 : messageSize(field, values.length * 4);
+    }
+
+    // ---------------------------------------------------------------- lecture
+
+    /**
+     * Lit un message FileDocument.
+     *
+     * @throws InvalidProtocolBufferException si les données sont mal formées
+     */
+    public static FileDocument readFileDocument(CodedInputStream in) throws IOException {
+        FileDocument doc = new FileDocument();
+        List<DocumentPage> pages = null;
+        List<KeyValuePair> pairs = null;
+        List<DocumentTable> tables = null;
+        for (int tag = in.readTag(); tag != 0; tag = in.readTag()) {
+            switch (tag) {
+                case 1 << 3 | LEN -> doc.setId(in.readStringRequireUtf8());
+                case 2 << 3 | VARINT -> doc.setVersion(in.readInt64());
+                case 3 << 3 | LEN -> doc.setFileName(in.readStringRequireUtf8());
+                case 4 << 3 | LEN -> doc.setAzureUrl(in.readStringRequireUtf8());
+                case 5 << 3 | LEN -> doc.setContentHash(in.readStringRequireUtf8());
+                case 6 << 3 | LEN -> doc.setSourceDocumentId(in.readStringRequireUtf8());
+                case 7 << 3 | LEN -> doc.setAnalysisProfile(in.readStringRequireUtf8());
+                case 8 << 3 | VARINT -> doc.setUploadedAt(new Date(in.readInt64()));
+                case 9 << 3 | LEN -> doc.setStatus(in.readStringRequireUtf8());
+                case 10 << 3 | VARINT -> doc.setPageCount(in.readInt32());
+                case FILE_PAGES << 3 | LEN -> pages = add(pages, readMessage(in, DocumentProtobuf::readDocumentPage));
+                case 12 << 3 | LEN -> pairs = add(pairs, readMessage(in, DocumentProtobuf::readKeyValuePair));
+                case 13 << 3 | LEN -> tables = add(tables, readMessage(in, DocumentProtobuf::readDocumentTable));
+                default -> in.skipField(tag);
+            }
+        }
+        doc.setPages(pages);
+        doc.setKeyValuePairs(pairs);
+        doc.setTables(tables);
+        return doc;
+    }
+
+    /**
+     * Lit un message DocumentPage.
+     */
+    public static DocumentPage readDocumentPage(CodedInputStream in) throws IOException {
+        DocumentPage page = new DocumentPage();
+        List<DocumentWord> words = null;
+        for (int tag = in.readTag(); tag != 0; tag = in.readTag()) {
+            switch (tag) {
+                case 1 << 3 | VARINT -> page.setPageNumber(in.readInt32());
+                case 2 << 3 | I64 -> page.setAngle(in.readDouble());
+                case 3 << 3 | I64 -> page.setWidth(in.readDouble());
+                case 4 << 3 | I64 -> page.setHeight(in.readDouble());
+                case 5 << 3 | LEN -> page.setUnit(in.readStringRequireUtf8());
+                case 6 << 3 | LEN -> words = add(words, readMessage(in, DocumentProtobuf::readWord));
+                default -> in.skipField(tag);
+            }
+        }
+        page.setWords(words);
+        return page;
+    }
+
+    /**
+     * Lit un message DocumentTable.
+     */
+    public static DocumentTable readDocumentTable(CodedInputStream in) throws IOException {
+        DocumentTable table = new DocumentTable();
+        List<DocumentTableCell> cells = null;
+        for (int tag = in.readTag(); tag != 0; tag = in.readTag()) {
+            switch (tag) {
+                case 1 << 3 | VARINT -> table.setRowCount(in.readInt32());
+                case 2 << 3 | VARINT -> table.setColumnCount(in.readInt32());
+                case 3 << 3 | LEN -> cells = add(cells, readMessage(in, DocumentProtobuf::readDocumentTableCell));
+                default -> in.skipField(tag);
+            }
+        }
+        table.setCells(cells);
+        return table;
+    }
+
+    /**
+     * Lit un message DocumentTableCell.
+     */
+    public static DocumentTableCell readDocumentTableCell(CodedInputStream in) throws IOException {
+        DocumentTableCell cell = new DocumentTableCell();
+        List<BoundingRegion> regions = null;
+        List<Span> spans = null;
+        List<String> elements = null;
+        for (int tag = in.readTag(); tag != 0; tag = in.readTag()) {
+            switch (tag) {
+                case 1 << 3 | LEN -> cell.setKind(in.readStringRequireUtf8());
+                case 2 << 3 | VARINT -> cell.setRowIndex(in.readInt32());
+                case 3 << 3 | VARINT -> cell.setColumnIndex(in.readInt32());
+                case 4 << 3 | LEN -> cell.setContent(in.readStringRequireUtf8());
+                case 5 << 3 | LEN -> regions = add(regions, readMessage(in, DocumentProtobuf::readRegion));
+                case 6 << 3 | LEN -> spans = add(spans, readMessage(in, DocumentProtobuf::readSpan));
+                case 7 << 3 | LEN -> elements = add(elements, in.readStringRequireUtf8());
+                default -> in.skipField(tag);
+            }
+        }
+        cell.setBoundingRegions(regions);
+        cell.setSpans(spans);
+        cell.setElements(elements);
+        return cell;
+    }
+
+    /**
+     * Lit un message KeyValuePair.
+     */
+    public static KeyValuePair readKeyValuePair(CodedInputStream in) throws IOException {
+        KeyValuePair pair = new KeyValuePair();
+        for (int tag = in.readTag(); tag != 0; tag = in.readTag()) {
+            switch (tag) {
+                case 1 << 3 | LEN -> pair.setKey(readMessage(in, DocumentProtobuf::readKey));
+                case 2 << 3 | LEN -> pair.setValue(readMessage(in, DocumentProtobuf::readValue));
+                case 3 << 3 | I64 -> pair.setConfidence(in.readDouble());
+                default -> in.skipField(tag);
+            }
+        }
+        return pair;
+    }
+
+    /**
+     * Lit un message KeyValuePairList.
+     */
+    public static List<KeyValuePair> readKeyValuePairs(CodedInputStream in) throws IOException {
+        List<KeyValuePair> pairs = new ArrayList<>();
+        for (int tag = in.readTag(); tag != 0; tag = in.readTag()) {
+            if (tag == (1 << 3 | LEN)) {
+                pairs.add(readMessage(in, DocumentProtobuf::readKeyValuePair));
+            } else {
+                in.skipField(tag);
+            }
+        }
+        return pairs;
+    }
+
+    /**
+     * Lit un message DocumentTableList.
+     */
+    public static List<DocumentTable> readTables(CodedInputStream in) throws IOException {
+        List<DocumentTable> tables = new ArrayList<>();
+        for (int tag = in.readTag(); tag != 0; tag = in.readTag()) {
+            if (tag == (1 << 3 | LEN)) {
+                tables.add(readMessage(in, DocumentProtobuf::readDocumentTable));
+            } else {
+                in.skipField(tag);
+            }
+        }
+        return tables;
+    }
+
+    private static DocumentWord readWord(CodedInputStream in) throws IOException {
+        DocumentWord word = new DocumentWord();
+        for (int tag = in.readTag(); tag != 0; tag = in.readTag()) {
+            switch (tag) {
+                case 1 << 3 | LEN -> word.setContent(in.readStringRequireUtf8());
+                case 2 << 3 | LEN, 2 << 3 | I32 -> word.setPolygon(readFloats(in, tag, word.getPolygon()));
+                case 3 << 3 | I64 -> word.setConfidence(in.readDouble());
+                case 4 << 3 | LEN -> word.setSpan(readMessage(in, DocumentProtobuf::readSpan));
+                default -> in.skipField(tag);
+            }
+        }
+        return word;
+    }
+
+    private static DocumentKey readKey(CodedInputStream in) throws IOException {
+        DocumentKey key = new DocumentKey();
+        List<BoundingRegion> regions = null;
+        List<Span> spans = null;
+        for (int tag = in.readTag(); tag != 0; tag = in.readTag()) {
+            switch (tag) {
+                case 1 << 3 | LEN -> key.setContent(in.readStringRequireUtf8());
+                case 2 << 3 | LEN -> regions = add(regions, readMessage(in, DocumentProtobuf::readRegion));
+                case 3 << 3 | LEN -> spans = add(spans, readMessage(in, DocumentProtobuf::readSpan));
+                default -> in.skipField(tag);
+            }
+        }
+        key.setBoundingRegions(regions);
+        key.setSpans(spans);
+        return key;
+    }
+
+    private static DocumentValue readValue(CodedInputStream in) throws IOException {
+        DocumentValue value = new DocumentValue();
+        List<BoundingRegion> regions = null;
+        List<Span> spans = null;
+        for (int tag = in.readTag(); tag != 0; tag = in.readTag()) {
+            switch (tag) {
+                case 1 << 3 | LEN -> value.setContent(in.readStringRequireUtf8());
+                case 2 << 3 | LEN -> regions = add(regions, readMessage(in, DocumentProtobuf::readRegion));
+                case 3 << 3 | LEN -> spans = add(spans, readMessage(in, DocumentProtobuf::readSpan));
+                default -> in.skipField(tag);
+            }
+        }
+        value.setBoundingRegions(regions);
+        value.setSpans(spans);
+        return value;
+    }
+
+    private static BoundingRegion readRegion(CodedInputStream in) throws IOException {
+        BoundingRegion region = new BoundingRegion();
+        for (int tag = in.readTag(); tag != 0; tag = in.readTag()) {
+            switch (tag) {
+                case 1 << 3 | VARINT -> region.setPageNumber(in.readInt32());
+                case 2 << 3 | LEN, 2 << 3 | I32 -> region.setPolygon(readFloats(in, tag, region.getPolygon()));
+                default -> in.skipField(tag);
+            }
+        }
+        return region;
+    }
+
+    private static Span readSpan(CodedInputStream in) throws IOException {
+        Span span = new Span();
+        for (int tag = in.readTag(); tag != 0; tag = in.readTag()) {
+            switch (tag) {
+                case 1 << 3 | VARINT -> span.setOffset(in.readInt32());
+                case 2 << 3 | VARINT -> span.setLength(in.readInt32());
+                default -> in.skipField(tag);
+            }
+        }
+        return span;
+    }
+
+    /**
+     * Lit un « repeated float », compacté ou non, à la suite des valeurs déjà lues.
+     */
+    private static float[] readFloats(CodedInputStream in, int tag, float[] current) throws IOException {
+        float[] values;
+        if (WireFormat.getTagWireType(tag) == I32) {
+            values = new float[]{in.readFloat()};
+        } else {
+            int length = in.readRawVarint32();
+            int remaining = in.getBytesUntilLimit();
+            if (length < 0 || length % 4 != 0 || (remaining >= 0 && length > remaining)) {
+                throw new InvalidProtocolBufferException("Invalid packed float length: " + length);
+            }
+            int limit = in.pushLimit(length);
+            // Longueur annoncée par le client : le tableau grandit au fil de la
+            // lecture au lieu d'être alloué d'emblée à cette taille
+            values = new float[Math.min(length / 4, PACKED_FLOATS_CHUNK)];
+            int count = 0;
+            while (!in.isAtEnd()) {
+                if (count == values.length) {
+                    values = Arrays.copyOf(values, Math.min(length / 4, count * 2));
+                }
+                values[count++] = in.readFloat();
+            }
+            // isAtEnd() est aussi vrai à la fin du flux : corps tronqué
+            if (count != length / 4) {
+                throw new InvalidProtocolBufferException("Truncated packed floats: " + count * 4 + " of " + length);
+            }
+            in.popLimit(limit);
+        }
+        if (current == null) {
+            return values;
+        }
+        float[] merged = Arrays.copyOf(current, current.length + values.length);
+        System.arraycopy(values, 0, merged, current.length, values.length);
+        return merged;
+    }
+
+    private static <T> T readMessage(CodedInputStream in, MessageReader<T> reader) throws IOException {
+        int limit = in.pushLimit(in.readRawVarint32());
+        T value = reader.read(in);
+        in.popLimit(limit);
+        return value;
+    }
+
+    private static <T> List<T> add(List<T> list, T value) {
+        List<T> target = list != null ? list : new ArrayList<>();
+        target.add(value);
+        return target;
+    }
+
+    @FunctionalInterface
+    private interface MessageReader<T> {
+        T read(CodedInputStream in) throws IOException;
+    }
+}
@@ -0,0 +1,65 @@
+package com.labels.fileslabelling.mappers;
+
+import org.bson.types.Binary;
+import org.springframework.data.mongodb.core.convert.MongoConversionContext;
+import org.springframework.data.mongodb.core.convert.MongoValueConverter;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.List;
+
+/**
+ * Forme persistée des polygones (float[]) : un champ binaire BSON contenant
+ * les valeurs en float 32 bits little-endian, soit 4 octets par coordonnée
+ * au lieu d'un tableau BSON de doubles (un type, une clé « 0 », « 1 »… et
+ * 8 octets par élément). Les valeurs relues sont exactement celles écrites,
+ * sans le bruit de l'élargissement en double (1.2345f stocké 1.2345000505447388).
+ *
+ * Les documents persistés avant ce format (tableaux de doubles) restent
+ * lisibles ; ils sont réécrits au format binaire à leur prochaine sauvegarde.
+ */
+public class PackedFloatsConverter implements MongoValueConverter<float[], Object> {
+
+    @Override
+    public float[] read(Object value, MongoConversionContext context) {
+        if (value instanceof Binary binary) {
+            return unpack(binary.getData());
+        }
+        if (value instanceof List<?> legacy) {
+            float[] floats = new float[legacy.size()];
+            for (int i = 0; i < floats.length; i++) {
+                floats[i] = ((Number) legacy.get(i)).floatValue();
+            }
+            return floats;
+        }
+        throw new IllegalArgumentException("Unsupported polygon value: " + value.getClass());
+    }
+
+    @Override
+    public Object write(float[] value, MongoConversionContext context) {
+        return new Binary(pack(value));
+    }
+
+    /**
+     * Encode des floats en octets little-endian (4 octets par valeur).
+     */
+    public static byte[] pack(float[] values) {
+        ByteBuffer buffer = ByteBuffer.allocate(values.length * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.asFloatBuffer().put(values);
+        return buffer.array();
+    }
+
+    /**
+     * Décode des floats écrits par {@link #pack}.
+     *
+     * @throws IllegalArgumentException si la longueur n'est pas un multiple de 4
+     */
+    public static float[] unpack(byte[] bytes) {
+        if (bytes.length % Float.BYTES != 0) {
+            throw new IllegalArgumentException("Invalid packed polygon length: " + bytes.length);
+        }
+        float[] values = new float[bytes.length / Float.BYTES];
+        ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().get(values);
+        return values;
+    }
+}
@@ -0,0 +1,140 @@
+package com.labels.fileslabelling.models;
+
+import java.util.Date;
+
+/**
+ * Représente un job d'analyse asynchrone lancé par POST /api/files/upload?async=true.
+ *
+ * Un AnalysisJob est conservé en mémoire le temps de l'analyse et permet au
+ * client de suivre l'avancement via GET /api/files/jobs/{id} :
+ * 
+ *   L'identifiant du job et le nom du fichier concerné.
+ *   Le statut courant (QUEUED, RUNNING, DONE, FAILED).
+ *   L'identifiant du FileDocument créé une fois l'analyse terminée.
+ *   Le message d'erreur en cas d'échec.
+ *   Les horodatages de soumission, de démarrage et de fin.
+ * 
+ * Les champs modifiés par le thread d'analyse sont volatiles afin que
+ * le contrôleur lise toujours l'état le plus récent.
+ */
+public class AnalysisJob {
+
+    /**
+     * Identifiant unique du job (UUID).
+     */
+    private String id;
+
+    /**
+     * Nom original du fichier uploadé.
+     */
+    private String fileName;
+
+    /**
+     * URL Azure Blob Storage du fichier à analyser.
+     */
+    private String azureUrl;
+
+    /**
+     * Statut courant du job.
+     */
+    private volatile AnalysisJobStatus status;
+
+    /**
+     * Identifiant du FileDocument persisté, renseigné lorsque le statut passe à DONE.
+     */
+    private volatile String documentId;
+
+    /**
+     * Message d'erreur, renseigné lorsque le statut passe à FAILED.
+     */
+    private volatile String error;
+
+    /**
+     * Date de soumission du job (après stockage du blob).
+     */
+    private Date submittedAt;
+
+    /**
+     * Date de prise en charge par un thread d'analyse.
+     */
+    private volatile Date startedAt;
+
+    /**
+     * Date de fin (succès ou échec).
+     */
+    private volatile Date completedAt;
+
+    // ————————————————————— Getter & Setter —————————————————————
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public String getAzureUrl() {
+        return azureUrl;
+    }
+
+    public void setAzureUrl(String azureUrl) {
+        this.azureUrl = azureUrl;
+    }
+
+    public AnalysisJobStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(AnalysisJobStatus status) {
+        this.status = status;
+    }
+
+    public String getDocumentId() {
+        return documentId;
+    }
+
+    public void setDocumentId(String documentId) {
+        this.documentId = documentId;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public Date getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public void setSubmittedAt(Date submittedAt) {
+        this.submittedAt = submittedAt;
+    }
+
+    public Date getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(Date startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public Date getCompletedAt() {
+        return completedAt;
+    }
+
+    public void setCompletedAt(Date completedAt) {
+        this.completedAt = completedAt;
+    }
+}
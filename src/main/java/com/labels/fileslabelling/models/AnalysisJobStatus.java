@@ -0,0 +1,16 @@
+package com.labels.fileslabelling.models;
+
+/**
+ * États successifs d'un job d'analyse asynchrone.
+ *
+ *   QUEUED  : le fichier est stocké, l'analyse attend un thread libre.
+ *   RUNNING : l'analyse Document Intelligence est en cours.
+ *   DONE    : le FileDocument a été persisté (voir documentId).
+ *   FAILED  : l'analyse a échoué (voir error).
+ */
+public enum AnalysisJobStatus {
+    QUEUED,
+    RUNNING,
+    DONE,
+    FAILED
+}
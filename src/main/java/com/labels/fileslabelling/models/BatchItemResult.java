@@ -0,0 +1,85 @@
+package com.labels.fileslabelling.models;
+
+/**
+ * Résultat du traitement d'un fichier dans un upload par lot
+ * (POST /api/files/upload/batch), émis dès que le fichier est traité.
+ *
+ * Chaque BatchItemResult contient :
+ * 
+ *   Le nom du fichier (ou de l'entrée de l'archive zip).
+ *   Le statut : DONE (analysé et persisté), DUPLICATE (document existant
+ *       réutilisé ou lié) ou FAILED.
+ *   L'identifiant du FileDocument correspondant, sauf en cas d'échec.
+ *   Le message d'erreur en cas d'échec.
+ * 
+ */
+public class BatchItemResult {
+
+    /**
+     * Nom du fichier ou de l'entrée zip traitée.
+     */
+    private String fileName;
+
+    /**
+     * Statut du traitement : DONE, DUPLICATE ou FAILED.
+     */
+    private String status;
+
+    /**
+     * Identifiant du FileDocument créé ou réutilisé.
+     */
+    private String documentId;
+
+    /**
+     * Message d'erreur, renseigné uniquement pour le statut FAILED.
+     */
+    private String error;
+
+    public static BatchItemResult of(String fileName, String status, String documentId) {
+        BatchItemResult result = new BatchItemResult();
+        result.setFileName(fileName);
+        result.setStatus(status);
+        result.setDocumentId(documentId);
+        return result;
+    }
+
+    public static BatchItemResult failed(String fileName, String error) {
+        BatchItemResult result = of(fileName, "FAILED", null);
+        result.setError(error);
+        return result;
+    }
+
+    // ————————————————————— Getter & Setter —————————————————————
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getDocumentId() {
+        return documentId;
+    }
+
+    public void setDocumentId(String documentId) {
+        this.documentId = documentId;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
@@ -1,7 +1,5 @@
 package com.labels.fileslabelling.models;
 
-import java.util.List;
-
 /**
  * Représente une région annotée dans un document PDF ou image.
  * 
@@ -22,8 +20,11 @@ public class BoundingRegion {
     /**
      * Liste des points formant le polygone de la région annotée.
      * Chaque paire de valeurs représente les coordonnées x et y d'un sommet.
+     * Tableau primitif (float[]) pour éviter un objet Double par coordonnée,
+     * persisté en binaire (PackedFloatsConverter) ; les documents déjà
+     * persistés (tableaux de doubles) restent lisibles.
      */
-    private List<Double> polygon;
+    private float[] polygon;
 
     /**
      * Retourne le numéro de page associé à cette région.
@@ -46,9 +47,9 @@ public class BoundingRegion {
     /**
      * Retourne la liste des coordonnées du polygone définissant la région.
      *
-     * @return une liste de doubles [x1, y1, ..., xn, yn]
+     * @return un tableau [x1, y1, ..., xn, yn]
      */
-    public List<Double> getPolygon() {
+    public float[] getPolygon() {
         return polygon;
     }
 
@@ -57,7 +58,7 @@ public class BoundingRegion {
      *
      * @param polygon liste de sommets [x1, y1, ..., xn, yn]
      */
-    public void setPolygon(List<Double> polygon) {
+    public void setPolygon(float[] polygon) {
         this.polygon = polygon;
     }
 }
\ No newline at end of file
@@ -1,5 +1,7 @@
 package com.labels.fileslabelling.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import java.util.List;
 
 /**
@@ -16,6 +18,14 @@ public class DocumentKey {
      */
     private String content;
 
+    /**
+     * Forme normalisée de content (minuscules, sans accents ni ponctuation),
+     * calculée à l'écriture par KeyNormalizer et indexée pour les recherches
+     * par clé sur l'ensemble des documents. Non exposée dans l'API.
+     */
+    @JsonIgnore
+    private String normalizedContent;
+
     /**
      * Liste des régions où ce contenu est localisé.
      * Chaque region est définie par un polygone et un numéro de page.
@@ -36,6 +46,14 @@ public class DocumentKey {
         this.content = content;
     }
 
+    public String getNormalizedContent() {
+        return normalizedContent;
+    }
+
+    public void setNormalizedContent(String normalizedContent) {
+        this.normalizedContent = normalizedContent;
+    }
+
     public List<BoundingRegion> getBoundingRegions() {
         return boundingRegions;
     }
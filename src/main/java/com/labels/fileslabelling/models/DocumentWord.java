@@ -1,7 +1,5 @@
 package com.labels.fileslabelling.models;
 
-import java.util.List;
-
 /**
  * Représente un mot détecté sur une page de document avec ses informations
  * de contenu, position et fiabilité.
@@ -24,8 +22,12 @@ public class DocumentWord {
     /**
      * Coordonnées successives des sommets du polygone entourant le mot.
      * Format : [x1, y1, x2, y2, ..., xn, yn]
+     * Stockées en float[] plutôt qu’en List<Double> : un seul tableau
+     * primitif par mot au lieu d’une liste et de huit objets Double.
+     * Persisté en binaire (PackedFloatsConverter) ; les documents déjà
+     * persistés (tableaux de doubles) restent lisibles.
      */
-    private List<Double> polygon;
+    private float[] polygon;
 
     /**
      * Score de confiance (entre 0 et 1) indiquant la fiabilité de la reconnaissance.
@@ -49,12 +51,12 @@ public class DocumentWord {
     }
 
     /** Retourne les coordonnées du polygone entourant le mot. */
-    public List<Double> getPolygon() {
+    public float[] getPolygon() {
         return polygon;
     }
 
     /** Définit les coordonnées du polygone entourant le mot. */
-    public void setPolygon(List<Double> polygon) {
+    public void setPolygon(float[] polygon) {
         this.polygon = polygon;
     }
 
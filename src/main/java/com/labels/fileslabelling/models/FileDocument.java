@@ -2,6 +2,10 @@ package com.labels.fileslabelling.models;
 
 import com.azure.spring.data.cosmos.core.mapping.Container;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
 import java.util.Date;
 import java.util.List;
 
@@ -14,13 +18,21 @@ import java.util.List;
  *   Un identifiant unique (id) pour la base Cosmos DB.
  *   Le nom de fichier original et l’URL Azure Blob pour y accéder.
  *   La date de téléversement, pour suivre l’historique des imports.
+ *   L’empreinte SHA-256 du contenu, pour éviter d’analyser deux fois le même fichier.
+ *   Le profil d’analyse utilisé (modèle, options, pages).
  *   Le statut du document (« IN_REVIEW » ou « APPROVED »).
- *   La liste des pages analysées (pages), avec chaque mot extrait, son orientation, etc.
+ *   Un numéro de version, incrémenté à chaque modification et exposé en ETag.
+ *   Le nombre de pages analysées (pageCount) ; le contenu de chaque page (mots,
+ *       orientation, etc.) est stocké à part dans la collection « file_pages ».
  *   Les paires clé-valeur détectées (keyValuePairs), pour extraire les données structurées.
  *   Les tables identifiées (tables), avec leurs cellules détaillées.
  * 
  */
 @Container(containerName = "files")
+@Document
+@CompoundIndex(name = "status_uploadedAt", def = "{'status': 1, 'uploadedAt': -1}")
+@CompoundIndex(name = "kvpKey_status_uploadedAt",
+        def = "{'keyValuePairs.key.normalizedContent': 1, 'status': 1, 'uploadedAt': -1}")
 public class FileDocument {
 
     /**
@@ -29,6 +41,14 @@ public class FileDocument {
     @Id
     private String id;
 
+    /**
+     * Numéro de version pour le verrouillage optimiste : incrémenté à chaque
+     * modification, exposé dans l’en-tête ETag et vérifié via If-Match.
+     * Null pour les documents créés avant son introduction (équivaut à 0).
+     */
+    @Version
+    private Long version;
+
     /**
      * Nom original du fichier uploadé.
      */
@@ -39,9 +59,31 @@ public class FileDocument {
      */
     private String azureUrl;
 
+    /**
+     * Empreinte SHA-256 (hexadécimale) du contenu du fichier.
+     * Indexée pour retrouver instantanément un fichier déjà analysé.
+     */
+    @Indexed
+    private String contentHash;
+
+    /**
+     * Identifiant du document d’origine lorsque ce document réutilise
+     * son résultat d’analyse (politique de déduplication LINK), sinon null.
+     */
+    private String sourceDocumentId;
+
+    /**
+     * Profil d’analyse ayant produit ce résultat (ex. « LAYOUT_KVP »,
+     * « READ@1-3 », « CUSTOM:mon-modele »). Null pour les documents
+     * antérieurs aux profils, analysés en LAYOUT_KVP sur toutes les pages.
+     */
+    private String analysisProfile;
+
     /**
      * Horodatage du téléversement, utilisé pour trier et historiser.
+     * Indexé pour la liste paginée triée par date.
      */
+    @Indexed
     private Date uploadedAt;
 
     /**
@@ -50,9 +92,18 @@ public class FileDocument {
      */
     private String status;
 
+    /**
+     * Nombre de pages analysées, consultables une à une
+     * via GET /api/files/{id}/pages/{n}.
+     */
+    private int pageCount;
+
     /**
      * Pages brutes renvoyées par Document Intelligence,
      * incluant mots détectés, orientation et dimensions.
+     * Renseigné uniquement avant la persistance (les pages sont alors
+     * déplacées dans « file_pages ») et pour les documents enregistrés
+     * avant ce découpage, qui les embarquent encore.
      */
     private List<DocumentPage> pages;
 
@@ -78,6 +129,14 @@ public class FileDocument {
         this.id = id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public String getFileName() {
         return fileName;
     }
@@ -94,6 +153,30 @@ public class FileDocument {
         this.azureUrl = azureUrl;
     }
 
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
+    public String getSourceDocumentId() {
+        return sourceDocumentId;
+    }
+
+    public void setSourceDocumentId(String sourceDocumentId) {
+        this.sourceDocumentId = sourceDocumentId;
+    }
+
+    public String getAnalysisProfile() {
+        return analysisProfile;
+    }
+
+    public void setAnalysisProfile(String analysisProfile) {
+        this.analysisProfile = analysisProfile;
+    }
+
     public Date getUploadedAt() {
         return uploadedAt;
     }
@@ -110,6 +193,14 @@ public class FileDocument {
         this.status = status;
     }
 
+    public int getPageCount() {
+        return pageCount;
+    }
+
+    public void setPageCount(int pageCount) {
+        this.pageCount = pageCount;
+    }
+
     public List<DocumentPage> getPages() {
         return pages;
     }
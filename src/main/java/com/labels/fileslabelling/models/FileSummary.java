@@ -0,0 +1,66 @@
+package com.labels.fileslabelling.models;
+
+import java.util.Date;
+
+/**
+ * Projection légère d’un FileDocument utilisée par la liste des fichiers.
+ *
+ * Seuls les champs affichés dans la liste sont lus en base : les pages,
+ * mots, paires clé-valeur et tables ne sont jamais chargés.
+ */
+public class FileSummary {
+
+    /**
+     * Identifiant du document.
+     */
+    private String id;
+
+    /**
+     * Nom original du fichier uploadé.
+     */
+    private String fileName;
+
+    /**
+     * Statut du document (IN_REVIEW, APPROVED).
+     */
+    private String status;
+
+    /**
+     * Horodatage du téléversement.
+     */
+    private Date uploadedAt;
+
+    // ————————————————————— Getter & Setter —————————————————————
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public Date getUploadedAt() {
+        return uploadedAt;
+    }
+
+    public void setUploadedAt(Date uploadedAt) {
+        this.uploadedAt = uploadedAt;
+    }
+}
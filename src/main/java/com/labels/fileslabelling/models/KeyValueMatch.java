@@ -0,0 +1,123 @@
+package com.labels.fileslabelling.models;
+
+import java.util.Date;
+
+/**
+ * Paire clé-valeur trouvée par une recherche par clé sur l'ensemble des
+ * documents (GET /api/files/keyValuePairs), avec le contexte du document.
+ *
+ * Chaque KeyValueMatch contient :
+ *
+ *   L'identifiant, le nom, le statut et la date de téléversement du document.
+ *   La position (0-based) de la paire dans keyValuePairs, pour la modifier
+ *       via PATCH /api/files/{fileId}/keyValuePairs/{index}.
+ *   Le contenu de la clé et de la valeur, tels qu'extraits ou corrigés.
+ *   Le score de confiance de la paire.
+ *
+ */
+public class KeyValueMatch {
+
+    /**
+     * Identifiant du FileDocument.
+     */
+    private String documentId;
+
+    /**
+     * Nom original du fichier.
+     */
+    private String fileName;
+
+    /**
+     * Statut du document : IN_REVIEW ou APPROVED.
+     */
+    private String status;
+
+    /**
+     * Date de téléversement du document.
+     */
+    private Date uploadedAt;
+
+    /**
+     * Position de la paire dans keyValuePairs.
+     */
+    private int index;
+
+    /**
+     * Contenu de la clé.
+     */
+    private String key;
+
+    /**
+     * Contenu de la valeur, null si la clé n'a pas de valeur détectée.
+     */
+    private String value;
+
+    /**
+     * Score de confiance de la paire.
+     */
+    private double confidence;
+
+    public String getDocumentId() {
+        return documentId;
+    }
+
+    public void setDocumentId(String documentId) {
+        this.documentId = documentId;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public Date getUploadedAt() {
+        return uploadedAt;
+    }
+
+    public void setUploadedAt(Date uploadedAt) {
+        this.uploadedAt = uploadedAt;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public void setValue(String value) {
+        this.value = value;
+    }
+
+    public double getConfidence() {
+        return confidence;
+    }
+
+    public void setConfidence(double confidence) {
+        this.confidence = confidence;
+    }
+}
@@ -0,0 +1,103 @@
+package com.labels.fileslabelling.models;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Page analysée stockée séparément du FileDocument auquel elle appartient.
+ *
+ * Les mots et polygones d’une page représentent l’essentiel du volume d’un
+ * document analysé. Les stocker un par un dans la collection « file_pages »
+ * garde le FileDocument racine petit (quelques Ko), évite de le réécrire
+ * entièrement à chaque modification et permet de charger une page à la
+ * demande via GET /api/files/{id}/pages/{n}.
+ *
+ * Chaque PageChunk contient :
+ * 
+ *   Un identifiant déterministe « fileId:pageNumber », pour une lecture directe par clé.
+ *   L’identifiant du FileDocument propriétaire.
+ *   Le numéro de page (1-indexé).
+ *   Le contenu de la page (dimensions, mots, polygones).
+ * 
+ */
+@Document(collection = "file_pages")
+@CompoundIndex(name = "fileId_pageNumber", def = "{'fileId': 1, 'pageNumber': 1}")
+public class PageChunk {
+
+    /**
+     * Identifiant « fileId:pageNumber ».
+     */
+    @Id
+    private String id;
+
+    /**
+     * Identifiant du FileDocument propriétaire. L'index (fileId, pageNumber)
+     * sert les suppressions, les parcours et la lecture d'une plage de pages
+     * dans l'ordre.
+     */
+    private String fileId;
+
+    /**
+     * Numéro de la page dans le document (1-indexé).
+     */
+    private int pageNumber;
+
+    /**
+     * Contenu de la page : dimensions, unité, mots détectés.
+     */
+    private DocumentPage page;
+
+    /**
+     * Construit l’identifiant d’une page à partir du document et du numéro de page.
+     */
+    public static String idOf(String fileId, int pageNumber) {
+        return fileId + ":" + pageNumber;
+    }
+
+    /**
+     * Crée le chunk correspondant à une page d’un document.
+     */
+    public static PageChunk of(String fileId, DocumentPage page) {
+        PageChunk chunk = new PageChunk();
+        chunk.setId(idOf(fileId, page.getPageNumber()));
+        chunk.setFileId(fileId);
+        chunk.setPageNumber(page.getPageNumber());
+        chunk.setPage(page);
+        return chunk;
+    }
+
+    // ————————————————————— Getter & Setter —————————————————————
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getFileId() {
+        return fileId;
+    }
+
+    public void setFileId(String fileId) {
+        this.fileId = fileId;
+    }
+
+    public int getPageNumber() {
+        return pageNumber;
+    }
+
+    public void setPageNumber(int pageNumber) {
+        this.pageNumber = pageNumber;
+    }
+
+    public DocumentPage getPage() {
+        return page;
+    }
+
+    public void setPage(DocumentPage page) {
+        this.page = page;
+    }
+}
@@ -0,0 +1,56 @@
+package com.labels.fileslabelling.models;
+
+import java.util.List;
+
+/**
+ * Document correspondant à une recherche plein texte
+ * (GET /api/files/search).
+ *
+ * Chaque SearchHit contient :
+ *
+ *   L'identifiant du FileDocument trouvé.
+ *   Le nombre total d'occurrences des termes recherchés, qui sert au tri.
+ *   Les occurrences elles-mêmes (page, position), éventuellement tronquées.
+ *
+ */
+public class SearchHit {
+
+    /**
+     * Identifiant du FileDocument.
+     */
+    private String documentId;
+
+    /**
+     * Nombre total d'occurrences des termes dans le document.
+     */
+    private int occurrences;
+
+    /**
+     * Occurrences trouvées, dans l'ordre de la requête puis de l'index.
+     */
+    private List<SearchMatch> matches;
+
+    public String getDocumentId() {
+        return documentId;
+    }
+
+    public void setDocumentId(String documentId) {
+        this.documentId = documentId;
+    }
+
+    public int getOccurrences() {
+        return occurrences;
+    }
+
+    public void setOccurrences(int occurrences) {
+        this.occurrences = occurrences;
+    }
+
+    public List<SearchMatch> getMatches() {
+        return matches;
+    }
+
+    public void setMatches(List<SearchMatch> matches) {
+        this.matches = matches;
+    }
+}
@@ -0,0 +1,84 @@
+package com.labels.fileslabelling.models;
+
+/**
+ * Occurrence d'un terme recherché dans un document
+ * (GET /api/files/search).
+ *
+ * Chaque SearchMatch indique :
+ *
+ *   La source : WORD (mot d'une page), KEY_VALUE (clé ou valeur d'une
+ *       paire) ou TABLE_CELL (contenu d'une cellule).
+ *   Le terme indexé trouvé (minuscules, sans accents).
+ *   Le numéro de page, lorsqu'il est connu.
+ *   La position : index du mot dans la page (WORD), de la paire dans
+ *       keyValuePairs (KEY_VALUE) ou de la table dans tables (TABLE_CELL).
+ *   L'index de la cellule dans la table, pour TABLE_CELL uniquement.
+ *
+ */
+public class SearchMatch {
+
+    /**
+     * Source de l'occurrence : WORD, KEY_VALUE ou TABLE_CELL.
+     */
+    private String source;
+
+    /**
+     * Terme indexé correspondant (utile pour les recherches par préfixe).
+     */
+    private String term;
+
+    /**
+     * Numéro de page (1-indexé), null s'il n'est pas connu.
+     */
+    private Integer pageNumber;
+
+    /**
+     * Index du mot, de la paire clé-valeur ou de la table selon la source.
+     */
+    private int position;
+
+    /**
+     * Index de la cellule dans la table (TABLE_CELL), sinon null.
+     */
+    private Integer cellIndex;
+
+    public String getSource() {
+        return source;
+    }
+
+    public void setSource(String source) {
+        this.source = source;
+    }
+
+    public String getTerm() {
+        return term;
+    }
+
+    public void setTerm(String term) {
+        this.term = term;
+    }
+
+    public Integer getPageNumber() {
+        return pageNumber;
+    }
+
+    public void setPageNumber(Integer pageNumber) {
+        this.pageNumber = pageNumber;
+    }
+
+    public int getPosition() {
+        return position;
+    }
+
+    public void setPosition(int position) {
+        this.position = position;
+    }
+
+    public Integer getCellIndex() {
+        return cellIndex;
+    }
+
+    public void setCellIndex(Integer cellIndex) {
+        this.cellIndex = cellIndex;
+    }
+}
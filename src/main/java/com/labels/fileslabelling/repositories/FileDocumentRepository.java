@@ -4,6 +4,10 @@ import com.labels.fileslabelling.models.FileDocument;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.Optional;
+import java.util.stream.Stream;
+
 /**
  * Interface de persistence pour les FileDocument.
  * 
@@ -13,11 +17,32 @@ import org.springframework.stereotype.Repository;
  * également ajouter des méthodes de requête personnalisées simplement
  * en déclarant leur signature (par exemple findByStatus(String status)).
  * 
+ * Les requêtes nécessitant une projection ou des filtres optionnels sont
+ * déclarées dans {@link FileDocumentRepositoryCustom}.
+ * 
  * L’annotation @Repository permet à Spring de reconnaître cette interface
  * comme un composant de persistence et d’appliquer la traduction des
  * exceptions spécifiques à MongoDB en exceptions Spring Data plus génériques.
  */
 @Repository
-public interface FileDocumentRepository extends MongoRepository<FileDocument, String> {
-    // ex. List<FileDocument> findByStatus(String status);
+public interface FileDocumentRepository extends MongoRepository<FileDocument, String>,
+        FileDocumentRepositoryCustom {
+
+    /**
+     * Recherche le premier document ayant cette empreinte et analysé avec
+     * l'un des profils donnés (null désignant les documents sans profil).
+     * S'appuie sur l'index de FileDocument.contentHash.
+     *
+     * @param contentHash empreinte SHA-256 hexadécimale du fichier
+     * @param profiles    clés de profil acceptées
+     * @return Optional vide si aucun résultat réutilisable
+     */
+    Optional<FileDocument> findFirstByContentHashAndAnalysisProfileInOrderByUploadedAtAsc(
+            String contentHash, Collection<String> profiles);
+
+    /**
+     * Parcourt tous les documents sans les charger en mémoire d'un coup
+     * (reconstruction de l'index de recherche). Le flux doit être fermé.
+     */
+    Stream<FileDocument> streamAllBy();
 }
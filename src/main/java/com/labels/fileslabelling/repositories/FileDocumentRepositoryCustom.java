@@ -0,0 +1,91 @@
+package com.labels.fileslabelling.repositories;
+
+import com.labels.fileslabelling.models.FileDocument;
+import com.labels.fileslabelling.models.FileSummary;
+import com.labels.fileslabelling.models.KeyValueMatch;
+import com.labels.fileslabelling.models.KeyValuePair;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Requêtes personnalisées sur les FileDocument, implémentées avec
+ * MongoTemplate dans {@link FileDocumentRepositoryCustomImpl} et
+ * exposées via {@link FileDocumentRepository}.
+ */
+public interface FileDocumentRepositoryCustom {
+
+    /**
+     * Liste paginée et triée des documents, en ne lisant que les champs
+     * de {@link FileSummary}. Chaque filtre est optionnel (null = ignoré).
+     *
+     * @param status   statut exact recherché
+     * @param from     date de téléversement minimale (incluse)
+     * @param to       date de téléversement maximale (exclue)
+     * @param pageable page, taille et tri demandés
+     * @return une page de résumés
+     */
+    Page<FileSummary> findSummaries(String status, Date from, Date to, Pageable pageable);
+
+    /**
+     * Modifie un seul champ d'un document par une mise à jour partielle
+     * ($set) exécutée côté base : le document n'est ni relu ni réécrit
+     * en entier, quelle que soit sa taille.
+     *
+     * @param id            identifiant du document
+     * @param path          chemin du champ (ex. « status », « keyValuePairs.3 »,
+     *                      « tables.0.cells.12 »)
+     * @param value         nouvelle valeur du champ
+     * @param requiredPath  chemin qui doit déjà exister pour que la mise à jour
+     *                      s'applique (évite de créer un élément hors limites),
+     *                      ou null
+     * @param expectedVersion version attendue du document (If-Match), ou null
+     *                      pour ne pas la vérifier ; la version est incrémentée
+     *                      dans tous les cas
+     * @return le document mis à jour, sans pages ; vide si le document n'existe
+     *         pas ou si requiredPath est absent
+     * @throws org.springframework.dao.OptimisticLockingFailureException si le
+     *         document existe mais que sa version diffère de expectedVersion
+     */
+    Optional<FileDocument> updateField(String id, String path, Object value, String requiredPath,
+                                       Long expectedVersion);
+
+    /**
+     * Parcourt, sur l'ensemble des documents, les paires dont la clé
+     * normalisée fait partie de normalizedKeys. Les documents sont
+     * sélectionnés via l'index (keyValuePairs.key.normalizedContent, status,
+     * uploadedAt), puis les paires sont filtrées une à une côté base.
+     * Les résultats sont lus par curseur, au fil de la consommation du flux,
+     * qui doit être fermé. Chaque filtre est optionnel (null = ignoré).
+     *
+     * @param normalizedKeys formes normalisées acceptées pour la clé
+     * @param status         statut exact du document
+     * @param from           date de téléversement minimale (incluse)
+     * @param to             date de téléversement maximale (exclue)
+     * @param minConfidence  confiance minimale de la paire
+     * @return flux des paires trouvées, dans l'ordre de parcours de l'index
+     */
+    Stream<KeyValueMatch> streamKeyValues(Collection<String> normalizedKeys, String status, Date from, Date to,
+                                          Double minConfidence);
+
+    /**
+     * Parcourt les documents dont au moins une clé n'a pas encore de forme
+     * normalisée (documents antérieurs à l'index des clés). Seuls id,
+     * version et keyValuePairs sont lus. Le flux doit être fermé.
+     */
+    Stream<FileDocument> streamWithUnnormalizedKeys();
+
+    /**
+     * Réécrit les paires d'un document si sa version n'a pas changé depuis
+     * leur lecture, sans incrémenter la version : réservé aux champs dérivés
+     * (formes normalisées), qui ne modifient pas le contenu visible.
+     *
+     * @return true si le document a été mis à jour
+     */
+    boolean replaceKeyValuePairsIfUnchanged(String id, List<KeyValuePair> keyValuePairs, Long version);
+}
@@ -0,0 +1,145 @@
+package com.labels.fileslabelling.repositories;
+
+import com.labels.fileslabelling.models.FileDocument;
+import com.labels.fileslabelling.models.FileSummary;
+import com.labels.fileslabelling.models.KeyValueMatch;
+import com.labels.fileslabelling.models.KeyValuePair;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Implémentation MongoTemplate de {@link FileDocumentRepositoryCustom}.
+ *
+ * Les requêtes utilisent une projection (query.fields().include) afin que
+ * MongoDB ne renvoie que les champs nécessaires, et s'appuient sur les index
+ * déclarés sur FileDocument (status + uploadedAt, uploadedAt, clé normalisée).
+ * Les modifications sont des mises à jour partielles atomiques (findAndModify
+ * + $set) plutôt qu'une lecture suivie d'une réécriture du document entier ;
+ * elles incrémentent la version du document et, si une version est attendue,
+ * ne s'appliquent que si elle correspond (verrouillage optimiste, sans verrou).
+ */
+public class FileDocumentRepositoryCustomImpl implements FileDocumentRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    public FileDocumentRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public Page<FileSummary> findSummaries(String status, Date from, Date to, Pageable pageable) {
+        Query query = new Query();
+        if (status != null) {
+            query.addCriteria(Criteria.where("status").is(status));
+        }
+        if (from != null || to != null) {
+            Criteria uploadedAt = Criteria.where("uploadedAt");
+            if (from != null) {
+                uploadedAt = uploadedAt.gte(from);
+            }
+            if (to != null) {
+                uploadedAt = uploadedAt.lt(to);
+            }
+            query.addCriteria(uploadedAt);
+        }
+        query.fields().include("fileName", "status", "uploadedAt");
+
+        String collection = mongoTemplate.getCollectionName(FileDocument.class);
+        List<FileSummary> content = mongoTemplate.find(
+                Query.of(query).with(pageable), FileSummary.class, collection);
+        return PageableExecutionUtils.getPage(content, pageable,
+                () -> mongoTemplate.count(query, collection));
+    }
+
+    @Override
+    public Optional<FileDocument> updateField(String id, String path, Object value, String requiredPath,
+                                              Long expectedVersion) {
+        Query target = Query.query(Criteria.where("id").is(id));
+        if (requiredPath != null) {
+            target.addCriteria(Criteria.where(requiredPath).exists(true));
+        }
+        Query query = Query.of(target);
+        if (expectedVersion != null) {
+            // Les documents antérieurs au versionnage n'ont pas de champ version : ils valent 0.
+            query.addCriteria(expectedVersion == 0
+                    ? Criteria.where("version").in(0L, null)
+                    : Criteria.where("version").is(expectedVersion));
+        }
+        query.fields().exclude("pages");
+        FileDocument updated = mongoTemplate.findAndModify(
+                query,
+                new Update().set(path, value).inc("version", 1),
+                FindAndModifyOptions.options().returnNew(true),
+                FileDocument.class);
+        if (updated == null && expectedVersion != null && mongoTemplate.exists(target, FileDocument.class)) {
+            throw new OptimisticLockingFailureException(
+                    "Document " + id + " was modified concurrently (expected version " + expectedVersion + ")");
+        }
+        return Optional.ofNullable(updated);
+    }
+
+    @Override
+    public Stream<KeyValueMatch> streamKeyValues(Collection<String> normalizedKeys, String status, Date from,
+                                                 Date to, Double minConfidence) {
+        Criteria document = Criteria.where("keyValuePairs.key.normalizedContent").in(normalizedKeys);
+        if (status != null) {
+            document = document.and("status").is(status);
+        }
+        if (from != null || to != null) {
+            Criteria uploadedAt = document.and("uploadedAt");
+            if (from != null) {
+                uploadedAt = uploadedAt.gte(from);
+            }
+            if (to != null) {
+                uploadedAt = uploadedAt.lt(to);
+            }
+        }
+        Criteria pair = Criteria.where("keyValuePairs.key.normalizedContent").in(normalizedKeys);
+        if (minConfidence != null) {
+            pair = pair.and("keyValuePairs.confidence").gte(minConfidence);
+        }
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(document),
+                Aggregation.unwind("keyValuePairs", "index"),
+                Aggregation.match(pair),
+                Aggregation.project("fileName", "status", "uploadedAt", "index")
+                        .and("_id").as("documentId")
+                        .and("keyValuePairs.key.content").as("key")
+                        .and("keyValuePairs.value.content").as("value")
+                        .and("keyValuePairs.confidence").as("confidence"));
+        return mongoTemplate.aggregateStream(
+                aggregation, mongoTemplate.getCollectionName(FileDocument.class), KeyValueMatch.class);
+    }
+
+    @Override
+    public Stream<FileDocument> streamWithUnnormalizedKeys() {
+        // $elemMatch : une seule paire non normalisée suffit, même si d'autres le sont déjà
+        Query query = Query.query(Criteria.where("keyValuePairs").elemMatch(
+                Criteria.where("key.content").exists(true).and("key.normalizedContent").exists(false)));
+        query.fields().include("version", "keyValuePairs");
+        return mongoTemplate.stream(query, FileDocument.class);
+    }
+
+    @Override
+    public boolean replaceKeyValuePairsIfUnchanged(String id, List<KeyValuePair> keyValuePairs, Long version) {
+        Query query = Query.query(Criteria.where("id").is(id)
+                .and("version").is(version));
+        // Réécrire la version à l'identique empêche MongoTemplate de l'incrémenter
+        Update update = new Update().set("keyValuePairs", keyValuePairs).set("version", version);
+        return mongoTemplate.updateFirst(query, update, FileDocument.class).getModifiedCount() > 0;
+    }
+}
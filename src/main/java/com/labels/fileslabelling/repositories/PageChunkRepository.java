@@ -0,0 +1,34 @@
+package com.labels.fileslabelling.repositories;
+
+import com.labels.fileslabelling.models.PageChunk;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.stream.Stream;
+
+/**
+ * Interface de persistence pour les pages stockées séparément (PageChunk).
+ *
+ * Une page se lit directement par son identifiant « fileId:pageNumber »
+ * (voir {@link PageChunk#idOf}) ; la suppression par document s'appuie
+ * sur l'index (fileId, pageNumber) de PageChunk. La lecture en flux d'une
+ * plage de pages est déclarée dans {@link PageChunkRepositoryCustom}.
+ */
+@Repository
+public interface PageChunkRepository extends MongoRepository<PageChunk, String>,
+        PageChunkRepositoryCustom {
+
+    /**
+     * Supprime toutes les pages d'un document.
+     *
+     * @param fileId identifiant du FileDocument propriétaire
+     */
+    void deleteByFileId(String fileId);
+
+    /**
+     * Parcourt toutes les pages, regroupées par document via l'index
+     * (fileId, pageNumber) de PageChunk (reconstruction de l'index de recherche).
+     * Le flux doit être fermé.
+     */
+    Stream<PageChunk> streamAllByOrderByFileId();
+}
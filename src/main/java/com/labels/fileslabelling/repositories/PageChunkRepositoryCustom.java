@@ -0,0 +1,27 @@
+package com.labels.fileslabelling.repositories;
+
+import com.labels.fileslabelling.models.PageChunk;
+
+import java.util.stream.Stream;
+
+/**
+ * Requêtes personnalisées sur les PageChunk, implémentées avec
+ * MongoTemplate dans {@link PageChunkRepositoryCustomImpl} et
+ * exposées via {@link PageChunkRepository}.
+ */
+public interface PageChunkRepositoryCustom {
+
+    /**
+     * Parcourt, dans l'ordre, les pages d'un document comprises dans une
+     * plage. Les pages sont lues par petits lots au fil de la consommation
+     * du flux, qui doit être fermé : la mémoire utilisée ne dépend pas du
+     * nombre de pages.
+     *
+     * @param fileId       identifiant du FileDocument propriétaire
+     * @param from         première page (incluse)
+     * @param to           dernière page (incluse)
+     * @param includeWords false pour ne pas lire les mots (dimensions seules)
+     * @return flux des pages, par numéro croissant
+     */
+    Stream<PageChunk> streamPages(String fileId, int from, int to, boolean includeWords);
+}
@@ -0,0 +1,41 @@
+package com.labels.fileslabelling.repositories;
+
+import com.labels.fileslabelling.models.PageChunk;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.stream.Stream;
+
+/**
+ * Implémentation MongoTemplate de {@link PageChunkRepositoryCustom}.
+ *
+ * La lecture d'une plage s'appuie sur l'index (fileId, pageNumber), qui
+ * fournit les pages déjà triées : aucun tri n'a lieu en mémoire côté base.
+ */
+public class PageChunkRepositoryCustomImpl implements PageChunkRepositoryCustom {
+
+    /**
+     * Pages lues par aller-retour : une page volumineuse pèse plusieurs
+     * centaines de Ko, un lot reste donc de quelques Mo au plus.
+     */
+    private static final int BATCH_SIZE = 8;
+
+    private final MongoTemplate mongoTemplate;
+
+    public PageChunkRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public Stream<PageChunk> streamPages(String fileId, int from, int to, boolean includeWords) {
+        Query query = Query.query(Criteria.where("fileId").is(fileId).and("pageNumber").gte(from).lte(to))
+                .with(Sort.by("pageNumber"))
+                .cursorBatchSize(BATCH_SIZE);
+        if (!includeWords) {
+            query.fields().exclude("page.words");
+        }
+        return mongoTemplate.stream(query, PageChunk.class);
+    }
+}
@@ -0,0 +1,27 @@
+package com.labels.fileslabelling.services;
+
+import com.azure.ai.documentintelligence.models.AnalyzeDocumentOptions;
+import com.azure.ai.documentintelligence.models.AnalyzeOperationDetails;
+import com.azure.ai.documentintelligence.models.AnalyzeResult;
+import com.azure.core.util.polling.SyncPoller;
+
+/**
+ * Service d'analyse utilisé par {@link FileService}.
+ *
+ * L'implémentation est choisie par app.analysis.backend : « azure » (par
+ * défaut, {@link AzureAnalysisBackend}) ou « fake » (FakeAnalysisBackend,
+ * résultats synthétiques sans réseau, pour les tests de charge locaux).
+ * Une implémentation signale chaque 429 reçu à {@link AnalysisRateLimiter}
+ * et le propage sous forme de HttpResponseException.
+ */
+public interface AnalysisBackend {
+
+    /**
+     * Soumet une analyse.
+     *
+     * @param modelId modèle à utiliser (ex. prebuilt-layout)
+     * @param options source du document et options d'analyse
+     * @return le poller de l'opération longue
+     */
+    SyncPoller<AnalyzeOperationDetails, AnalyzeResult> beginAnalyze(String modelId, AnalyzeDocumentOptions options);
+}
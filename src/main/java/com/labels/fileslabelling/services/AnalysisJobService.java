@@ -0,0 +1,119 @@
+package com.labels.fileslabelling.services;
+
+import com.labels.fileslabelling.models.AnalysisJob;
+import com.labels.fileslabelling.models.AnalysisJobStatus;
+import com.labels.fileslabelling.models.FileDocument;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Service de gestion des jobs d'analyse asynchrones :
+ *   • Création d'un job une fois le blob stocké
+ *   • Exécution de l'analyse sur l'exécuteur borné « analysisExecutor »
+ *   • Suivi du statut (QUEUED, RUNNING, DONE, FAILED)
+ *   • Purge des jobs terminés au-delà de la durée de rétention
+ *
+ * Les jobs sont conservés en mémoire : ils ne servent qu'au suivi de
+ * l'analyse, le résultat durable étant le FileDocument persisté.
+ */
+@Service
+public class AnalysisJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(AnalysisJobService.class);
+
+    private final FileService fileService;
+    private final TaskExecutor analysisExecutor;
+    private final Map<String, AnalysisJob> jobs = new ConcurrentHashMap<>();
+
+    /**
+     * Durée de conservation (en minutes) d'un job terminé avant purge.
+     */
+    @Value("${app.analysis.jobs.retention-minutes:60}")
+    private long retentionMinutes;
+
+    public AnalysisJobService(FileService fileService,
+                              @Qualifier("analysisExecutor") TaskExecutor analysisExecutor) {
+        this.fileService = fileService;
+        this.analysisExecutor = analysisExecutor;
+    }
+
+    /**
+     * Crée un job pour un blob déjà stocké et planifie son analyse.
+     * Si l'exécuteur est saturé, le blob est supprimé et l'exception
+     * TaskRejectedException est propagée à l'appelant.
+     *
+     * @param fileName nom original du fichier
+     * @param stored   blob contenant le fichier à analyser
+     * @param analysis profil, modèle et pages à analyser
+     * @return le job créé, au statut QUEUED
+     */
+    public AnalysisJob submit(String fileName, StoredBlob stored, AnalysisRequest analysis) {
+        purgeExpiredJobs();
+
+        AnalysisJob job = new AnalysisJob();
+        job.setId(UUID.randomUUID().toString());
+        job.setFileName(fileName);
+        job.setAzureUrl(stored.url());
+        job.setStatus(AnalysisJobStatus.QUEUED);
+        job.setSubmittedAt(new Date());
+        jobs.put(job.getId(), job);
+
+        try {
+            analysisExecutor.execute(() -> run(job, stored, analysis));
+        } catch (TaskRejectedException e) {
+            jobs.remove(job.getId());
+            stored.blob().deleteIfExists();
+            throw e;
+        }
+        return job;
+    }
+
+    /**
+     * Récupère un job par ID.
+     *
+     * @param id identifiant du job
+     * @return Optional vide si inconnu ou déjà purgé
+     */
+    public Optional<AnalysisJob> findById(String id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    /**
+     * Corps du job : analyse, mapping et persistance du FileDocument.
+     */
+    private void run(AnalysisJob job, StoredBlob stored, AnalysisRequest analysis) {
+        job.setStartedAt(new Date());
+        job.setStatus(AnalysisJobStatus.RUNNING);
+        try {
+            FileDocument doc = fileService.analyzeAndSave(job.getFileName(), stored, analysis);
+            job.setDocumentId(doc.getId());
+            job.setStatus(AnalysisJobStatus.DONE);
+        } catch (Exception e) {
+            log.warn("Analysis job {} failed for {}", job.getId(), job.getFileName(), e);
+            job.setError(e.getMessage());
+            job.setStatus(AnalysisJobStatus.FAILED);
+        } finally {
+            job.setCompletedAt(new Date());
+        }
+    }
+
+    /**
+     * Supprime les jobs terminés depuis plus de retentionMinutes.
+     */
+    private void purgeExpiredJobs() {
+        long threshold = System.currentTimeMillis() - retentionMinutes * 60_000L;
+        jobs.values().removeIf(j -> j.getCompletedAt() != null
+                && j.getCompletedAt().getTime() < threshold);
+    }
+}
@@ -0,0 +1,139 @@
+package com.labels.fileslabelling.services;
+
+import com.azure.ai.documentintelligence.models.AnalyzeOperationDetails;
+import com.azure.ai.documentintelligence.models.AnalyzeResult;
+import com.azure.core.util.polling.LongRunningOperationStatus;
+import com.azure.core.util.polling.PollResponse;
+import com.azure.core.util.polling.SyncPoller;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Attente de la fin d'une analyse Document Intelligence, avec une cadence de
+ * polling adaptée à la taille du fichier.
+ *
+ * Un premier poll a lieu dès la soumission, une analyse très courte pouvant
+ * déjà être terminée. Le suivant intervient après initial-interval-ms plus
+ * initial-interval-per-mb-ms par Mo, puis l'intervalle croît d'un facteur
+ * multiplier jusqu'à max-interval-ms pour ne pas solliciter inutilement le
+ * service sur les gros PDF. Le nombre de pages n'étant connu qu'à la fin de
+ * l'analyse, la taille en tient lieu. Le Retry-After renvoyé par le service
+ * est respecté par défaut : l'intervalle calculé n'en est qu'un minimum.
+ *
+ * Pour chaque analyse sont enregistrées la durée côté service
+ * (lastUpdatedOn - createdOn de l'opération), la latence observée depuis la
+ * soumission et leur écart, qui mesure le retard dû au polling ; le tag size
+ * (small, medium, large) permet de régler la cadence par classe de taille.
+ */
+@Component
+public class AnalysisPoller {
+
+    private static final long MB = 1024L * 1024L;
+
+    private final PipelineMetrics metrics;
+    private final MeterRegistry registry;
+
+    /**
+     * Délai avant le premier poll, hors part proportionnelle à la taille.
+     */
+    @Value("${app.analysis.polling.initial-interval-ms:250}")
+    private long initialIntervalMs;
+
+    /**
+     * Délai ajouté au premier poll par Mo de fichier.
+     */
+    @Value("${app.analysis.polling.initial-interval-per-mb-ms:250}")
+    private long initialIntervalPerMbMs;
+
+    /**
+     * Intervalle maximal entre deux polls.
+     */
+    @Value("${app.analysis.polling.max-interval-ms:5000}")
+    private long maxIntervalMs;
+
+    /**
+     * Facteur d'augmentation de l'intervalle après chaque poll.
+     */
+    @Value("${app.analysis.polling.multiplier:1.5}")
+    private double multiplier;
+
+    /**
+     * Si vrai (par défaut), l'attente n'est jamais inférieure au Retry-After
+     * renvoyé par le service. À désactiver seulement si le service annonce une
+     * valeur fixe trop longue pour les petits documents.
+     */
+    @Value("${app.analysis.polling.honor-retry-after:true}")
+    private boolean honorRetryAfter;
+
+    public AnalysisPoller(PipelineMetrics metrics, MeterRegistry registry) {
+        this.metrics = metrics;
+        this.registry = registry;
+    }
+
+    /**
+     * Polle l'opération jusqu'à son terme et renvoie son résultat.
+     *
+     * @param poller      poller renvoyé par beginAnalyzeDocument
+     * @param sizeBytes   taille du fichier analysé
+     * @param submittedAt instant de la soumission (System.nanoTime())
+     * @throws IllegalStateException si l'analyse échoue ou si le thread est interrompu
+     */
+    public AnalyzeResult await(SyncPoller<AnalyzeOperationDetails, AnalyzeResult> poller,
+                               long sizeBytes, long submittedAt) {
+        int polls = 0;
+        long interval = initialInterval(sizeBytes);
+        try {
+            PollResponse<AnalyzeOperationDetails> response = poller.poll();
+            polls++;
+            while (!response.getStatus().isComplete()) {
+                Duration retryAfter = response.getRetryAfter();
+                Thread.sleep(honorRetryAfter && retryAfter != null && retryAfter.toMillis() > interval
+                        ? retryAfter.toMillis() : interval);
+                response = poller.poll();
+                polls++;
+                interval = Math.min(maxIntervalMs, (long) (interval * multiplier));
+            }
+            if (response.getStatus() != LongRunningOperationStatus.SUCCESSFULLY_COMPLETED) {
+                throw new IllegalStateException("Analysis ended with status " + response.getStatus());
+            }
+            recordLatency(response.getValue(), sizeBytes, System.nanoTime() - submittedAt);
+            return poller.getFinalResult();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Analysis interrupted", e);
+        } finally {
+            metrics.recordPolls(polls);
+        }
+    }
+
+    long initialInterval(long sizeBytes) {
+        long perSize = initialIntervalPerMbMs * sizeBytes / MB;
+        return Math.min(maxIntervalMs, initialIntervalMs + perSize);
+    }
+
+    private void recordLatency(AnalyzeOperationDetails details, long sizeBytes, long observedNanos) {
+        String size = sizeBytes < MB ? "small" : sizeBytes < 20 * MB ? "medium" : "large";
+        timer("files.analyze.observed", "Analysis latency observed by the client, from submission", size)
+                .record(observedNanos, TimeUnit.NANOSECONDS);
+        if (details == null || details.getCreatedOn() == null || details.getLastUpdatedOn() == null) {
+            return;
+        }
+        long serviceNanos = Duration.between(details.getCreatedOn(), details.getLastUpdatedOn()).toNanos();
+        timer("files.analyze.service", "Analysis duration reported by the service", size)
+                .record(serviceNanos, TimeUnit.NANOSECONDS);
+        timer("files.analyze.poll.delay", "Time between service completion and its detection", size)
+                .record(Math.max(0, observedNanos - serviceNanos), TimeUnit.NANOSECONDS);
+    }
+
+    private Timer timer(String name, String description, String size) {
+        return Timer.builder(name)
+                .description(description)
+                .tag("size", size)
+                .register(registry);
+    }
+}
@@ -0,0 +1,44 @@
+package com.labels.fileslabelling.services;
+
+/**
+ * Profil d'analyse demandé lors d'un upload : modèle Document Intelligence
+ * utilisé et sorties à mapper dans le FileDocument.
+ *
+ *   READ       : OCR seul (prebuilt-read) ; pages et mots uniquement.
+ *   LAYOUT     : prebuilt-layout ; pages, mots et tables.
+ *   LAYOUT_KVP : prebuilt-layout avec l'option KEY_VALUE_PAIRS ; pages, mots,
+ *                tables et paires clé-valeur (comportement historique).
+ *   CUSTOM     : modèle personnalisé désigné par son identifiant ; toutes les
+ *                sorties renvoyées par le modèle sont mappées.
+ */
+public enum AnalysisProfile {
+    READ("prebuilt-read", false, false),
+    LAYOUT("prebuilt-layout", true, false),
+    LAYOUT_KVP("prebuilt-layout", true, true),
+    CUSTOM(null, true, true);
+
+    private final String modelId;
+    private final boolean tables;
+    private final boolean keyValuePairs;
+
+    AnalysisProfile(String modelId, boolean tables, boolean keyValuePairs) {
+        this.modelId = modelId;
+        this.tables = tables;
+        this.keyValuePairs = keyValuePairs;
+    }
+
+    /** Modèle prédéfini du profil (null pour CUSTOM). */
+    public String getModelId() {
+        return modelId;
+    }
+
+    /** Vrai si les tables sont mappées. */
+    public boolean mapsTables() {
+        return tables;
+    }
+
+    /** Vrai si les paires clé-valeur sont mappées. */
+    public boolean mapsKeyValuePairs() {
+        return keyValuePairs;
+    }
+}
@@ -0,0 +1,260 @@
+package com.labels.fileslabelling.services;
+
+import com.azure.core.exception.HttpResponseException;
+import com.azure.core.http.HttpHeaderName;
+import com.azure.core.http.HttpHeaders;
+import com.azure.core.http.HttpMethod;
+import com.azure.core.http.HttpPipelineCallContext;
+import com.azure.core.http.HttpResponse;
+import com.azure.core.http.policy.HttpPipelinePolicy;
+import com.azure.core.http.policy.HttpPipelineSyncPolicy;
+import jakarta.annotation.PostConstruct;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Contrôle d'admission des soumissions d'analyse vers Document Intelligence.
+ *
+ * Un seau à jetons limite le débit de beginAnalyzeDocument. Le débit s'adapte
+ * aux signaux du service (AIMD) : chaque 429 le divise par deux (au plus une
+ * fois par seconde) et suspend les soumissions pendant le Retry-After
+ * annoncé, chaque succès le remonte progressivement jusqu'au plafond
+ * configuré. Les 429 sont observés sur chaque tentative HTTP grâce à
+ * {@link #throttleObserver()}, branché sur le client.
+ *
+ * Les appelants en attente de jeton forment une file bornée
+ * (app.analysis.rate-limit.max-queue) avec délai maximal
+ * (acquire-timeout-ms) : au-delà, la soumission est refusée par une
+ * {@link TaskRejectedException} plutôt que d'aller grossir la rafale.
+ * Un 429 qui survit aux retries du SDK n'est retenté que dans la limite d'un
+ * budget (retry-budget-ratio retries par succès, max-retries par appel).
+ */
+@Component
+public class AnalysisRateLimiter {
+
+    private static final Logger log = LoggerFactory.getLogger(AnalysisRateLimiter.class);
+
+    private static final HttpHeaderName RETRY_AFTER_MS = HttpHeaderName.fromString("retry-after-ms");
+    private static final Duration DEFAULT_RETRY_AFTER = Duration.ofSeconds(1);
+    private static final long MIN_DECREASE_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final double MAX_RETRY_TOKENS = 10;
+
+    private final double maxRate;
+    private final double minRate;
+    private final double burst;
+    private final int maxQueue;
+    private final long acquireTimeoutNanos;
+    private final int maxRetries;
+    private final double retryBudgetRatio;
+
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final MeterRegistry registry;
+    private final Timer waitTimer;
+    private final Counter throttled;
+
+    // État du seau, protégé par this
+    private double rate;
+    private double tokens;
+    private long refilledAt = System.nanoTime();
+    private long pausedUntil = refilledAt;
+    private long decreasedAt = refilledAt - MIN_DECREASE_INTERVAL_NANOS;
+    private double retryTokens = MAX_RETRY_TOKENS;
+
+    public AnalysisRateLimiter(MeterRegistry registry,
+                               @Value("${app.analysis.rate-limit.requests-per-second:15}") double maxRate,
+                               @Value("${app.analysis.rate-limit.min-requests-per-second:1}") double minRate,
+                               @Value("${app.analysis.rate-limit.burst:15}") double burst,
+                               @Value("${app.analysis.rate-limit.max-queue:100}") int maxQueue,
+                               @Value("${app.analysis.rate-limit.acquire-timeout-ms:30000}") long acquireTimeoutMs,
+                               @Value("${app.analysis.rate-limit.max-retries:2}") int maxRetries,
+                               @Value("${app.analysis.rate-limit.retry-budget-ratio:0.1}") double retryBudgetRatio) {
+        this.registry = registry;
+        this.maxRate = maxRate;
+        this.minRate = Math.min(minRate, maxRate);
+        this.burst = Math.max(burst, 1);
+        this.maxQueue = maxQueue;
+        this.acquireTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(acquireTimeoutMs);
+        this.maxRetries = maxRetries;
+        this.retryBudgetRatio = retryBudgetRatio;
+        this.rate = maxRate;
+        this.tokens = this.burst;
+
+        this.waitTimer = Timer.builder("files.analyze.limiter.wait")
+                .description("Time spent waiting for a rate limiter token")
+                .register(registry);
+        this.throttled = Counter.builder("files.analyze.throttled")
+                .description("429 responses received from Document Intelligence")
+                .register(registry);
+    }
+
+    /**
+     * Publie les jauges de file et de débit une fois le limiteur construit,
+     * la jauge de débit lisant l'état de cette instance.
+     */
+    @PostConstruct
+    void registerGauges() {
+        Gauge.builder("files.analyze.limiter.queue", waiting, AtomicInteger::get)
+                .description("Analysis submissions waiting for a rate limiter token")
+                .register(registry);
+        Gauge.builder("files.analyze.limiter.rate", this, AnalysisRateLimiter::currentRate)
+                .description("Current adaptive analysis submission rate")
+                .baseUnit("requests.per.second")
+                .register(registry);
+    }
+
+    /**
+     * Exécute une soumission d'analyse une fois un jeton obtenu, en la
+     * retentant sur 429 tant que le budget de retries le permet.
+     *
+     * @param call appel à beginAnalyzeDocument
+     * @return le résultat de l'appel
+     * @throws TaskRejectedException si la file d'attente est pleine ou le délai dépassé
+     */
+    public <T> T execute(Supplier<T> call) {
+        for (int attempt = 0; ; attempt++) {
+            acquire();
+            try {
+                T result = call.get();
+                onSuccess();
+                return result;
+            } catch (HttpResponseException e) {
+                if (e.getResponse() == null || e.getResponse().getStatusCode() != 429
+                        || attempt >= maxRetries || !tryConsumeRetry()) {
+                    throw e;
+                }
+                log.debug("Analysis submission throttled, retry {} of {}", attempt + 1, maxRetries);
+            }
+        }
+    }
+
+    /**
+     * Politique HTTP à ajouter au client Document Intelligence : signale au
+     * limiteur chaque 429 reçu sur une soumission (POST), y compris ceux
+     * absorbés par les retries du SDK.
+     */
+    public HttpPipelinePolicy throttleObserver() {
+        return new HttpPipelineSyncPolicy() {
+            @Override
+            protected HttpResponse afterReceivedResponse(HttpPipelineCallContext context, HttpResponse response) {
+                if (response.getStatusCode() == 429 && context.getHttpRequest().getHttpMethod() == HttpMethod.POST) {
+                    onThrottled(retryAfter(response.getHeaders()));
+                }
+                return response;
+            }
+        };
+    }
+
+    /**
+     * Prend un jeton, en attendant si nécessaire dans la limite du délai.
+     */
+    private void acquire() {
+        if (waiting.incrementAndGet() > maxQueue) {
+            waiting.decrementAndGet();
+            reject("queue_full");
+        }
+        long start = System.nanoTime();
+        try {
+            long deadline = start + acquireTimeoutNanos;
+            while (true) {
+                long now = System.nanoTime();
+                long waitNanos;
+                synchronized (this) {
+                    refill(now);
+                    if (now >= pausedUntil && tokens >= 1) {
+                        tokens -= 1;
+                        return;
+                    }
+                    waitNanos = Math.max(pausedUntil - now, (long) ((1 - tokens) / rate * 1e9));
+                }
+                if (now + waitNanos > deadline) {
+                    reject("timeout");
+                }
+                Thread.sleep(Duration.ofNanos(Math.max(waitNanos, 1_000_000)));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for an analysis slot", e);
+        } finally {
+            waiting.decrementAndGet();
+            waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void refill(long now) {
+        tokens = Math.min(burst, tokens + (now - refilledAt) / 1e9 * rate);
+        refilledAt = now;
+    }
+
+    private synchronized void onSuccess() {
+        rate = Math.min(maxRate, rate + maxRate / 20);
+        retryTokens = Math.min(MAX_RETRY_TOKENS, retryTokens + retryBudgetRatio);
+    }
+
+    /**
+     * Signale un 429 : réduit le débit et suspend les soumissions
+     * pendant retryAfter.
+     */
+    public synchronized void onThrottled(Duration retryAfter) {
+        throttled.increment();
+        long now = System.nanoTime();
+        refill(now);
+        if (now - decreasedAt >= MIN_DECREASE_INTERVAL_NANOS) {
+            rate = Math.max(minRate, rate / 2);
+            decreasedAt = now;
+        }
+        tokens = 0;
+        pausedUntil = Math.max(pausedUntil, now + retryAfter.toNanos());
+    }
+
+    private synchronized boolean tryConsumeRetry() {
+        if (retryTokens < 1) {
+            return false;
+        }
+        retryTokens -= 1;
+        return true;
+    }
+
+    private synchronized double currentRate() {
+        return rate;
+    }
+
+    private void reject(String reason) {
+        Counter.builder("files.analyze.limiter.rejected")
+                .description("Analysis submissions refused by the rate limiter")
+                .tag("reason", reason)
+                .register(registry)
+                .increment();
+        throw new TaskRejectedException("Document Intelligence submission refused (" + reason + ")");
+    }
+
+    /**
+     * Lit retry-after-ms ou Retry-After (en secondes) ; 1 s par défaut.
+     */
+    static Duration retryAfter(HttpHeaders headers) {
+        try {
+            String millis = headers.getValue(RETRY_AFTER_MS);
+            if (millis != null) {
+                return Duration.ofMillis(Long.parseLong(millis.trim()));
+            }
+            String seconds = headers.getValue(HttpHeaderName.RETRY_AFTER);
+            if (seconds != null) {
+                return Duration.ofSeconds(Long.parseLong(seconds.trim()));
+            }
+        } catch (NumberFormatException e) {
+            // Retry-After au format date HTTP : valeur par défaut
+        }
+        return DEFAULT_RETRY_AFTER;
+    }
+}
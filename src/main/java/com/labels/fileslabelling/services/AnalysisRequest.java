@@ -0,0 +1,71 @@
+package com.labels.fileslabelling.services;
+
+import java.util.regex.Pattern;
+
+/**
+ * Paramètres d'analyse d'un upload.
+ *
+ * @param profile       profil d'analyse (null pour le profil par défaut, app.analysis.profile)
+ * @param customModelId identifiant du modèle, requis pour le profil CUSTOM
+ * @param pages         pages à analyser (ex. « 1-3,5 »), null pour tout le document
+ */
+public record AnalysisRequest(AnalysisProfile profile, String customModelId, String pages) {
+
+    private static final Pattern PAGES = Pattern.compile("\\d+(-\\d+)?(,\\d+(-\\d+)?)*");
+
+    /** Profil par défaut, document entier. */
+    public static final AnalysisRequest DEFAULT = new AnalysisRequest(null, null, null);
+
+    /**
+     * Valide et normalise les paramètres reçus de l'API.
+     *
+     * @throws IllegalArgumentException si le modèle manque pour CUSTOM ou si les pages sont mal formées
+     *         (page 0, plage décroissante comme « 5-3 »)
+     */
+    public static AnalysisRequest of(AnalysisProfile profile, String customModelId, String pages) {
+        String modelId = customModelId != null && !customModelId.isBlank() ? customModelId.trim() : null;
+        if (profile == AnalysisProfile.CUSTOM && modelId == null) {
+            throw new IllegalArgumentException("modelId is required for the CUSTOM profile");
+        }
+        if (profile != AnalysisProfile.CUSTOM && modelId != null) {
+            throw new IllegalArgumentException("modelId is only allowed with the CUSTOM profile");
+        }
+        String range = pages != null && !pages.isBlank() ? pages.replace(" ", "") : null;
+        if (range != null) {
+            if (!PAGES.matcher(range).matches()) {
+                throw new IllegalArgumentException("Invalid page range: " + pages);
+            }
+            for (String part : range.split(",")) {
+                String[] bounds = part.split("-");
+                int from = Integer.parseInt(bounds[0]);
+                int to = bounds.length == 1 ? from : Integer.parseInt(bounds[1]);
+                if (from < 1 || to < from) {
+                    throw new IllegalArgumentException("Invalid page range: " + pages);
+                }
+            }
+        }
+        return new AnalysisRequest(profile, modelId, range);
+    }
+
+    /**
+     * Complète le profil par défaut si aucun n'a été demandé.
+     */
+    public AnalysisRequest withDefaultProfile(AnalysisProfile defaultProfile) {
+        return profile != null ? this : new AnalysisRequest(defaultProfile, customModelId, pages);
+    }
+
+    /** Modèle Document Intelligence à appeler. */
+    public String modelId() {
+        return profile == AnalysisProfile.CUSTOM ? customModelId : profile.getModelId();
+    }
+
+    /**
+     * Clé identifiant le résultat d'analyse obtenu (profil, modèle, pages),
+     * enregistrée dans FileDocument.analysisProfile et utilisée pour la
+     * déduplication : seuls des résultats de même clé sont réutilisés.
+     */
+    public String key() {
+        String key = profile == AnalysisProfile.CUSTOM ? profile.name() + ":" + customModelId : profile.name();
+        return pages != null ? key + "@" + pages : key;
+    }
+}
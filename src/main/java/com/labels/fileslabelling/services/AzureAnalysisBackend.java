@@ -0,0 +1,30 @@
+package com.labels.fileslabelling.services;
+
+import com.azure.ai.documentintelligence.DocumentIntelligenceClient;
+import com.azure.ai.documentintelligence.models.AnalyzeDocumentOptions;
+import com.azure.ai.documentintelligence.models.AnalyzeOperationDetails;
+import com.azure.ai.documentintelligence.models.AnalyzeResult;
+import com.azure.core.util.polling.SyncPoller;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Analyse via Azure Document Intelligence. Les 429 sont signalés au limiteur
+ * par la politique HTTP ajoutée au client (DocumentIntelligenceConfig).
+ */
+@Component
+@ConditionalOnProperty(name = "app.analysis.backend", havingValue = "azure", matchIfMissing = true)
+public class AzureAnalysisBackend implements AnalysisBackend {
+
+    private final DocumentIntelligenceClient docClient;
+
+    public AzureAnalysisBackend(DocumentIntelligenceClient docClient) {
+        this.docClient = docClient;
+    }
+
+    @Override
+    public SyncPoller<AnalyzeOperationDetails, AnalyzeResult> beginAnalyze(String modelId,
+                                                                           AnalyzeDocumentOptions options) {
+        return docClient.beginAnalyzeDocument(modelId, options);
+    }
+}
@@ -0,0 +1,297 @@
+package com.labels.fileslabelling.services;
+
+import com.labels.fileslabelling.models.BatchItemResult;
+import com.labels.fileslabelling.models.FileDocument;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Service d'upload par lot :
+ *   • Accepte plusieurs fichiers et/ou des archives zip (chaque entrée est un fichier)
+ *   • Upload et analyse en parallèle, la concurrence étant bornée pour rester
+ *     sous le quota de requêtes Document Intelligence
+ *   • Sauvegarde des FileDocument par insertions groupées
+ *   • Émission du résultat de chaque fichier dès qu'il est persisté
+ */
+@Service
+public class BatchUploadService {
+
+    private static final Logger log = LoggerFactory.getLogger(BatchUploadService.class);
+
+    private final FileService fileService;
+
+    /**
+     * Permis partagés par tous les lots : au plus app.batch.max-concurrency
+     * fichiers uploadés et analysés simultanément, quel que soit le nombre de
+     * lots reçus en parallèle.
+     */
+    private final Semaphore permits;
+
+    /**
+     * Nombre de FileDocument regroupés dans une même insertion.
+     */
+    @Value("${app.batch.save-chunk-size:10}")
+    private int saveChunkSize;
+
+    /**
+     * Délai maximal (en ms) pendant lequel un document analysé attend d'être
+     * persisté avec d'autres ; au-delà, le paquet incomplet est inséré.
+     */
+    @Value("${app.batch.save-max-delay-ms:500}")
+    private long saveMaxDelayMs;
+
+    /**
+     * Nombre maximal de fichiers (entrées zip comprises) acceptés par lot.
+     */
+    @Value("${app.batch.max-files:500}")
+    private int maxFiles;
+
+    public BatchUploadService(FileService fileService,
+                              @Value("${app.batch.max-concurrency:4}") int maxConcurrency) {
+        this.fileService = fileService;
+        this.permits = new Semaphore(maxConcurrency);
+    }
+
+    /**
+     * Traite un lot de fichiers. Les fichiers sont uploadés et analysés sur
+     * des threads virtuels, au plus app.batch.max-concurrency à la fois tous
+     * lots confondus. Le sink est appelé (depuis plusieurs threads) pour chaque
+     * fichier, dans l'ordre de fin de traitement, au plus saveMaxDelayMs après
+     * la fin de son analyse ; la méthode rend la main quand tout est traité.
+     *
+     * @param files  fichiers reçus ; les archives .zip sont dépliées
+     * @param policy   politique de déduplication (null pour la politique par défaut)
+     * @param analysis profil, modèle et pages à analyser, communs à tout le lot
+     * @param sink     consommateur des résultats individuels
+     */
+    public void process(List<MultipartFile> files, DeduplicationPolicy policy, AnalysisRequest analysis,
+                        Consumer<BatchItemResult> sink) {
+        BulkSaver saver = new BulkSaver(sink);
+        int accepted = 0;
+
+        ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofVirtual().name("batch-flush-", 0).factory());
+        flusher.scheduleWithFixedDelay(saver::flushStale, saveMaxDelayMs, saveMaxDelayMs, TimeUnit.MILLISECONDS);
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (MultipartFile file : files) {
+                if (isZip(file)) {
+                    accepted = expandZip(file, accepted, policy, analysis, saver, workers, sink);
+                    continue;
+                }
+                if (++accepted > maxFiles) {
+                    sink.accept(BatchItemResult.failed(file.getOriginalFilename(), "Batch limit reached"));
+                    continue;
+                }
+                workers.submit(() -> {
+                    String name = file.getOriginalFilename();
+                    try {
+                        permits.acquire();
+                        try {
+                            String contentHash = fileService.contentHash(file);
+                            Optional<FileDocument> duplicate = fileService.resolveDuplicate(name, contentHash,
+                                    policy, analysis);
+                            if (duplicate.isPresent()) {
+                                sink.accept(BatchItemResult.of(name, "DUPLICATE", duplicate.get().getId()));
+                            } else {
+                                analyze(name, fileService.storeBlob(file, contentHash), analysis, saver);
+                            }
+                        } finally {
+                            permits.release();
+                        }
+                    } catch (Exception e) {
+                        fail(name, e, sink);
+                    }
+                });
+            }
+        } finally {
+            flusher.shutdownNow();
+        }
+        saver.flush();
+    }
+
+    /**
+     * Déplie une archive zip : chaque entrée est lue en flux et stockée
+     * (séquentiellement, une archive ne se lisant que dans l'ordre), son
+     * empreinte étant calculée pendant l'upload ; sa déduplication et son
+     * analyse sont ensuite confiées aux threads de travail.
+     *
+     * @return le nombre total de fichiers acceptés après cette archive
+     */
+    private int expandZip(MultipartFile file, int accepted, DeduplicationPolicy policy, AnalysisRequest analysis,
+                          BulkSaver saver, ExecutorService workers, Consumer<BatchItemResult> sink) {
+        try (ZipInputStream zip = new ZipInputStream(file.getInputStream())) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                if (entry.isDirectory()) {
+                    continue;
+                }
+                String name = entry.getName().substring(entry.getName().lastIndexOf('/') + 1);
+                if (++accepted > maxFiles) {
+                    sink.accept(BatchItemResult.failed(name, "Batch limit reached"));
+                    continue;
+                }
+                StoredBlob stored;
+                try {
+                    permits.acquire();
+                    try {
+                        stored = fileService.storeBlob(name, StreamUtils.nonClosing(zip), null);
+                    } finally {
+                        permits.release();
+                    }
+                } catch (Exception e) {
+                    fail(name, e, sink);
+                    continue;
+                }
+                workers.submit(() -> {
+                    try {
+                        permits.acquire();
+                        try {
+                            Optional<FileDocument> duplicate = fileService.resolveDuplicate(name, stored, policy,
+                                    analysis);
+                            if (duplicate.isPresent()) {
+                                sink.accept(BatchItemResult.of(name, "DUPLICATE", duplicate.get().getId()));
+                            } else {
+                                analyze(name, stored, analysis, saver);
+                            }
+                        } finally {
+                            permits.release();
+                        }
+                    } catch (Exception e) {
+                        fail(name, e, sink);
+                    }
+                });
+            }
+        } catch (IOException e) {
+            fail(file.getOriginalFilename(), e, sink);
+        }
+        return accepted;
+    }
+
+    /**
+     * Analyse d'un fichier stocké et sans doublon ; le document produit est
+     * confié au BulkSaver pour une insertion groupée. Le blob d'un fichier
+     * dont l'analyse échoue est supprimé.
+     */
+    private void analyze(String name, StoredBlob stored, AnalysisRequest analysis, BulkSaver saver) {
+        FileDocument doc;
+        try {
+            doc = fileService.analyze(name, stored, analysis);
+        } catch (RuntimeException e) {
+            stored.blob().deleteIfExists();
+            throw e;
+        }
+        saver.add(doc, stored);
+    }
+
+    private static void fail(String name, Exception e, Consumer<BatchItemResult> sink) {
+        if (e instanceof InterruptedException) {
+            Thread.currentThread().interrupt();
+        }
+        log.warn("Batch upload failed for {}", name, e);
+        sink.accept(BatchItemResult.failed(name, e.getMessage()));
+    }
+
+    private static boolean isZip(MultipartFile file) {
+        String name = file.getOriginalFilename();
+        return "application/zip".equals(file.getContentType())
+                || (name != null && name.toLowerCase().endsWith(".zip"));
+    }
+
+    /**
+     * Accumule les documents analysés et les insère par paquets de
+     * saveChunkSize, ou plus tôt si le plus ancien attend depuis plus de
+     * saveMaxDelayMs ; les résultats ne sont émis qu'une fois persistés. Les
+     * blobs d'un paquet dont l'insertion échoue sont supprimés, ses pages et
+     * documents déjà insérés l'étant par {@link FileService#insertAll}.
+     */
+    private final class BulkSaver {
+
+        private final Consumer<BatchItemResult> sink;
+        private final List<FileDocument> pending = new ArrayList<>();
+        private final List<StoredBlob> pendingBlobs = new ArrayList<>();
+        private long oldestPendingNanos;
+
+        private BulkSaver(Consumer<BatchItemResult> sink) {
+            this.sink = sink;
+        }
+
+        void add(FileDocument doc, StoredBlob stored) {
+            List<FileDocument> chunk = null;
+            List<StoredBlob> blobs = null;
+            synchronized (this) {
+                if (pending.isEmpty()) {
+                    oldestPendingNanos = System.nanoTime();
+                }
+                pending.add(doc);
+                pendingBlobs.add(stored);
+                if (pending.size() >= saveChunkSize) {
+                    chunk = new ArrayList<>(pending);
+                    blobs = new ArrayList<>(pendingBlobs);
+                    pending.clear();
+                    pendingBlobs.clear();
+                }
+            }
+            if (chunk != null) {
+                insert(chunk, blobs);
+            }
+        }
+
+        /**
+         * Insère le paquet en attente si son plus ancien document attend
+         * depuis plus de saveMaxDelayMs (appelé périodiquement).
+         */
+        void flushStale() {
+            boolean stale;
+            synchronized (this) {
+                stale = !pending.isEmpty()
+                        && System.nanoTime() - oldestPendingNanos >= TimeUnit.MILLISECONDS.toNanos(saveMaxDelayMs);
+            }
+            if (stale) {
+                flush();
+            }
+        }
+
+        void flush() {
+            List<FileDocument> chunk;
+            List<StoredBlob> blobs;
+            synchronized (this) {
+                chunk = new ArrayList<>(pending);
+                blobs = new ArrayList<>(pendingBlobs);
+                pending.clear();
+                pendingBlobs.clear();
+            }
+            if (!chunk.isEmpty()) {
+                insert(chunk, blobs);
+            }
+        }
+
+        private void insert(List<FileDocument> chunk, List<StoredBlob> blobs) {
+            try {
+                fileService.insertAll(chunk);
+            } catch (RuntimeException e) {
+                log.warn("Bulk insert of {} documents failed", chunk.size(), e);
+                blobs.forEach(b -> b.blob().deleteIfExists());
+                chunk.forEach(d -> sink.accept(BatchItemResult.failed(d.getFileName(), e.getMessage())));
+                return;
+            }
+            chunk.forEach(d -> sink.accept(BatchItemResult.of(d.getFileName(), "DONE", d.getId())));
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.labels.fileslabelling.services;
+
+import com.azure.storage.blob.BlobClient;
+import com.azure.storage.blob.models.BlockBlobItem;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stratégie de disponibilité d'un blob après upload.
+ *
+ * 
+ * Un upload Azure Blob Storage est fortement cohérent : lorsque l'appel
+ * renvoie un ETag, le blob est lisible. En mode « trust » (par défaut), la
+ * réponse d'upload suffit et aucune requête supplémentaire n'est émise.
+ * En mode « verify », ou si la réponse ne contient pas d'ETag, l'existence
+ * est vérifiée avec un backoff exponentiel borné ; si le blob n'apparaît
+ * pas après maxAttempts tentatives, une IllegalStateException est levée.
+ * 
+ *
+ * Le temps passé est publié dans le timer « files.upload.readiness »
+ * (tags mode et outcome : trusted, verified, missing).
+ */
+@Component
+public class BlobReadinessChecker {
+
+    /**
+     * Mode de vérification : « trust » ou « verify ».
+     */
+    @Value("${app.storage.readiness.mode:trust}")
+    private String mode;
+
+    /**
+     * Nombre maximal d'appels exists() en mode verify.
+     */
+    @Value("${app.storage.readiness.max-attempts:5}")
+    private int maxAttempts;
+
+    /**
+     * Délai avant la deuxième tentative, doublé à chaque échec.
+     */
+    @Value("${app.storage.readiness.initial-backoff-ms:100}")
+    private long initialBackoffMs;
+
+    /**
+     * Délai maximal entre deux tentatives.
+     */
+    @Value("${app.storage.readiness.max-backoff-ms:2000}")
+    private long maxBackoffMs;
+
+    private final MeterRegistry meterRegistry;
+
+    public BlobReadinessChecker(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * S'assure que le blob est disponible avant de lancer une analyse.
+     *
+     * @param blob     blob venant d'être uploadé
+     * @param uploaded réponse de l'upload (peut être null)
+     * @throws IllegalStateException si le blob reste introuvable
+     * @throws InterruptedException  si le thread est interrompu pendant l'attente
+     */
+    public void awaitReady(BlobClient blob, BlockBlobItem uploaded) throws InterruptedException {
+        long start = System.nanoTime();
+        String outcome = "missing";
+        try {
+            if (!"verify".equalsIgnoreCase(mode) && uploaded != null && uploaded.getETag() != null) {
+                outcome = "trusted";
+                return;
+            }
+            long backoff = initialBackoffMs;
+            for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+                if (blob.exists()) {
+                    outcome = "verified";
+                    return;
+                }
+                if (attempt < maxAttempts) {
+                    Thread.sleep(backoff);
+                    backoff = Math.min(backoff * 2, maxBackoffMs);
+                }
+            }
+            throw new IllegalStateException("Blob " + blob.getBlobName()
+                    + " not available after " + maxAttempts + " attempts");
+        } finally {
+            Timer.builder("files.upload.readiness")
+                    .description("Time spent confirming that an uploaded blob is readable")
+                    .tag("mode", mode.toLowerCase())
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.labels.fileslabelling.services;
+
+/**
+ * Politique appliquée lorsqu'un fichier uploadé a la même empreinte SHA-256
+ * qu'un document déjà analysé.
+ *
+ *   REUSE : le document existant est renvoyé tel quel, sans nouvel upload ni analyse.
+ *   LINK  : un nouveau document est créé (nouvel id, nouveau nom, statut IN_REVIEW)
+ *           en copiant le résultat d'analyse existant et en pointant vers le même blob.
+ *   FORCE : le fichier est stocké et analysé à nouveau.
+ */
+public enum DeduplicationPolicy {
+    REUSE,
+    LINK,
+    FORCE
+}
@@ -0,0 +1,84 @@
+package com.labels.fileslabelling.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.labels.fileslabelling.models.FileDocument;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Cache en mémoire (Caffeine) des FileDocument lus par identifiant.
+ *
+ * 
+ * Les interfaces de relecture interrogent GET /api/files/{id} en boucle ;
+ * le cache évite une lecture en base et une désérialisation à chaque appel.
+ * Chaque entrée est pondérée par la taille de sa sérialisation JSON, et le
+ * cache est borné en octets (app.cache.documents.max-bytes) plutôt qu'en
+ * nombre d'entrées. Les entrées sont invalidées à chaque écriture passant
+ * par FileService et expirent après app.cache.documents.ttl-seconds, ce qui
+ * borne l'obsolescence lorsque plusieurs instances partagent la base.
+ * 
+ *
+ * Les statistiques (hits, misses, évictions, poids) sont publiées dans
+ * Micrometer sous le nom de cache « fileDocuments ».
+ */
+@Component
+public class FileDocumentCache {
+
+    private final Cache<String, FileDocument> cache;
+    private final ObjectMapper objectMapper;
+
+    public FileDocumentCache(ObjectMapper objectMapper,
+                             MeterRegistry meterRegistry,
+                             @Value("${app.cache.documents.max-bytes:67108864}") long maxBytes,
+                             @Value("${app.cache.documents.ttl-seconds:300}") long ttlSeconds) {
+        this.objectMapper = objectMapper;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String id, FileDocument doc) -> weigh(doc))
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "fileDocuments");
+    }
+
+    /**
+     * Lit un document dans le cache, ou le charge via loader en cas d'absence.
+     * Un document introuvable n'est pas mis en cache.
+     *
+     * @param id     identifiant du document
+     * @param loader lecture en base
+     * @return Optional vide si le document n'existe pas
+     */
+    public Optional<FileDocument> get(String id, Function<String, Optional<FileDocument>> loader) {
+        return Optional.ofNullable(cache.get(id, key -> loader.apply(key).orElse(null)));
+    }
+
+    /**
+     * Retire un document du cache après une modification.
+     *
+     * @param id identifiant du document modifié
+     */
+    public void invalidate(String id) {
+        cache.invalidate(id);
+    }
+
+    /**
+     * Poids d'une entrée : taille en octets de sa représentation JSON.
+     */
+    private int weigh(FileDocument doc) {
+        try {
+            return objectMapper.writeValueAsBytes(doc).length;
+        } catch (JsonProcessingException e) {
+            return Integer.MAX_VALUE;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.labels.fileslabelling.services;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Partie d'un FileDocument à renvoyer au client (représentation creuse).
+ *
+ * @param fields       propriétés de premier niveau à écrire (id, et pages si des
+ *                     pages sont demandées, sont toujours écrits), null pour toutes
+ * @param pageRanges   plages de pages [début, fin] (incluses) à joindre au document,
+ *                     disjointes et croissantes, null pour ne pas les joindre
+ * @param includeWords false pour omettre les mots des pages
+ */
+public record FileDocumentView(Set<String> fields, List<int[]> pageRanges, boolean includeWords) {
+
+    private static final Pattern PAGES = Pattern.compile("\\d+(-\\d*)?(,\\d+(-\\d*)?)*");
+
+    /**
+     * Valide les paramètres reçus de l'API.
+     *
+     * @param fields  propriétés séparées par des virgules (ex. « status,keyValuePairs »)
+     * @param pages   pages à joindre (ex. « 3-5 », « 1,4- »), ou null ; les plages
+     *                qui se chevauchent ou se touchent sont fusionnées et triées,
+     *                chaque page n'étant envoyée qu'une fois, dans l'ordre
+     * @param include options séparées par des virgules (ex. « words=false »), ou null
+     * @throws IllegalArgumentException si les pages ou les options sont mal formées
+     */
+    public static FileDocumentView of(String fields, String pages, String include) {
+        Set<String> selected = null;
+        if (fields != null && !fields.isBlank()) {
+            selected = new LinkedHashSet<>();
+            for (String field : fields.split(",")) {
+                if (!field.isBlank()) {
+                    selected.add(field.trim());
+                }
+            }
+            selected.add("id");
+        }
+
+        List<int[]> ranges = null;
+        if (pages != null && !pages.isBlank()) {
+            String range = pages.replace(" ", "");
+            if (!PAGES.matcher(range).matches()) {
+                throw new IllegalArgumentException("Invalid page range: " + pages);
+            }
+            ranges = new ArrayList<>();
+            for (String part : range.split(",")) {
+                String[] bounds = part.split("-", -1);
+                int from = Integer.parseInt(bounds[0]);
+                int to = bounds.length == 1 ? from
+                        : bounds[1].isEmpty() ? Integer.MAX_VALUE : Integer.parseInt(bounds[1]);
+                if (from < 1 || to < from) {
+                    throw new IllegalArgumentException("Invalid page range: " + pages);
+                }
+                ranges.add(new int[]{from, to});
+            }
+            ranges = merge(ranges);
+        }
+
+        if (selected != null && ranges != null) {
+            selected.add("pages");
+        }
+
+        boolean words = true;
+        if (include != null && !include.isBlank()) {
+            for (String option : include.split(",")) {
+                String[] parts = option.trim().split("=", 2);
+                if (!parts[0].equals("words")) {
+                    throw new IllegalArgumentException("Unknown include option: " + option);
+                }
+                if (parts.length == 1 || parts[1].equals("true")) {
+                    words = true;
+                } else if (parts[1].equals("false")) {
+                    words = false;
+                } else {
+                    throw new IllegalArgumentException("Invalid include option: " + option);
+                }
+            }
+        }
+        return new FileDocumentView(selected, ranges, words);
+    }
+
+    /**
+     * Trie les plages par début et fusionne celles qui se chevauchent ou se
+     * suivent (« 1-5,3-4 » et « 5,1-4 » donnent toutes deux [1, 5]).
+     */
+    private static List<int[]> merge(List<int[]> ranges) {
+        ranges.sort((a, b) -> Integer.compare(a[0], b[0]));
+        List<int[]> merged = new ArrayList<>(ranges.size());
+        for (int[] range : ranges) {
+            int[] last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+            if (last != null && (long) range[0] <= (long) last[1] + 1) {
+                last[1] = Math.max(last[1], range[1]);
+            } else {
+                merged.add(range);
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Indique si une propriété de premier niveau doit être écrite.
+     */
+    public boolean includes(String property) {
+        return fields == null || fields.contains(property);
+    }
+
+    /**
+     * Indique si un numéro de page fait partie des plages demandées.
+     */
+    public boolean includesPage(int pageNumber) {
+        return pageRanges != null
+                && pageRanges.stream().anyMatch(r -> pageNumber >= r[0] && pageNumber <= r[1]);
+    }
+}
@@ -0,0 +1,300 @@
+package com.labels.fileslabelling.services;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import com.google.protobuf.CodedOutputStream;
+import com.labels.fileslabelling.mappers.DocumentProtobuf;
+import com.labels.fileslabelling.models.DocumentPage;
+import com.labels.fileslabelling.models.FileDocument;
+import com.labels.fileslabelling.models.PageChunk;
+import com.labels.fileslabelling.repositories.PageChunkRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.FilterOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Écriture en flux d'un FileDocument dans une réponse HTTP, limitée à la
+ * vue demandée ({@link FileDocumentView}).
+ *
+ * Le document est écrit propriété par propriété avec un JsonGenerator
+ * Jackson, directement dans le flux de sortie, sans construire le corps en
+ * mémoire : chaque valeur est sérialisée par l'ObjectMapper de
+ * l'application, le JSON obtenu est donc identique à celui d'une réponse
+ * classique. Les pages demandées sont lues une à une depuis « file_pages »
+ * et écrites au fur et à mesure ; la mémoire utilisée ne dépend pas du
+ * nombre de pages. Les premières propriétés sont envoyées avant la lecture
+ * des pages.
+ *
+ * Le même document peut être écrit au format Protocol Buffers
+ * ({@link DocumentProtobuf}) lorsque le client le demande explicitement
+ * (Accept: application/x-protobuf), avec la même sélection de propriétés
+ * et la même lecture des pages en flux.
+ *
+ * La réponse est compressée en gzip lorsque le client l'accepte
+ * (app.http.gzip.enabled) ; le flux compressé est vidé en même temps que
+ * le générateur. Les octets effectivement envoyés sont comptés et publiés
+ * par {@link PipelineMetrics#recordResponse}.
+ */
+@Component
+public class FileDocumentWriter {
+
+    public static final MediaType PROTOBUF = MediaType.parseMediaType(DocumentProtobuf.MEDIA_TYPE);
+
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter valueWriter;
+    private final PageChunkRepository pageRepo;
+    private final List<BeanPropertyDefinition> properties;
+    private final boolean skipNulls;
+    private final PipelineMetrics metrics;
+
+    /**
+     * Compression gzip des documents lorsque le client l'accepte.
+     */
+    @Value("${app.http.gzip.enabled:true}")
+    private boolean gzipEnabled;
+
+    public FileDocumentWriter(ObjectMapper objectMapper, PageChunkRepository pageRepo, PipelineMetrics metrics) {
+        this.objectMapper = objectMapper;
+        this.metrics = metrics;
+        this.valueWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.pageRepo = pageRepo;
+        this.properties = objectMapper.getSerializationConfig()
+                .introspect(objectMapper.constructType(FileDocument.class))
+                .findProperties().stream()
+                .filter(BeanPropertyDefinition::couldSerialize)
+                .toList();
+        JsonInclude.Include inclusion = objectMapper.getSerializationConfig()
+                .getDefaultPropertyInclusion().getValueInclusion();
+        this.skipNulls = inclusion == JsonInclude.Include.NON_NULL
+                || inclusion == JsonInclude.Include.NON_ABSENT
+                || inclusion == JsonInclude.Include.NON_EMPTY;
+    }
+
+    /**
+     * Indique si la réponse peut être compressée en gzip pour ce client.
+     *
+     * @param acceptEncoding en-tête Accept-Encoding de la requête (optionnel)
+     */
+    public boolean gzip(String acceptEncoding) {
+        if (!gzipEnabled || acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length == 1 || !parts[1].trim().replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Choisit le format de la réponse, comme la négociation de Spring MVC :
+     * qualité la plus élevée, puis type le plus précis, puis ordre de
+     * l'en-tête. Protocol Buffers n'est retenu que s'il est demandé
+     * explicitement ; sans en-tête Accept ou avec « * / * », la réponse est
+     * en JSON.
+     *
+     * @param accept en-tête Accept de la requête (optionnel)
+     */
+    public MediaType contentType(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return MediaType.APPLICATION_JSON;
+        }
+        List<MediaType> types;
+        try {
+            types = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            return MediaType.APPLICATION_JSON;
+        }
+        MediaType json = null;
+        MediaType protobuf = null;
+        for (MediaType type : types) {
+            if (type.isCompatibleWith(MediaType.APPLICATION_JSON) && (json == null
+                    || type.getQualityValue() > json.getQualityValue()
+                    || type.getQualityValue() == json.getQualityValue() && json.isWildcardSubtype()
+                    && !type.isWildcardSubtype())) {
+                json = type;
+            }
+            if (PROTOBUF.equalsTypeAndSubtype(type) && (protobuf == null
+                    || type.getQualityValue() > protobuf.getQualityValue())) {
+                protobuf = type;
+            }
+        }
+        if (protobuf == null || protobuf.getQualityValue() == 0) {
+            return MediaType.APPLICATION_JSON;
+        }
+        if (json == null || protobuf.getQualityValue() != json.getQualityValue()) {
+            return json == null || protobuf.getQualityValue() > json.getQualityValue()
+                    ? PROTOBUF : MediaType.APPLICATION_JSON;
+        }
+        return json.isWildcardSubtype() || types.indexOf(protobuf) < types.indexOf(json)
+                ? PROTOBUF : MediaType.APPLICATION_JSON;
+    }
+
+    /**
+     * Écrit la vue demandée du document.
+     *
+     * @param doc         document à écrire
+     * @param view        propriétés et pages à inclure
+     * @param contentType format de la réponse (JSON ou {@link #PROTOBUF})
+     * @param out         flux de la réponse (non fermé par cette méthode)
+     * @param gzip        true pour compresser en gzip
+     * @throws IOException si l'écriture échoue
+     */
+    public void write(FileDocument doc, FileDocumentView view, MediaType contentType, OutputStream out, boolean gzip)
+            throws IOException {
+        CountingOutputStream counting = new CountingOutputStream(out);
+        GZIPOutputStream compressed = gzip ? new GZIPOutputStream(counting, 8192, true) : null;
+        OutputStream target = compressed != null ? compressed : counting;
+        boolean protobuf = PROTOBUF.equalsTypeAndSubtype(contentType);
+        if (protobuf) {
+            writeProtobuf(doc, view, target);
+        } else {
+            writeJson(doc, view, target);
+        }
+        if (compressed != null) {
+            compressed.finish();
+        }
+        metrics.recordResponse(counting.count, protobuf);
+    }
+
+    private void writeJson(FileDocument doc, FileDocumentView view, OutputStream out) throws IOException {
+        try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartObject();
+            for (BeanPropertyDefinition property : properties) {
+                String name = property.getName();
+                if (!view.includes(name)) {
+                    continue;
+                }
+                if (name.equals("pages")) {
+                    if (view.pageRanges() == null && doc.getPages() == null) {
+                        if (!skipNulls) {
+                            generator.writeNullField("pages");
+                        }
+                        continue;
+                    }
+                    generator.writeArrayFieldStart("pages");
+                    forEachPage(doc, view, generator, page -> valueWriter.writeValue(generator, page));
+                    generator.writeEndArray();
+                    continue;
+                }
+                Object value = property.getAccessor().getValue(doc);
+                if (value == null && skipNulls) {
+                    continue;
+                }
+                generator.writeFieldName(name);
+                valueWriter.writeValue(generator, value);
+            }
+            generator.writeEndObject();
+        }
+    }
+
+    /**
+     * Les champs d'un message protobuf pouvant arriver dans n'importe quel
+     * ordre, les pages sont écrites en dernier, après les paires et tables.
+     */
+    private void writeProtobuf(FileDocument doc, FileDocumentView view, OutputStream out) throws IOException {
+        CodedOutputStream coded = CodedOutputStream.newInstance(out, 8192);
+        DocumentProtobuf.writeFileDocument(coded, doc, name -> !name.equals("pages") && view.includes(name));
+        if (view.includes("pages")) {
+            Flushable flush = () -> {
+                coded.flush();
+                out.flush();
+            };
+            forEachPage(doc, view, flush, page -> DocumentProtobuf.writePageField(coded, page));
+        }
+        coded.flush();
+    }
+
+    /**
+     * Parcourt les pages à écrire : celles déjà portées par le document
+     * (documents antérieurs au découpage) ou, si la vue en demande, celles
+     * lues en flux depuis « file_pages » (sur le document d'origine pour un
+     * document lié). Les pages sont privées de leurs mots si la vue l'indique.
+     *
+     * @param beforeRead vidé avant la lecture des pages, pour envoyer
+     *                   l'en-tête du document sans attendre la base
+     */
+    private void forEachPage(FileDocument doc, FileDocumentView view, Flushable beforeRead, PageWriter writer)
+            throws IOException {
+        List<DocumentPage> embedded = doc.getPages();
+        if (embedded != null) {
+            for (DocumentPage page : embedded) {
+                if (view.pageRanges() == null || view.includesPage(page.getPageNumber())) {
+                    writer.write(visible(page, view.includeWords()));
+                }
+            }
+            return;
+        }
+        if (view.pageRanges() == null) {
+            return;
+        }
+        beforeRead.flush();
+        String ownerId = doc.getSourceDocumentId() != null ? doc.getSourceDocumentId() : doc.getId();
+        for (int[] range : view.pageRanges()) {
+            try (Stream<PageChunk> chunks = pageRepo.streamPages(ownerId, range[0], range[1], view.includeWords())) {
+                for (Iterator<PageChunk> it = chunks.iterator(); it.hasNext(); ) {
+                    writer.write(visible(it.next().getPage(), view.includeWords()));
+                }
+            }
+        }
+    }
+
+    private static DocumentPage visible(DocumentPage page, boolean includeWords) {
+        if (includeWords || page.getWords() == null) {
+            return page;
+        }
+        DocumentPage withoutWords = new DocumentPage();
+        withoutWords.setPageNumber(page.getPageNumber());
+        withoutWords.setAngle(page.getAngle());
+        withoutWords.setWidth(page.getWidth());
+        withoutWords.setHeight(page.getHeight());
+        withoutWords.setUnit(page.getUnit());
+        return withoutWords;
+    }
+
+    @FunctionalInterface
+    private interface PageWriter {
+        void write(DocumentPage page) throws IOException;
+    }
+
+    /**
+     * Compte les octets transmis au flux de la réponse.
+     */
+    private static final class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        private CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
@@ -2,292 +2,797 @@ package com.labels.fileslabelling.services;
 
 import com.azure.storage.blob.BlobClient;
 import com.azure.storage.blob.BlobContainerClient;
-import com.azure.ai.documentintelligence.DocumentIntelligenceClient;
+import com.azure.storage.blob.models.BlobHttpHeaders;
+import com.azure.storage.blob.models.BlockBlobItem;
+import com.azure.storage.blob.models.ParallelTransferOptions;
+import com.azure.storage.blob.options.BlobParallelUploadOptions;
 import com.azure.ai.documentintelligence.models.*;
 import com.azure.core.util.polling.SyncPoller;
+import com.labels.fileslabelling.mappers.AnalyzeResultMapper;
 import com.labels.fileslabelling.models.*;
-import com.labels.fileslabelling.models.BoundingRegion;
 import com.labels.fileslabelling.models.DocumentPage;
 import com.labels.fileslabelling.models.DocumentTable;
 import com.labels.fileslabelling.models.DocumentTableCell;
 import com.labels.fileslabelling.models.DocumentWord;
 import com.labels.fileslabelling.repositories.FileDocumentRepository;
+import com.labels.fileslabelling.repositories.PageChunkRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.stream.Stream;
 
 /**
  * Service central pour le traitement des fichiers :
+ *   • Déduplication par empreinte SHA-256 du contenu
  *   • Upload vers Azure Blob Storage
- *   • Analyse via Azure Document Intelligence (OCR, tables, paires clé-valeur)
- *   • Transformation des résultats SDK en nos modèles métier
- *   • Persistance dans Cosmos DB via FileDocumentRepository
+ *   • Analyse via Azure Document Intelligence (OCR, tables, paires clé-valeur),
+ *     derrière AnalysisBackend, soumissions régulées par AnalysisRateLimiter
+ *   • Transformation des résultats SDK en nos modèles métier (AnalyzeResultMapper)
+ *   • Persistance dans Cosmos DB via FileDocumentRepository, les pages étant
+ *     stockées à part (une entrée par page) via PageChunkRepository
+ *   • Indexation plein texte de chaque document sauvegardé ou modifié (SearchIndex)
+ *     et normalisation des clés des paires (KeyNormalizer)
+ * Chaque étape est mesurée via {@link PipelineMetrics}.
  */
 @Service
 public class FileService {
 
+    private static final Logger log = LoggerFactory.getLogger(FileService.class);
+
+    private static final long MB = 1024L * 1024L;
+
+    /**
+     * Threads virtuels des uploads lancés en parallèle d'une analyse en ligne,
+     * numérotés blob-upload-0, blob-upload-1… (fabrique partagée, sûre en
+     * accès concurrent).
+     */
+    private static final ThreadFactory UPLOAD_THREADS = Thread.ofVirtual().name("blob-upload-", 0).factory();
+
     private final BlobContainerClient blobContainerClient;
     private final FileDocumentRepository docRepo;
-    private final DocumentIntelligenceClient docClient;
+    private final PageChunkRepository pageRepo;
+    private final AnalysisBackend analysisBackend;
+    private final BlobReadinessChecker readinessChecker;
+    private final FileDocumentCache documentCache;
+    private final AnalyzeResultMapper mapper;
+    private final PipelineMetrics metrics;
+    private final AnalysisRateLimiter rateLimiter;
+    private final AnalysisPoller analysisPoller;
+    private final SearchIndex searchIndex;
+    private final PageSpatialIndexCache spatialIndexes;
+    private final KeyNormalizer keyNormalizer;
+
+    /**
+     * Politique de déduplication appliquée lorsque l'appelant n'en précise pas.
+     */
+    @Value("${app.dedup.policy:REUSE}")
+    private DeduplicationPolicy defaultDedupPolicy;
+
+    /**
+     * Profil d'analyse appliqué lorsque l'appelant n'en précise pas.
+     */
+    @Value("${app.analysis.profile:LAYOUT_KVP}")
+    private AnalysisProfile defaultAnalysisProfile;
+
+    /**
+     * Taille (en Mo) des blocs envoyés lors d'un upload ; les fichiers plus
+     * petits sont envoyés en une seule requête.
+     */
+    @Value("${app.storage.upload.block-size-mb:8}")
+    private long uploadBlockSizeMb;
+
+    /**
+     * Nombre de blocs envoyés en parallèle lors d'un upload.
+     */
+    @Value("${app.storage.upload.max-concurrency:4}")
+    private int uploadMaxConcurrency;
+
+    /**
+     * Taille maximale (en octets) d'un fichier dont le contenu est envoyé
+     * directement à Document Intelligence, en parallèle de l'upload Blob,
+     * lors d'un traitement synchrone ; 0 pour toujours passer par l'URL du blob.
+     */
+    @Value("${app.analysis.inline.max-bytes:4194304}")
+    private int inlineMaxBytes;
 
     public FileService(BlobContainerClient blobContainerClient,
                        FileDocumentRepository docRepo,
-                       DocumentIntelligenceClient docClient) {
+                       PageChunkRepository pageRepo,
+                       AnalysisBackend analysisBackend,
+                       BlobReadinessChecker readinessChecker,
+                       FileDocumentCache documentCache,
+                       AnalyzeResultMapper mapper,
+                       PipelineMetrics metrics,
+                       AnalysisRateLimiter rateLimiter,
+                       AnalysisPoller analysisPoller,
+                       SearchIndex searchIndex,
+                       PageSpatialIndexCache spatialIndexes,
+                       KeyNormalizer keyNormalizer) {
         this.blobContainerClient = blobContainerClient;
         this.docRepo = docRepo;
-        this.docClient = docClient;
+        this.pageRepo = pageRepo;
+        this.analysisBackend = analysisBackend;
+        this.readinessChecker = readinessChecker;
+        this.documentCache = documentCache;
+        this.mapper = mapper;
+        this.metrics = metrics;
+        this.rateLimiter = rateLimiter;
+        this.analysisPoller = analysisPoller;
+        this.searchIndex = searchIndex;
+        this.spatialIndexes = spatialIndexes;
+        this.keyNormalizer = keyNormalizer;
     }
 
     /**
-     * Polling simple pour s'assurer que le blob est disponible
-     * avant de récupérer son URL ou d'y lancer une analyse.
+     * Liste paginée des documents, limitée aux champs de {@link FileSummary}.
+     *
+     * @param status   filtre optionnel sur le statut
+     * @param from     date de téléversement minimale (incluse), optionnelle
+     * @param to       date de téléversement maximale (exclue), optionnelle
+     * @param pageable page, taille et tri
+     * @return une page de résumés
      */
-    private void waitForBlobAvailability(BlobClient blob) throws InterruptedException {
-        int maxRetries = 10, retries = 0;
-        while (retries < maxRetries && !blob.exists()) {
-            Thread.sleep(500);
-            retries++;
-        }
-        // Si nécessaire, on pourrait lever une exception après maxRetries ici.
+    public Page<FileSummary> listSummaries(String status, Date from, Date to, Pageable pageable) {
+        return docRepo.findSummaries(status, from, to, pageable);
+    }
+
+    /**
+     * Recherche plein texte dans les mots, les paires clé-valeur et les
+     * cellules de tables de tous les documents, via {@link SearchIndex}.
+     *
+     * @param query termes recherchés (tous requis, « * » final pour un préfixe)
+     * @param limit nombre maximal de documents renvoyés
+     * @return Optional vide si la requête ne contient aucun terme
+     */
+    public Optional<List<SearchHit>> search(String query, int limit) {
+        return searchIndex.search(query, limit);
     }
 
-    /** Récupère tous les documents stockés. */
-    public List<FileDocument> findAll() {
-        return docRepo.findAll();
+    /**
+     * Parcourt les paires clé-valeur de tous les documents dont la clé
+     * correspond à key, à la casse, aux accents, à la ponctuation et aux
+     * synonymes configurés près. Le flux est alimenté par un curseur MongoDB
+     * et doit être fermé.
+     *
+     * @param key           clé recherchée (ex. « Invoice Number »)
+     * @param status        filtre optionnel sur le statut du document
+     * @param from          date de téléversement minimale (incluse), optionnelle
+     * @param to            date de téléversement maximale (exclue), optionnelle
+     * @param minConfidence confiance minimale de la paire, optionnelle
+     * @return flux des paires trouvées
+     */
+    public Stream<KeyValueMatch> streamKeyValues(String key, String status, Date from, Date to,
+                                                 Double minConfidence) {
+        return docRepo.streamKeyValues(keyNormalizer.expand(key), status, from, to, minConfidence);
     }
 
     /**
-     * Récupère un document par ID.
+     * Récupère un document par ID, via le cache {@link FileDocumentCache}.
      *
      * @param id identifiant Cosmos DB
      * @return Optional vide si non trouvé
      */
     public Optional<FileDocument> findById(String id) {
-        return docRepo.findById(id);
+        return documentCache.get(id, docRepo::findById);
     }
 
     /**
-     * 1) Upload du fichier dans Azure Blob Storage
-     * 2) Lancement d'une analyse « layout + key-value pairs + tables »
-     * 3) Mapping des pages, mots, paires clé-valeur et tables
-     * 4) Persistance du résultat dans Cosmos DB avec statut IN_REVIEW
+     * Récupère une page d'un document. Pour un document lié (déduplication
+     * LINK), la page est lue sur le document d'origine ; pour un document
+     * enregistré avant le découpage en pages, elle est lue dans le document.
      *
-     * @param file MultipartFile reçu du contrôleur
-     * @return FileDocument enrichi et sauvegardé
+     * @param id         identifiant du document
+     * @param pageNumber numéro de page (1-indexé)
+     * @return Optional vide si le document ou la page n'existe pas
+     */
+    public Optional<DocumentPage> findPage(String id, int pageNumber) {
+        return findById(id).flatMap(doc -> {
+            String ownerId = doc.getSourceDocumentId() != null ? doc.getSourceDocumentId() : doc.getId();
+            Optional<DocumentPage> page = pageRepo.findById(PageChunk.idOf(ownerId, pageNumber))
+                    .map(PageChunk::getPage);
+            if (page.isPresent()) {
+                return page;
+            }
+            FileDocument owner = ownerId.equals(doc.getId()) ? doc : findById(ownerId).orElse(doc);
+            return Optional.ofNullable(owner.getPages()).orElse(Collections.emptyList()).stream()
+                    .filter(p -> p.getPageNumber() == pageNumber)
+                    .findFirst();
+        });
+    }
+
+    /**
+     * Mots d'une page dont la boîte englobante recoupe un rectangle (ou y est
+     * contenue), dans l'ordre de lecture. S'appuie sur l'index spatial de la
+     * page, construit à la première requête puis mis en cache.
+     *
+     * @param id         identifiant du document
+     * @param pageNumber numéro de page (1-indexé)
+     * @param contained  true pour ne garder que les mots entièrement dans le rectangle
+     * @return Optional vide si le document ou la page n'existe pas
+     */
+    public Optional<List<DocumentWord>> findWordsInBox(String id, int pageNumber,
+                                                       float x0, float y0, float x1, float y1, boolean contained) {
+        return spatialIndex(id, pageNumber).map(index -> index.within(x0, y0, x1, y1, contained));
+    }
+
+    /**
+     * Mots d'une page les plus proches d'un point, du plus proche au plus lointain.
+     *
+     * @param id         identifiant du document
+     * @param pageNumber numéro de page (1-indexé)
+     * @param count      nombre de mots souhaités
+     * @return Optional vide si le document ou la page n'existe pas
+     */
+    public Optional<List<DocumentWord>> findNearestWords(String id, int pageNumber, float x, float y, int count) {
+        return spatialIndex(id, pageNumber).map(index -> index.nearest(x, y, count));
+    }
+
+    private Optional<PageSpatialIndex> spatialIndex(String id, int pageNumber) {
+        return spatialIndexes.get(PageChunk.idOf(id, pageNumber), () -> findPage(id, pageNumber));
+    }
+
+    /**
+     * Persiste un nouveau document : ses pages sont d'abord écrites dans
+     * « file_pages », puis le document racine, allégé, est sauvegardé et indexé.
+     *
+     * @param doc document analysé, pages incluses
+     * @return le document sauvegardé (sans pages, avec pageCount)
+     */
+    public FileDocument persist(FileDocument doc) {
+        return metrics.record(PipelineMetrics.SAVE, () -> {
+            keyNormalizer.annotate(doc.getKeyValuePairs());
+            List<DocumentPage> pages = doc.getPages();
+            List<PageChunk> chunks = detachPages(doc);
+            if (!chunks.isEmpty()) {
+                pageRepo.saveAll(chunks);
+            }
+            FileDocument saved = docRepo.save(doc);
+            documentCache.invalidate(saved.getId());
+            searchIndex.index(saved, pages);
+            return saved;
+        });
+    }
+
+    /**
+     * Insère un groupe de nouveaux documents en deux insertions groupées :
+     * toutes les pages, puis tous les documents racines. Si l'une des deux
+     * échoue, les pages et documents du groupe déjà insérés sont supprimés
+     * avant de propager l'exception : aucune page n'est laissée sans document.
+     *
+     * @param docs documents analysés, pages incluses
+     * @return les documents insérés (sans pages, avec pageCount)
+     */
+    public List<FileDocument> insertAll(List<FileDocument> docs) {
+        return metrics.record(PipelineMetrics.SAVE, () -> {
+            List<PageChunk> chunks = new ArrayList<>();
+            Map<String, List<DocumentPage>> pages = new HashMap<>();
+            for (FileDocument doc : docs) {
+                keyNormalizer.annotate(doc.getKeyValuePairs());
+                pages.put(doc.getId(), doc.getPages());
+                chunks.addAll(detachPages(doc));
+            }
+            List<FileDocument> inserted;
+            try {
+                if (!chunks.isEmpty()) {
+                    pageRepo.insert(chunks);
+                }
+                inserted = docRepo.insert(docs);
+            } catch (RuntimeException e) {
+                rollBackInsert(docs, e);
+                throw e;
+            }
+            for (FileDocument d : inserted) {
+                documentCache.invalidate(d.getId());
+                searchIndex.index(d, pages.get(d.getId()));
+            }
+            return inserted;
+        });
+    }
+
+    /**
+     * Supprime les pages et les documents d'un groupe dont l'insertion a
+     * échoué (une insertion groupée peut s'interrompre après une partie du
+     * groupe).
+     */
+    private void rollBackInsert(List<FileDocument> docs, RuntimeException failure) {
+        List<String> ids = new ArrayList<>(docs.size());
+        try {
+            for (FileDocument doc : docs) {
+                pageRepo.deleteByFileId(doc.getId());
+                ids.add(doc.getId());
+            }
+            docRepo.deleteAllById(ids);
+        } catch (RuntimeException e) {
+            failure.addSuppressed(e);
+        }
+    }
+
+    /**
+     * Retire les pages d'un document pour les stocker séparément
+     * et renseigne pageCount.
+     */
+    private static List<PageChunk> detachPages(FileDocument doc) {
+        List<DocumentPage> pages = doc.getPages();
+        if (pages == null) {
+            return Collections.emptyList();
+        }
+        List<PageChunk> chunks = new ArrayList<>(pages.size());
+        for (DocumentPage page : pages) {
+            chunks.add(PageChunk.of(doc.getId(), page));
+        }
+        doc.setPageCount(pages.size());
+        doc.setPages(null);
+        return chunks;
+    }
+
+    /**
+     * 1) Calcul de l'empreinte SHA-256 du fichier, lu là où Spring l'a déposé
+     * 2) Application de la politique de déduplication, avant tout upload
+     * 3) Upload du fichier dans Azure Blob Storage (flux rouvert)
+     * 4) Lancement de l'analyse selon le profil demandé (par défaut
+     *    « layout + key-value pairs + tables »)
+     * 5) Mapping des sorties demandées (pages et mots, paires clé-valeur, tables)
+     * 6) Persistance du résultat dans Cosmos DB avec statut IN_REVIEW
+     *
+     * Un fichier d'au plus app.analysis.inline.max-bytes octets est soumis
+     * directement à l'analyse pendant que le blob est uploadé.
+     *
+     * @param file     MultipartFile reçu du contrôleur
+     * @param policy   politique de déduplication (null pour la politique par défaut)
+     * @param analysis profil, modèle et pages à analyser
+     * @return FileDocument enrichi et sauvegardé, ou document existant réutilisé
+     */
+    public FileDocument uploadAndAnalyze(MultipartFile file, DeduplicationPolicy policy, AnalysisRequest analysis)
+            throws IOException, InterruptedException {
+        String fileName = file.getOriginalFilename();
+        String contentHash = contentHash(file);
+        Optional<FileDocument> duplicate = resolveDuplicate(fileName, contentHash, policy, analysis);
+        if (duplicate.isPresent()) {
+            return duplicate.get();
+        }
+        if (inlineMaxBytes > 0 && file.getSize() <= inlineMaxBytes) {
+            return ingestInline(fileName, file.getBytes(), contentHash, file.getContentType(), analysis);
+        }
+        return analyzeAndSave(fileName, storeBlob(file, contentHash), analysis);
+    }
+
+    /**
+     * Même traitement que {@link #uploadAndAnalyze} à partir d'un flux brut
+     * (corps de requête non multipart), lu une seule fois.
+     *
+     * Un fichier d'au plus app.analysis.inline.max-bytes octets est lu en
+     * mémoire : la déduplication a lieu avant tout upload, puis son contenu
+     * est soumis directement à l'analyse pendant que le blob est uploadé.
+     * Au-delà, le corps est envoyé en flux vers le blob, l'empreinte étant
+     * calculée pendant le transfert ; la déduplication a lieu après l'upload
+     * et le blob d'un doublon est supprimé.
+     *
+     * @param fileName    nom original du fichier
+     * @param in          contenu du fichier
+     * @param contentType type MIME transmis par le client (optionnel)
+     * @param policy      politique de déduplication (null pour la politique par défaut)
+     * @param analysis    profil, modèle et pages à analyser
+     * @return FileDocument enrichi et sauvegardé, ou document existant réutilisé
+     */
+    public FileDocument ingest(String fileName, InputStream in, String contentType, DeduplicationPolicy policy,
+                               AnalysisRequest analysis) throws IOException, InterruptedException {
+        HashingInputStream hashing = new HashingInputStream(in);
+        InputStream body = hashing;
+        if (inlineMaxBytes > 0) {
+            byte[] head = hashing.readNBytes(inlineMaxBytes + 1);
+            if (head.length <= inlineMaxBytes) {
+                String contentHash = hashing.hexDigest();
+                Optional<FileDocument> duplicate = resolveDuplicate(fileName, contentHash, policy, analysis);
+                if (duplicate.isPresent()) {
+                    return duplicate.get();
+                }
+                return ingestInline(fileName, head, contentHash, contentType, analysis);
+            }
+            // Les octets déjà lus ont été hachés : le reste continue de passer par hashing
+            body = new SequenceInputStream(new ByteArrayInputStream(head), hashing);
+        }
+        StoredBlob stored = storeBlob(fileName, body, hashing, contentType);
+        Optional<FileDocument> duplicate = resolveDuplicate(fileName, stored, policy, analysis);
+        if (duplicate.isPresent()) {
+            return duplicate.get();
+        }
+        return analyzeAndSave(fileName, stored, analysis);
+    }
+
+    /**
+     * Traitement d'un petit fichier déjà en mémoire et sans doublon :
+     * analyse du contenu en ligne et upload du blob en parallèle. Si
+     * l'analyse ou la persistance échoue, l'upload est attendu et le blob
+     * supprimé.
+     */
+    private FileDocument ingestInline(String fileName, byte[] content, String contentHash, String contentType,
+                                      AnalysisRequest analysis) throws InterruptedException {
+        FutureTask<StoredBlob> upload = new FutureTask<>(() -> storeBlob(
+                fileName, new ByteArrayInputStream(content), contentType, contentHash, content.length));
+        UPLOAD_THREADS.newThread(upload).start();
+
+        boolean saved = false;
+        try {
+            FileDocument doc = analyze(new AnalyzeDocumentOptions(content), content.length, analysis);
+            StoredBlob stored;
+            try {
+                stored = upload.get();
+            } catch (ExecutionException e) {
+                log.warn("Blob upload of {} failed after a successful analysis", fileName, e.getCause());
+                if (e.getCause() instanceof RuntimeException re) {
+                    throw re;
+                }
+                throw new IllegalStateException("Blob upload failed", e.getCause());
+            }
+            doc.setFileName(fileName);
+            doc.setAzureUrl(stored.url());
+            doc.setContentHash(contentHash);
+            FileDocument persisted = persist(doc);
+            saved = true;
+            return persisted;
+        } finally {
+            if (!saved) {
+                discard(upload);
+            }
+        }
+    }
+
+    /**
+     * Attend la fin d'un upload lancé en parallèle et supprime le blob
+     * obtenu, devenu inutile.
+     */
+    private static void discard(FutureTask<StoredBlob> upload) {
+        try {
+            upload.get().blob().deleteIfExists();
+        } catch (ExecutionException e) {
+            // L'upload a échoué : aucun blob à supprimer
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.warn("Could not delete an orphan blob", e);
+        }
+    }
+
+    /**
+     * Empreinte SHA-256 d'un fichier multipart, lue directement depuis la
+     * mémoire ou le fichier temporaire où Spring l'a déposé, sans copie.
+     */
+    public String contentHash(MultipartFile file) throws IOException {
+        try (HashingInputStream hashing = new HashingInputStream(file.getInputStream())) {
+            hashing.transferTo(OutputStream.nullOutputStream());
+            return hashing.hexDigest();
+        }
+    }
+
+    /**
+     * Upload d'un fichier multipart déjà haché ({@link #contentHash}) : son
+     * flux est rouvert et envoyé tel quel, sans nouveau calcul d'empreinte.
+     */
+    public StoredBlob storeBlob(MultipartFile file, String contentHash) throws IOException, InterruptedException {
+        try (InputStream in = file.getInputStream()) {
+            return storeBlob(file.getOriginalFilename(), in, file.getContentType(), contentHash, file.getSize());
+        }
+    }
+
+    /**
+     * Upload en une seule passe vers Azure Blob Storage sous un nom unique :
+     * le flux est découpé en blocs envoyés en parallèle (taille et concurrence
+     * configurables), l'empreinte SHA-256 et la taille étant calculées pendant
+     * le transfert. La mémoire utilisée reste bornée à blockSize × concurrence,
+     * quelle que soit la taille du fichier. La disponibilité du blob est
+     * ensuite confirmée via {@link BlobReadinessChecker}.
+     *
+     * @param fileName    nom original du fichier
+     * @param in          contenu du fichier (non fermé par cette méthode)
+     * @param contentType type MIME à enregistrer sur le blob (optionnel)
+     * @return le blob stocké, avec son empreinte et sa taille
+     */
+    public StoredBlob storeBlob(String fileName, InputStream in, String contentType)
+            throws InterruptedException {
+        HashingInputStream hashing = new HashingInputStream(in);
+        return storeBlob(fileName, hashing, hashing, contentType);
+    }
+
+    /**
+     * Upload d'un flux dont l'empreinte est calculée par hashing pendant le
+     * transfert (body lit hashing, éventuellement précédé d'octets déjà hachés).
+     */
+    private StoredBlob storeBlob(String fileName, InputStream body, HashingInputStream hashing, String contentType)
+            throws InterruptedException {
+        BlobClient blob = upload(fileName, body, contentType);
+        metrics.recordUpload(hashing.getByteCount());
+        return new StoredBlob(blob, hashing.hexDigest(), hashing.getByteCount());
+    }
+
+    /**
+     * Upload d'un contenu dont l'empreinte et la taille sont déjà connues.
      */
-    public FileDocument uploadAndAnalyze(MultipartFile file) throws IOException, InterruptedException {
-        // --- Upload ---
-        String blobName = UUID.randomUUID() + "_" + file.getOriginalFilename();
+    private StoredBlob storeBlob(String fileName, InputStream in, String contentType, String contentHash, long size)
+            throws InterruptedException {
+        BlobClient blob = upload(fileName, in, contentType);
+        metrics.recordUpload(size);
+        return new StoredBlob(blob, contentHash, size);
+    }
+
+    /**
+     * Envoie le flux par blocs parallèles sous un nom unique, puis attend que
+     * le blob soit disponible. Si cette attente échoue, le blob, que rien ne
+     * référence encore, est supprimé avant de propager l'exception.
+     */
+    private BlobClient upload(String fileName, InputStream in, String contentType) throws InterruptedException {
+        String blobName = UUID.randomUUID() + "_" + fileName;
         BlobClient blob = blobContainerClient.getBlobClient(blobName);
-        blob.upload(file.getInputStream(), file.getSize(), true);
-        waitForBlobAvailability(blob);
-        String url = blob.getBlobUrl();
+        BlobParallelUploadOptions options = new BlobParallelUploadOptions(in)
+                .setParallelTransferOptions(new ParallelTransferOptions()
+                        .setBlockSizeLong(uploadBlockSizeMb * MB)
+                        .setMaxSingleUploadSizeLong(uploadBlockSizeMb * MB)
+                        .setMaxConcurrency(uploadMaxConcurrency));
+        if (contentType != null) {
+            options.setHeaders(new BlobHttpHeaders().setContentType(contentType));
+        }
+        BlockBlobItem uploaded = metrics.record(PipelineMetrics.BLOB_UPLOAD,
+                () -> blob.uploadWithResponse(options, null, null).getValue());
+        try {
+            readinessChecker.awaitReady(blob, uploaded);
+        } catch (InterruptedException | RuntimeException e) {
+            try {
+                blob.deleteIfExists();
+            } catch (RuntimeException deleteFailure) {
+                e.addSuppressed(deleteFailure);
+            }
+            throw e;
+        }
+        return blob;
+    }
 
-        // --- Analyse de document ---
-        AnalyzeDocumentOptions options = new AnalyzeDocumentOptions(url)
-                .setDocumentAnalysisFeatures(Collections.singletonList(
-                        DocumentAnalysisFeature.KEY_VALUE_PAIRS
-                ));
-        SyncPoller<AnalyzeOperationDetails, AnalyzeResult> poller =
-                docClient.beginAnalyzeDocument("prebuilt-layout", options);
-        AnalyzeResult result = poller.getFinalResult();
-
-        // --- Mapping des pages et mots ---
-        List<DocumentPage> pages = Optional.ofNullable(result.getPages())
-                .orElse(Collections.emptyList())
-                .stream()
-                .map(p -> {
-                    DocumentPage dp = new DocumentPage();
-                    dp.setPageNumber(p.getPageNumber());
-                    dp.setAngle(p.getAngle());
-                    dp.setWidth(p.getWidth());
-                    dp.setHeight(p.getHeight());
-                    dp.setUnit(p.getUnit().toString());
-
-                    List<DocumentWord> words = Optional.ofNullable(p.getWords())
-                            .orElse(Collections.emptyList())
-                            .stream()
-                            .map(w -> {
-                                DocumentWord dw = new DocumentWord();
-                                dw.setContent(w.getContent());
-                                dw.setConfidence(w.getConfidence());
-                                dw.setPolygon(Optional.ofNullable(w.getPolygon())
-                                        .map(ArrayList::new)
-                                        .orElseGet(ArrayList::new));
-                                if (w.getSpan() != null) {
-                                    Span span = new Span();
-                                    span.setOffset(w.getSpan().getOffset());
-                                    span.setLength(w.getSpan().getLength());
-                                    dw.setSpan(span);
-                                }
-                                return dw;
-                            })
-                            .collect(Collectors.toList());
-
-                    dp.setWords(words);
-                    return dp;
-                })
-                .collect(Collectors.toList());
-
-        // --- Mapping des paires clé-valeur ---
-        List<KeyValuePair> kvps = Optional.ofNullable(result.getKeyValuePairs())
-                .orElse(Collections.emptyList())
-                .stream()
-                .map(kv -> {
-                    KeyValuePair pair = new KeyValuePair();
-                    pair.setConfidence(kv.getConfidence());
-
-                    // Key
-                    DocumentKey key = new DocumentKey();
-                    key.setContent(kv.getKey().getContent());
-                    key.setBoundingRegions(Optional.ofNullable(kv.getKey().getBoundingRegions())
-                            .orElse(Collections.emptyList())
-                            .stream()
-                            .map(r -> {
-                                BoundingRegion br = new BoundingRegion();
-                                br.setPageNumber(r.getPageNumber());
-                                br.setPolygon(new ArrayList<>(r.getPolygon()));
-                                return br;
-                            })
-                            .collect(Collectors.toList()));
-                    key.setSpans(Optional.ofNullable(kv.getKey().getSpans())
-                            .orElse(Collections.emptyList())
-                            .stream()
-                            .map(s -> {
-                                Span sp = new Span();
-                                sp.setOffset(s.getOffset());
-                                sp.setLength(s.getLength());
-                                return sp;
-                            })
-                            .collect(Collectors.toList()));
-                    pair.setKey(key);
-
-                    // Value (optionnel)
-                    if (kv.getValue() != null) {
-                        DocumentValue val = new DocumentValue();
-                        val.setContent(kv.getValue().getContent());
-                        val.setBoundingRegions(Optional.ofNullable(kv.getValue().getBoundingRegions())
-                                .orElse(Collections.emptyList())
-                                .stream()
-                                .map(r -> {
-                                    BoundingRegion br = new BoundingRegion();
-                                    br.setPageNumber(r.getPageNumber());
-                                    br.setPolygon(new ArrayList<>(r.getPolygon()));
-                                    return br;
-                                })
-                                .collect(Collectors.toList()));
-                        val.setSpans(Optional.ofNullable(kv.getValue().getSpans())
-                                .orElse(Collections.emptyList())
-                                .stream()
-                                .map(s -> {
-                                    Span sp = new Span();
-                                    sp.setOffset(s.getOffset());
-                                    sp.setLength(s.getLength());
-                                    return sp;
-                                })
-                                .collect(Collectors.toList()));
-                        pair.setValue(val);
-                    }
-                    return pair;
-                })
-                .collect(Collectors.toList());
-
-        // --- Mapping des tables et de leurs cellules ---
-        List<DocumentTable> tables = Optional.ofNullable(result.getTables())
-                .orElse(Collections.emptyList())
-                .stream()
-                .map(t -> {
-                    DocumentTable dt = new DocumentTable();
-                    dt.setRowCount(t.getRowCount());
-                    dt.setColumnCount(t.getColumnCount());
-
-                    List<DocumentTableCell> cells = Optional.ofNullable(t.getCells())
-                            .orElse(Collections.emptyList())
-                            .stream()
-                            .map(c -> {
-                                DocumentTableCell cell = new DocumentTableCell();
-                                cell.setKind(c.getKind() != null ? c.getKind().toString() : "");
-                                cell.setRowIndex(c.getRowIndex());
-                                cell.setColumnIndex(c.getColumnIndex());
-                                cell.setContent(c.getContent());
-
-                                cell.setBoundingRegions(Optional.ofNullable(c.getBoundingRegions())
-                                        .orElse(Collections.emptyList())
-                                        .stream()
-                                        .map(r -> {
-                                            BoundingRegion br = new BoundingRegion();
-                                            br.setPageNumber(r.getPageNumber());
-                                            br.setPolygon(new ArrayList<>(r.getPolygon()));
-                                            return br;
-                                        })
-                                        .collect(Collectors.toList()));
-
-                                cell.setSpans(Optional.ofNullable(c.getSpans())
-                                        .orElse(Collections.emptyList())
-                                        .stream()
-                                        .map(s -> {
-                                            Span sp = new Span();
-                                            sp.setOffset(s.getOffset());
-                                            sp.setLength(s.getLength());
-                                            return sp;
-                                        })
-                                        .collect(Collectors.toList()));
-
-                                cell.setElements(Optional.ofNullable(c.getElements())
-                                        .orElse(Collections.emptyList()));
-                                return cell;
-                            })
-                            .collect(Collectors.toList());
-
-                    dt.setCells(cells);
-                    return dt;
-                })
-                .collect(Collectors.toList());
-
-        // --- Construction et sauvegarde en base ---
+    /**
+     * Applique la politique de déduplication à un fichier venant d'être
+     * stocké. Si un document identique est réutilisé ou lié, le nouveau
+     * blob, devenu inutile, est supprimé.
+     *
+     * @param fileName nom original du nouveau fichier
+     * @param stored   blob stocké et son empreinte SHA-256
+     * @param policy   politique à appliquer (null pour la politique par défaut)
+     * @param analysis profil d'analyse demandé
+     * @return le document réutilisé (REUSE) ou lié (LINK), vide s'il faut analyser
+     */
+    public Optional<FileDocument> resolveDuplicate(String fileName, StoredBlob stored, DeduplicationPolicy policy,
+                                                   AnalysisRequest analysis) {
+        Optional<FileDocument> duplicate = resolveDuplicate(fileName, stored.contentHash(), policy, analysis);
+        if (duplicate.isPresent()) {
+            stored.blob().deleteIfExists();
+        }
+        return duplicate;
+    }
+
+    /**
+     * Applique la politique de déduplication à un fichier haché, avant son
+     * upload. Seul un document de même contenu analysé avec le même profil
+     * (modèle et pages) est retenu ; en politique LINK, le nouveau document
+     * lié est persisté.
+     *
+     * @param fileName    nom original du nouveau fichier
+     * @param contentHash empreinte SHA-256 du nouveau fichier
+     * @param policy      politique à appliquer (null pour la politique par défaut)
+     * @param analysis    profil d'analyse demandé
+     * @return le document réutilisé (REUSE) ou lié (LINK), vide s'il faut analyser
+     */
+    public Optional<FileDocument> resolveDuplicate(String fileName, String contentHash, DeduplicationPolicy policy,
+                                                 AnalysisRequest analysis) {
+        DeduplicationPolicy effective = policy != null ? policy : defaultDedupPolicy;
+        if (effective == DeduplicationPolicy.FORCE) {
+            return Optional.empty();
+        }
+        List<String> profiles = new ArrayList<>(2);
+        AnalysisRequest request = analysis.withDefaultProfile(defaultAnalysisProfile);
+        profiles.add(request.key());
+        if (request.key().equals(AnalysisProfile.LAYOUT_KVP.name())) {
+            profiles.add(null);
+        }
+        return metrics.record(PipelineMetrics.DEDUP,
+                        () -> docRepo.findFirstByContentHashAndAnalysisProfileInOrderByUploadedAtAsc(
+                                contentHash, profiles))
+                .map(existing -> effective == DeduplicationPolicy.REUSE
+                        ? existing
+                        : persist(linkTo(existing, fileName)));
+    }
+
+    /**
+     * Construit un nouveau document partageant le blob et le résultat
+     * d'analyse d'un document existant.
+     */
+    private FileDocument linkTo(FileDocument source, String fileName) {
         FileDocument doc = new FileDocument();
         doc.setId(UUID.randomUUID().toString());
-        doc.setFileName(file.getOriginalFilename());
-        doc.setAzureUrl(url);
+        doc.setFileName(fileName);
+        doc.setAzureUrl(source.getAzureUrl());
+        doc.setContentHash(source.getContentHash());
+        doc.setAnalysisProfile(source.getAnalysisProfile());
+        doc.setSourceDocumentId(source.getId());
         doc.setUploadedAt(new Date());
         doc.setStatus("IN_REVIEW");
-        doc.setPages(pages);
-        doc.setKeyValuePairs(kvps);
-        doc.setTables(tables);
+        doc.setPageCount(source.getPages() != null ? source.getPages().size() : source.getPageCount());
+        doc.setKeyValuePairs(source.getKeyValuePairs());
+        doc.setTables(source.getTables());
+        return doc;
+    }
+
+    /**
+     * Analyse un fichier déjà stocké, mappe le résultat et le persiste
+     * avec le statut IN_REVIEW. Appelé directement en mode synchrone
+     * ou depuis un job d'analyse en mode asynchrone. Si l'analyse est
+     * refusée (TaskRejectedException) ou échoue, le blob, que plus aucun
+     * document ne référencera, est supprimé avant de propager l'exception.
+     *
+     * @param fileName nom original du fichier
+     * @param stored   blob à analyser, avec son empreinte et sa taille
+     * @param analysis profil, modèle et pages à analyser
+     * @return FileDocument enrichi et sauvegardé
+     */
+    public FileDocument analyzeAndSave(String fileName, StoredBlob stored, AnalysisRequest analysis) {
+        try {
+            return persist(analyze(fileName, stored, analysis));
+        } catch (RuntimeException e) {
+            stored.blob().deleteIfExists();
+            throw e;
+        }
+    }
 
-        return docRepo.save(doc);
+    /**
+     * Analyse un fichier déjà stocké et construit le FileDocument
+     * correspondant (statut IN_REVIEW) sans le persister, afin que
+     * l'appelant puisse regrouper les sauvegardes (upload par lot).
+     *
+     * @param fileName nom original du fichier
+     * @param stored   blob à analyser, avec son empreinte et sa taille
+     * @param analysis profil, modèle et pages à analyser
+     * @return FileDocument enrichi, non sauvegardé
+     */
+    public FileDocument analyze(String fileName, StoredBlob stored, AnalysisRequest analysis) {
+        FileDocument doc = analyze(new AnalyzeDocumentOptions(stored.url()), stored.size(), analysis);
+        doc.setFileName(fileName);
+        doc.setAzureUrl(stored.url());
+        doc.setContentHash(stored.contentHash());
+        return doc;
+    }
+
+    /**
+     * Soumet l'analyse (source URL ou contenu en ligne), attend son résultat
+     * et le mappe selon le profil. Nom, URL et empreinte restent à renseigner.
+     *
+     * @param options   options portant la source du document
+     * @param sizeBytes taille du fichier, pour la cadence de polling
+     * @param analysis  profil, modèle et pages à analyser
+     */
+    private FileDocument analyze(AnalyzeDocumentOptions options, long sizeBytes, AnalysisRequest analysis) {
+        AnalysisRequest request = analysis.withDefaultProfile(defaultAnalysisProfile);
+        AnalysisProfile profile = request.profile();
+
+        // --- Analyse de document ---
+        if (profile == AnalysisProfile.LAYOUT_KVP) {
+            options.setDocumentAnalysisFeatures(Collections.singletonList(
+                    DocumentAnalysisFeature.KEY_VALUE_PAIRS
+            ));
+        }
+        if (request.pages() != null) {
+            options.setPages(List.of(request.pages().split(",")));
+        }
+        SyncPoller<AnalyzeOperationDetails, AnalyzeResult> poller = rateLimiter.execute(() ->
+                metrics.record(PipelineMetrics.ANALYZE_BEGIN,
+                        () -> analysisBackend.beginAnalyze(request.modelId(), options)));
+        long submittedAt = System.nanoTime();
+        AnalyzeResult result = metrics.record(PipelineMetrics.ANALYZE_POLL,
+                () -> analysisPoller.await(poller, sizeBytes, submittedAt));
+
+        // --- Mapping des sorties demandées par le profil ---
+        FileDocument doc = metrics.record(PipelineMetrics.MAPPING, () -> {
+            FileDocument mapped = new FileDocument();
+            mapped.setPages(mapper.mapPages(result));
+            mapped.setKeyValuePairs(profile.mapsKeyValuePairs()
+                    ? mapper.mapKeyValuePairs(result) : new ArrayList<>());
+            mapped.setTables(profile.mapsTables() ? mapper.mapTables(result) : new ArrayList<>());
+            return mapped;
+        });
+        metrics.recordDocument(doc);
+
+        // --- Construction du document ---
+        doc.setId(UUID.randomUUID().toString());
+        doc.setAnalysisProfile(request.key());
+        doc.setUploadedAt(new Date());
+        doc.setStatus("IN_REVIEW");
+
+        return doc;
     }
 
     /**
      * Met à jour la liste des paires clé-valeur pour un document existant.
+     * Seul le champ keyValuePairs est écrit ($set), sans relire le document.
+     *
+     * @param expectedVersion version attendue (If-Match), ou null pour ne pas la vérifier
+     * @return le document mis à jour, vide s'il n'existe pas
      */
-    public FileDocument updateKeyValuePairs(String id, List<KeyValuePair> keyValuePairs) {
-        FileDocument doc = findById(id)
-            .orElseThrow(() -> new IllegalArgumentException("File not found"));
-        doc.setKeyValuePairs(keyValuePairs);
-        return docRepo.save(doc);
+    public Optional<FileDocument> updateKeyValuePairs(String id, List<KeyValuePair> keyValuePairs, Long expectedVersion) {
+        keyNormalizer.annotate(keyValuePairs);
+        return updated(docRepo.updateField(id, "keyValuePairs", keyValuePairs, null, expectedVersion), true);
+    }
+
+    /**
+     * Remplace une seule paire clé-valeur, désignée par son index.
+     *
+     * @param expectedVersion version attendue (If-Match), ou null pour ne pas la vérifier
+     * @return le document mis à jour, vide si le document ou la paire n'existe pas
+     */
+    public Optional<FileDocument> updateKeyValuePair(String id, int index, KeyValuePair keyValuePair,
+                                                     Long expectedVersion) {
+        if (index < 0) {
+            return Optional.empty();
+        }
+        String path = "keyValuePairs." + index;
+        keyNormalizer.annotate(keyValuePair);
+        return updated(docRepo.updateField(id, path, keyValuePair, path, expectedVersion), true);
     }
 
     /**
      * Met à jour la liste des tables pour un document existant.
+     * Seul le champ tables est écrit ($set), sans relire le document.
+     *
+     * @param expectedVersion version attendue (If-Match), ou null pour ne pas la vérifier
+     * @return le document mis à jour, vide s'il n'existe pas
      */
-    public FileDocument updateTables(String id, List<DocumentTable> tables) {
-        FileDocument doc = findById(id)
-            .orElseThrow(() -> new IllegalArgumentException("File not found"));
-        doc.setTables(tables);
-        return docRepo.save(doc);
+    public Optional<FileDocument> updateTables(String id, List<DocumentTable> tables, Long expectedVersion) {
+        return updated(docRepo.updateField(id, "tables", tables, null, expectedVersion), true);
+    }
+
+    /**
+     * Remplace une seule cellule, désignée par l'index de sa table et son index dans la table.
+     *
+     * @param expectedVersion version attendue (If-Match), ou null pour ne pas la vérifier
+     * @return le document mis à jour, vide si le document, la table ou la cellule n'existe pas
+     */
+    public Optional<FileDocument> updateTableCell(String id, int tableIndex, int cellIndex, DocumentTableCell cell,
+                                                  Long expectedVersion) {
+        if (tableIndex < 0 || cellIndex < 0) {
+            return Optional.empty();
+        }
+        String path = "tables." + tableIndex + ".cells." + cellIndex;
+        return updated(docRepo.updateField(id, path, cell, path, expectedVersion), true);
     }
 
     /**
      * Approuve toutes les annotations d’un document (change le statut en APPROVED).
+     *
+     * @param expectedVersion version attendue (If-Match), ou null pour ne pas la vérifier
+     * @return le document mis à jour, vide s'il n'existe pas
+     */
+    public Optional<FileDocument> approuveAnnotation(String id, Long expectedVersion) {
+        return updated(docRepo.updateField(id, "status", "APPROVED", null, expectedVersion), false);
+    }
+
+    /**
+     * Invalide le document modifié dans le cache et, si ses paires ou ses
+     * tables ont changé, les réindexe.
      */
-    public FileDocument approuveAnnotation(String id) {
-        FileDocument doc = findById(id)
-            .orElseThrow(() -> new IllegalArgumentException("File not found"));
-        doc.setStatus("APPROVED");
-        return docRepo.save(doc);
+    private Optional<FileDocument> updated(Optional<FileDocument> doc, boolean contentChanged) {
+        doc.ifPresent(d -> {
+            documentCache.invalidate(d.getId());
+            if (contentChanged) {
+                searchIndex.reindexContent(d);
+            }
+        });
+        return doc;
     }
 }
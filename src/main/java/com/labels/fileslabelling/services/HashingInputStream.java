@@ -0,0 +1,68 @@
+package com.labels.fileslabelling.services;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Flux d'entrée calculant l'empreinte SHA-256 et la taille des octets lus.
+ *
+ * Placé entre la requête HTTP et l'upload Blob, il permet d'obtenir
+ * l'empreinte et la taille du fichier dans la même passe que l'upload,
+ * sans relire le fichier ni le mettre en tampon.
+ */
+class HashingInputStream extends FilterInputStream {
+
+    private final MessageDigest digest;
+    private long byteCount;
+
+    HashingInputStream(InputStream in) {
+        super(in);
+        try {
+            this.digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b != -1) {
+            digest.update((byte) b);
+            byteCount++;
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int read = super.read(b, off, len);
+        if (read > 0) {
+            digest.update(b, off, read);
+            byteCount += read;
+        }
+        return read;
+    }
+
+    /**
+     * Le flux n'est lu qu'une seule fois : mark/reset fausserait l'empreinte.
+     */
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    /** Nombre d'octets lus jusqu'ici. */
+    long getByteCount() {
+        return byteCount;
+    }
+
+    /** Empreinte hexadécimale des octets lus ; à appeler une fois le flux épuisé. */
+    String hexDigest() {
+        return HexFormat.of().formatHex(digest.digest());
+    }
+}
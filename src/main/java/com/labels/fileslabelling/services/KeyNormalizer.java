@@ -0,0 +1,163 @@
+package com.labels.fileslabelling.services;
+
+import com.labels.fileslabelling.models.FileDocument;
+import com.labels.fileslabelling.models.KeyValuePair;
+import com.labels.fileslabelling.repositories.FileDocumentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Normalisation des clés de paires clé-valeur, pour les retrouver sur
+ * l'ensemble des documents quelle que soit leur graphie.
+ *
+ * La forme normalisée d'une clé est son contenu en minuscules, sans
+ * accents, la ponctuation et les espaces répétés réduits à un espace
+ * (« N° Facture : » devient « n facture »). Elle est stockée dans
+ * DocumentKey.normalizedContent à chaque écriture et indexée.
+ *
+ * Les synonymes (app.keys.synonyms) sont des groupes de clés équivalentes,
+ * séparés par des virgules, les clés d'un groupe étant séparées par « | » :
+ * app.keys.synonyms=Invoice Number|N° facture|Numéro de facture,Total|Montant total
+ * Ils sont appliqués à la lecture : une recherche porte sur toutes les
+ * formes du groupe de la clé demandée, si bien qu'une modification de la
+ * configuration ne demande aucune réécriture en base.
+ *
+ * Au démarrage, les clés des documents enregistrés avant l'introduction
+ * de la forme normalisée sont complétées en tâche de fond.
+ */
+@Component
+public class KeyNormalizer {
+
+    private static final Logger log = LoggerFactory.getLogger(KeyNormalizer.class);
+    /** Nombre maximal de passes du rattrapage, les documents modifiés pendant une passe étant repris à la suivante. */
+    private static final int BACKFILL_MAX_PASSES = 5;
+
+    private final FileDocumentRepository docRepo;
+    private final Map<String, Set<String>> synonyms = new HashMap<>();
+
+    public KeyNormalizer(FileDocumentRepository docRepo,
+                         @Value("${app.keys.synonyms:}") List<String> synonymGroups) {
+        this.docRepo = docRepo;
+        for (String group : synonymGroups) {
+            Set<String> forms = new LinkedHashSet<>();
+            for (String key : group.split("\\|")) {
+                String form = normalize(key);
+                if (!form.isEmpty()) {
+                    forms.add(form);
+                }
+            }
+            for (String form : forms) {
+                synonyms.computeIfAbsent(form, f -> new LinkedHashSet<>()).addAll(forms);
+            }
+        }
+    }
+
+    /**
+     * Forme normalisée d'une clé : minuscules, sans accents, mots séparés
+     * par un seul espace.
+     */
+    public static String normalize(String key) {
+        if (key == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(key, Normalizer.Form.NFKD);
+        StringBuilder form = new StringBuilder(decomposed.length());
+        boolean space = false;
+        for (int i = 0; i < decomposed.length(); ) {
+            int cp = decomposed.codePointAt(i);
+            i += Character.charCount(cp);
+            if (Character.getType(cp) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            if (Character.isLetterOrDigit(cp)) {
+                if (space && !form.isEmpty()) {
+                    form.append(' ');
+                }
+                form.appendCodePoint(Character.toLowerCase(cp));
+                space = false;
+            } else {
+                space = true;
+            }
+        }
+        return form.toString();
+    }
+
+    /**
+     * Formes normalisées à rechercher pour une clé : la sienne et celles
+     * de ses synonymes.
+     */
+    public Set<String> expand(String key) {
+        String form = normalize(key);
+        return synonyms.getOrDefault(form, Set.of(form));
+    }
+
+    /**
+     * Renseigne la forme normalisée de chaque clé.
+     *
+     * @param pairs paires à compléter (null accepté)
+     */
+    public void annotate(List<KeyValuePair> pairs) {
+        if (pairs == null) {
+            return;
+        }
+        for (KeyValuePair pair : pairs) {
+            annotate(pair);
+        }
+    }
+
+    /**
+     * Renseigne la forme normalisée de la clé d'une paire.
+     */
+    public void annotate(KeyValuePair pair) {
+        if (pair != null && pair.getKey() != null) {
+            pair.getKey().setNormalizedContent(normalize(pair.getKey().getContent()));
+        }
+    }
+
+    /**
+     * Complète, sur un thread virtuel, les clés des documents dont au moins une
+     * paire n'a pas encore de forme normalisée. La réécriture est conditionnée
+     * à la version lue : un document modifié entre-temps n'est pas écrasé, mais
+     * relu lors d'une passe suivante, puisqu'une mise à jour partielle (une seule
+     * paire) peut lui laisser des clés non normalisées.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        Thread.ofVirtual().name("key-normalizer-backfill").start(() -> {
+            int updated = 0;
+            try {
+                for (int pass = 0; pass < BACKFILL_MAX_PASSES; pass++) {
+                    int skipped = 0;
+                    try (Stream<FileDocument> docs = docRepo.streamWithUnnormalizedKeys()) {
+                        for (Iterator<FileDocument> it = docs.iterator(); it.hasNext(); ) {
+                            FileDocument doc = it.next();
+                            annotate(doc.getKeyValuePairs());
+                            if (docRepo.replaceKeyValuePairsIfUnchanged(doc.getId(), doc.getKeyValuePairs(),
+                                    doc.getVersion())) {
+                                updated++;
+                            } else {
+                                skipped++;
+                            }
+                        }
+                    }
+                    if (skipped == 0) {
+                        break;
+                    }
+                }
+                if (updated > 0) {
+                    log.info("Normalized key-value pair keys of {} documents", updated);
+                }
+            } catch (RuntimeException e) {
+                log.warn("Key normalization backfill failed after {} documents", updated, e);
+            }
+        });
+    }
+}
@@ -0,0 +1,265 @@
+package com.labels.fileslabelling.services;
+
+import com.labels.fileslabelling.models.DocumentPage;
+import com.labels.fileslabelling.models.DocumentWord;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Index spatial des mots d'une page : grille uniforme sur les boîtes
+ * englobantes des polygones.
+ *
+ * La grille couvre l'étendue des mots et compte environ deux mots par
+ * cellule ; chaque mot est rattaché à toutes les cellules que sa boîte
+ * recouvre. Les cellules sont stockées à plat (cellStart / cellWords),
+ * sans objet par cellule. Une requête par rectangle ne teste que les mots
+ * des cellules recouvertes ; une requête « plus proches voisins » parcourt
+ * les cellules par anneaux concentriques et s'arrête dès que les cellules
+ * restantes sont toutes plus loin que le k-ième mot trouvé.
+ *
+ * Les mots sans polygone ne sont pas indexés. Immuable une fois construit.
+ */
+public final class PageSpatialIndex {
+
+    private static final int WORDS_PER_CELL = 2;
+
+    private final List<DocumentWord> words;
+    private final int[] wordIndexes;
+    private final float[] minX;
+    private final float[] minY;
+    private final float[] maxX;
+    private final float[] maxY;
+
+    private final float originX;
+    private final float originY;
+    private final float cellWidth;
+    private final float cellHeight;
+    private final int columns;
+    private final int rows;
+    private final int[] cellStart;
+    private final int[] cellWords;
+
+    private PageSpatialIndex(List<DocumentWord> words) {
+        this.words = words;
+        int n = 0;
+        int[] indexes = new int[words.size()];
+        float[] x0 = new float[words.size()];
+        float[] y0 = new float[words.size()];
+        float[] x1 = new float[words.size()];
+        float[] y1 = new float[words.size()];
+        float left = Float.MAX_VALUE, top = Float.MAX_VALUE, right = -Float.MAX_VALUE, bottom = -Float.MAX_VALUE;
+        for (int w = 0; w < words.size(); w++) {
+            float[] polygon = words.get(w).getPolygon();
+            if (polygon == null || polygon.length < 2) {
+                continue;
+            }
+            float a = Float.MAX_VALUE, b = Float.MAX_VALUE, c = -Float.MAX_VALUE, d = -Float.MAX_VALUE;
+            for (int i = 0; i + 1 < polygon.length; i += 2) {
+                a = Math.min(a, polygon[i]);
+                c = Math.max(c, polygon[i]);
+                b = Math.min(b, polygon[i + 1]);
+                d = Math.max(d, polygon[i + 1]);
+            }
+            indexes[n] = w;
+            x0[n] = a;
+            y0[n] = b;
+            x1[n] = c;
+            y1[n] = d;
+            n++;
+            left = Math.min(left, a);
+            top = Math.min(top, b);
+            right = Math.max(right, c);
+            bottom = Math.max(bottom, d);
+        }
+        this.wordIndexes = Arrays.copyOf(indexes, n);
+        this.minX = Arrays.copyOf(x0, n);
+        this.minY = Arrays.copyOf(y0, n);
+        this.maxX = Arrays.copyOf(x1, n);
+        this.maxY = Arrays.copyOf(y1, n);
+
+        if (n == 0) {
+            left = top = 0;
+            right = bottom = 1;
+        }
+        float width = Math.max(right - left, 1e-3f);
+        float height = Math.max(bottom - top, 1e-3f);
+        int cells = Math.max(1, n / WORDS_PER_CELL);
+        this.columns = Math.max(1, (int) Math.ceil(Math.sqrt(cells * width / height)));
+        this.rows = Math.max(1, (int) Math.ceil((double) cells / columns));
+        this.originX = left;
+        this.originY = top;
+        this.cellWidth = width / columns;
+        this.cellHeight = height / rows;
+
+        // Comptage puis remplissage des cellules (format compressé)
+        this.cellStart = new int[columns * rows + 1];
+        for (int i = 0; i < n; i++) {
+            for (int row = row(minY[i]); row <= row(maxY[i]); row++) {
+                for (int col = column(minX[i]); col <= column(maxX[i]); col++) {
+                    cellStart[row * columns + col + 1]++;
+                }
+            }
+        }
+        for (int cell = 0; cell < columns * rows; cell++) {
+            cellStart[cell + 1] += cellStart[cell];
+        }
+        this.cellWords = new int[cellStart[columns * rows]];
+        int[] fill = Arrays.copyOf(cellStart, columns * rows);
+        for (int i = 0; i < n; i++) {
+            for (int row = row(minY[i]); row <= row(maxY[i]); row++) {
+                for (int col = column(minX[i]); col <= column(maxX[i]); col++) {
+                    cellWords[fill[row * columns + col]++] = i;
+                }
+            }
+        }
+    }
+
+    /**
+     * Construit l'index des mots d'une page.
+     */
+    public static PageSpatialIndex of(DocumentPage page) {
+        return new PageSpatialIndex(page.getWords() != null ? page.getWords() : Collections.emptyList());
+    }
+
+    /**
+     * Nombre de mots indexés (avec polygone).
+     */
+    public int size() {
+        return wordIndexes.length;
+    }
+
+    /**
+     * Mots dont la boîte englobante recoupe le rectangle (ou y est
+     * entièrement contenue si contained), dans l'ordre de lecture de la page.
+     */
+    public List<DocumentWord> within(float x0, float y0, float x1, float y1, boolean contained) {
+        float left = Math.min(x0, x1), right = Math.max(x0, x1);
+        float top = Math.min(y0, y1), bottom = Math.max(y0, y1);
+        BitSet found = new BitSet(size());
+        for (int row = row(top); row <= row(bottom); row++) {
+            for (int col = column(left); col <= column(right); col++) {
+                int cell = row * columns + col;
+                for (int k = cellStart[cell]; k < cellStart[cell + 1]; k++) {
+                    int i = cellWords[k];
+                    if (found.get(i)) {
+                        continue;
+                    }
+                    boolean match = contained
+                            ? minX[i] >= left && maxX[i] <= right && minY[i] >= top && maxY[i] <= bottom
+                            : minX[i] <= right && maxX[i] >= left && minY[i] <= bottom && maxY[i] >= top;
+                    if (match) {
+                        found.set(i);
+                    }
+                }
+            }
+        }
+        List<DocumentWord> result = new ArrayList<>(found.cardinality());
+        for (int i = found.nextSetBit(0); i >= 0; i = found.nextSetBit(i + 1)) {
+            result.add(words.get(wordIndexes[i]));
+        }
+        return result;
+    }
+
+    /**
+     * Les count mots les plus proches du point (distance à leur boîte
+     * englobante), du plus proche au plus lointain.
+     */
+    public List<DocumentWord> nearest(float x, float y, int count) {
+        int k = Math.min(count, size());
+        if (k <= 0) {
+            return Collections.emptyList();
+        }
+        // Tas des k meilleurs, le plus lointain en tête : {distance², index}
+        PriorityQueue<double[]> best = new PriorityQueue<>(k + 1, (a, b) -> Double.compare(b[0], a[0]));
+        BitSet seen = new BitSet(size());
+        int centerRow = row(y);
+        int centerCol = column(x);
+        int maxRing = Math.max(columns, rows);
+        for (int ring = 0; ring <= maxRing; ring++) {
+            for (int row = centerRow - ring; row <= centerRow + ring; row++) {
+                if (row < 0 || row >= rows) {
+                    continue;
+                }
+                boolean edgeRow = row == centerRow - ring || row == centerRow + ring;
+                for (int col = centerCol - ring; col <= centerCol + ring; col += edgeRow ? 1 : 2 * Math.max(ring, 1)) {
+                    if (col < 0 || col >= columns) {
+                        continue;
+                    }
+                    int cell = row * columns + col;
+                    for (int c = cellStart[cell]; c < cellStart[cell + 1]; c++) {
+                        int i = cellWords[c];
+                        if (seen.get(i)) {
+                            continue;
+                        }
+                        seen.set(i);
+                        double distance = squaredDistance(x, y, minX[i], minY[i], maxX[i], maxY[i]);
+                        if (best.size() < k) {
+                            best.add(new double[]{distance, i});
+                        } else if (distance < best.peek()[0]) {
+                            best.poll();
+                            best.add(new double[]{distance, i});
+                        }
+                    }
+                }
+            }
+            if (best.size() == k && best.peek()[0] <= unexploredDistance(x, y,
+                    Math.max(0, centerRow - ring), Math.min(rows - 1, centerRow + ring),
+                    Math.max(0, centerCol - ring), Math.min(columns - 1, centerCol + ring))) {
+                break;
+            }
+        }
+        List<DocumentWord> result = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            result.add(words.get(wordIndexes[(int) best.poll()[1]]));
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    /**
+     * Carré de la distance du point aux cellules hors du bloc déjà parcouru
+     * (lignes r0..r1, colonnes c0..c1) : minimum sur les quatre bandes qui
+     * l'entourent ; infini si tout a été parcouru.
+     */
+    private double unexploredDistance(float x, float y, int r0, int r1, int c0, int c1) {
+        float gridRight = originX + columns * cellWidth;
+        float gridBottom = originY + rows * cellHeight;
+        float blockTop = originY + r0 * cellHeight;
+        float blockBottom = originY + (r1 + 1) * cellHeight;
+        double distance = Double.POSITIVE_INFINITY;
+        if (r0 > 0) {
+            distance = Math.min(distance, squaredDistance(x, y, originX, originY, gridRight, blockTop));
+        }
+        if (r1 < rows - 1) {
+            distance = Math.min(distance, squaredDistance(x, y, originX, blockBottom, gridRight, gridBottom));
+        }
+        if (c0 > 0) {
+            distance = Math.min(distance, squaredDistance(x, y,
+                    originX, blockTop, originX + c0 * cellWidth, blockBottom));
+        }
+        if (c1 < columns - 1) {
+            distance = Math.min(distance, squaredDistance(x, y,
+                    originX + (c1 + 1) * cellWidth, blockTop, gridRight, blockBottom));
+        }
+        return distance;
+    }
+
+    private static double squaredDistance(float x, float y, float left, float top, float right, float bottom) {
+        double dx = Math.max(0, Math.max(left - x, x - right));
+        double dy = Math.max(0, Math.max(top - y, y - bottom));
+        return dx * dx + dy * dy;
+    }
+
+    private int column(float x) {
+        return Math.clamp((int) Math.floor((x - originX) / cellWidth), 0, columns - 1);
+    }
+
+    private int row(float y) {
+        return Math.clamp((int) Math.floor((y - originY) / cellHeight), 0, rows - 1);
+    }
+}
@@ -0,0 +1,56 @@
+package com.labels.fileslabelling.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.labels.fileslabelling.models.DocumentPage;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Cache en mémoire (Caffeine) des index spatiaux de pages.
+ *
+ * L'index d'une page est construit à la première requête spatiale sur
+ * cette page, puis réutilisé tant que la relecture se poursuit. Les mots
+ * d'une page n'étant jamais modifiés après l'analyse, aucune invalidation
+ * n'est nécessaire. Le cache est borné en nombre de mots indexés
+ * (app.cache.spatial.max-words) et une entrée expire après
+ * app.cache.spatial.ttl-seconds sans accès.
+ *
+ * Les statistiques sont publiées dans Micrometer sous le nom de cache
+ * « pageSpatialIndexes ».
+ */
+@Component
+public class PageSpatialIndexCache {
+
+    private final Cache<String, PageSpatialIndex> cache;
+
+    public PageSpatialIndexCache(MeterRegistry meterRegistry,
+                                 @Value("${app.cache.spatial.max-words:2000000}") long maxWords,
+                                 @Value("${app.cache.spatial.ttl-seconds:600}") long ttlSeconds) {
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxWords)
+                .weigher((String key, PageSpatialIndex index) -> Math.max(1, index.size()))
+                .expireAfterAccess(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "pageSpatialIndexes");
+    }
+
+    /**
+     * Lit l'index d'une page dans le cache, ou le construit à partir de la
+     * page chargée par loader. Une page introuvable n'est pas mise en cache.
+     *
+     * @param key    clé de la page (voir PageChunk.idOf)
+     * @param loader lecture de la page
+     * @return Optional vide si la page n'existe pas
+     */
+    public Optional<PageSpatialIndex> get(String key, Supplier<Optional<DocumentPage>> loader) {
+        return Optional.ofNullable(cache.get(key, k -> loader.get().map(PageSpatialIndex::of).orElse(null)));
+    }
+}
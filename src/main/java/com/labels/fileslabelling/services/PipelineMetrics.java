@@ -0,0 +1,174 @@
+package com.labels.fileslabelling.services;
+
+import com.labels.fileslabelling.models.DocumentPage;
+import com.labels.fileslabelling.models.FileDocument;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Métriques du pipeline upload → analyse → persistance.
+ *
+ * Chaque étape est chronométrée par le timer « files.pipeline.stage »
+ * (tags stage et outcome) ; un échec incrémente en plus
+ * « files.pipeline.failures » (tag stage). Les tailles des documents produits
+ * (pages, mots, tables, paires clé-valeur), la taille des fichiers reçus,
+ * le nombre de polls par analyse et la taille des FileDocument servis
+ * (octets envoyés, tag format) sont publiés sous forme de distributions. L'attente de disponibilité d'un blob n'est pas une étape :
+ * elle est chronométrée par « files.upload.readiness » (voir
+ * {@link BlobReadinessChecker}), avec son mode et son issue.
+ *
+ * Les tags se limitent aux valeurs fixes de {@link #STAGES} et à
+ * success/failure. Les histogrammes (app.metrics.histograms, activés par
+ * défaut) sont exposés au format Prometheus par Actuator, sous réserve
+ * d'inclure « prometheus » dans management.endpoints.web.exposure.include.
+ */
+@Component
+public class PipelineMetrics {
+
+    public static final String BLOB_UPLOAD = "blob.upload";
+    public static final String DEDUP = "dedup";
+    public static final String ANALYZE_BEGIN = "analyze.begin";
+    public static final String ANALYZE_POLL = "analyze.poll";
+    public static final String MAPPING = "mapping";
+    public static final String SAVE = "save";
+
+    /**
+     * Étapes connues, dans l'ordre du pipeline.
+     */
+    public static final String[] STAGES = {
+            BLOB_UPLOAD, DEDUP, ANALYZE_BEGIN, ANALYZE_POLL, MAPPING, SAVE
+    };
+
+    /**
+     * Appel chronométré par {@link #record}.
+     */
+    @FunctionalInterface
+    public interface StageCall<T, E extends Exception> {
+        T call() throws E;
+    }
+
+    private final MeterRegistry registry;
+    private final boolean histograms;
+
+    private final DistributionSummary uploadBytes;
+    private final DistributionSummary pages;
+    private final DistributionSummary words;
+    private final DistributionSummary tables;
+    private final DistributionSummary keyValuePairs;
+    private final DistributionSummary jsonResponseBytes;
+    private final DistributionSummary protobufResponseBytes;
+    private final DistributionSummary polls;
+
+    public PipelineMetrics(MeterRegistry registry,
+                           @Value("${app.metrics.histograms:true}") boolean histograms) {
+        this.registry = registry;
+        this.histograms = histograms;
+        this.uploadBytes = summary("files.upload.size", "Size of uploaded files", "bytes");
+        this.pages = summary("files.document.pages", "Pages per analyzed document", "pages");
+        this.words = summary("files.document.words", "Words per analyzed document", "words");
+        this.tables = summary("files.document.tables", "Tables per analyzed document", "tables");
+        this.keyValuePairs = summary("files.document.key.value.pairs",
+                "Key-value pairs per analyzed document", "pairs");
+        this.jsonResponseBytes = summary("files.document.response.size",
+                "Bytes sent for a FileDocument response, after compression", "bytes", "format", "json");
+        this.protobufResponseBytes = summary("files.document.response.size",
+                "Bytes sent for a FileDocument response, after compression", "bytes", "format", "protobuf");
+        this.polls = summary("files.analyze.polls", "Status polls per analysis operation", "polls");
+    }
+
+    /**
+     * Exécute une étape en la chronométrant ; toute exception est comptée
+     * comme un échec de l'étape puis propagée.
+     *
+     * @param stage une des valeurs de {@link #STAGES}
+     * @param call  traitement de l'étape
+     * @return le résultat du traitement
+     */
+    public <T, E extends Exception> T record(String stage, StageCall<T, E> call) throws E {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            T result = call.call();
+            success = true;
+            return result;
+        } finally {
+            recordStage(stage, System.nanoTime() - start, success);
+        }
+    }
+
+    /**
+     * Enregistre la durée d'une étape chronométrée par l'appelant.
+     */
+    public void recordStage(String stage, long nanos, boolean success) {
+        Timer.builder("files.pipeline.stage")
+                .description("Duration of each stage of the upload and analysis pipeline")
+                .tag("stage", stage)
+                .tag("outcome", success ? "success" : "failure")
+                .publishPercentileHistogram(histograms)
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        if (!success) {
+            Counter.builder("files.pipeline.failures")
+                    .description("Pipeline failures by stage")
+                    .tag("stage", stage)
+                    .register(registry)
+                    .increment();
+        }
+    }
+
+    /**
+     * Taille d'un fichier reçu et stocké.
+     */
+    public void recordUpload(long bytes) {
+        uploadBytes.record(bytes);
+    }
+
+    /**
+     * Nombre de polls effectués avant la fin d'une analyse.
+     */
+    public void recordPolls(int count) {
+        polls.record(count);
+    }
+
+    /**
+     * Dimensions d'un document analysé (avant détachement de ses pages).
+     */
+    public void recordDocument(FileDocument doc) {
+        int pageCount = doc.getPages() != null ? doc.getPages().size() : doc.getPageCount();
+        long wordCount = 0;
+        if (doc.getPages() != null) {
+            for (DocumentPage page : doc.getPages()) {
+                wordCount += page.getWords() != null ? page.getWords().size() : 0;
+            }
+        }
+        pages.record(pageCount);
+        words.record(wordCount);
+        tables.record(doc.getTables() != null ? doc.getTables().size() : 0);
+        keyValuePairs.record(doc.getKeyValuePairs() != null ? doc.getKeyValuePairs().size() : 0);
+    }
+
+    /**
+     * Nombre d'octets effectivement envoyés pour un FileDocument servi (après
+     * compression éventuelle), compté par {@link FileDocumentWriter}.
+     *
+     * @param protobuf true pour une réponse Protocol Buffers, false pour JSON
+     */
+    public void recordResponse(long bytes, boolean protobuf) {
+        (protobuf ? protobufResponseBytes : jsonResponseBytes).record(bytes);
+    }
+
+    private DistributionSummary summary(String name, String description, String unit, String... tags) {
+        return DistributionSummary.builder(name)
+                .description(description)
+                .baseUnit(unit)
+                .tags(tags)
+                .publishPercentileHistogram(histograms)
+                .register(registry);
+    }
+}
@@ -0,0 +1,637 @@
+package com.labels.fileslabelling.services;
+
+import com.labels.fileslabelling.models.BoundingRegion;
+import com.labels.fileslabelling.models.DocumentPage;
+import com.labels.fileslabelling.models.DocumentTable;
+import com.labels.fileslabelling.models.DocumentTableCell;
+import com.labels.fileslabelling.models.DocumentWord;
+import com.labels.fileslabelling.models.FileDocument;
+import com.labels.fileslabelling.models.KeyValuePair;
+import com.labels.fileslabelling.models.PageChunk;
+import com.labels.fileslabelling.models.SearchHit;
+import com.labels.fileslabelling.models.SearchMatch;
+import com.labels.fileslabelling.repositories.FileDocumentRepository;
+import com.labels.fileslabelling.repositories.PageChunkRepository;
+import io.micrometer.core.instrument.Gauge;
+import jakarta.annotation.PostConstruct;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Index inversé en mémoire sur le texte extrait : mots des pages, clés et
+ * valeurs des paires clé-valeur, contenu des cellules de tables.
+ *
+ * Les termes sont normalisés (minuscules, sans accents, découpés sur tout
+ * caractère qui n'est ni lettre ni chiffre). Pour chaque terme, la liste des
+ * occurrences est un unique tableau d'int, organisé en blocs
+ * [slot, n, loc1 … locn] : un slot désigne une source (mots, paires, tables)
+ * d'un document, et loc encode sur 13 + 18 bits la page et l'index du mot
+ * (ou la page et l'index de la paire, ou l'index de la table et celui de la
+ * cellule). Réindexer une source, après un PATCH, crée un nouveau slot et
+ * marque l'ancien comme mort. Lorsque les occurrences mortes dépassent les
+ * vivantes, ou les slots morts les vivants, l'index est compacté : les blocs
+ * des slots morts sont purgés et les slots vivants renumérotés, la mémoire
+ * restant ainsi proportionnelle au contenu vivant quel que soit le nombre
+ * de modifications. Chaque slot retient la version
+ * du document indexé : une réindexation portant une version plus ancienne
+ * (PATCH concurrents terminés dans le désordre) est ignorée.
+ *
+ * L'index est alimenté à chaque sauvegarde par FileService et reconstruit
+ * au démarrage depuis MongoDB, en tâche de fond (app.search.rebuild-on-startup) ;
+ * une source déjà indexée par une écriture concurrente n'est pas écrasée
+ * par la reconstruction. Un document lié (déduplication LINK) n'indexe que
+ * ses paires et tables, ses pages appartenant au document d'origine.
+ */
+@Component
+public class SearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(SearchIndex.class);
+
+    static final int WORDS = 0;
+    static final int KEY_VALUES = 1;
+    static final int TABLES = 2;
+    private static final String[] SOURCE_NAMES = {"WORD", "KEY_VALUE", "TABLE_CELL"};
+
+    private static final int LOW_BITS = 18;
+    private static final int LOW_MASK = (1 << LOW_BITS) - 1;
+    private static final int HIGH_MAX = (1 << (31 - LOW_BITS)) - 1;
+    private static final int MAX_TERM_LENGTH = 64;
+    private static final int MIN_PREFIX_LENGTH = 2;
+    private static final int MAX_PREFIX_TERMS = 1000;
+    private static final long COMPACT_MIN_DEAD = 100_000;
+    private static final int COMPACT_MIN_DEAD_SLOTS = 10_000;
+
+    private final FileDocumentRepository docRepo;
+    private final PageChunkRepository pageRepo;
+    private final Timer queryTimer;
+
+    /**
+     * Reconstruit l'index depuis la base au démarrage.
+     */
+    @Value("${app.search.rebuild-on-startup:true}")
+    private boolean rebuildOnStartup;
+
+    /**
+     * Nombre maximal d'occurrences détaillées par document trouvé.
+     */
+    @Value("${app.search.max-matches-per-hit:50}")
+    private int maxMatchesPerHit;
+
+    // État de l'index, protégé par lock
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, IntBuffer> postings = new HashMap<>();
+    private final TreeSet<String> sortedTerms = new TreeSet<>();
+    private final Map<String, Integer> docOrdinals = new HashMap<>();
+    private final List<String> docIds = new ArrayList<>();
+    private final IntBuffer docSlots = new IntBuffer();
+    private final IntBuffer slotDocs = new IntBuffer();
+    private final IntBuffer slotSources = new IntBuffer();
+    private final IntBuffer slotSizes = new IntBuffer();
+    private long[] slotVersions = new long[16];
+    private final BitSet deadSlots = new BitSet();
+    private int deadSlotCount;
+    private long livePostings;
+    private long deadPostings;
+
+    private final MeterRegistry registry;
+
+    public SearchIndex(FileDocumentRepository docRepo, PageChunkRepository pageRepo, MeterRegistry registry) {
+        this.docRepo = docRepo;
+        this.pageRepo = pageRepo;
+        this.registry = registry;
+        this.queryTimer = Timer.builder("files.search.query")
+                .description("Full-text search latency")
+                .register(registry);
+    }
+
+    /**
+     * Publie les jauges de taille de l'index une fois celui-ci construit,
+     * les jauges lisant l'état de cette instance.
+     */
+    @PostConstruct
+    void registerGauges() {
+        Gauge.builder("files.search.documents", this, index -> index.read(index.docIds::size))
+                .description("Documents known to the full-text index")
+                .register(registry);
+        Gauge.builder("files.search.terms", this, index -> index.read(index.postings::size))
+                .description("Distinct terms in the full-text index")
+                .register(registry);
+        Gauge.builder("files.search.postings", this, index -> index.read(() -> index.livePostings))
+                .description("Live term occurrences in the full-text index")
+                .register(registry);
+    }
+
+    /**
+     * Indexe un document venant d'être sauvegardé.
+     *
+     * @param doc   document sauvegardé (paires et tables)
+     * @param pages pages du document, null s'il n'en porte pas (document lié)
+     */
+    public void index(FileDocument doc, List<DocumentPage> pages) {
+        if (pages != null) {
+            replace(doc.getId(), WORDS, wordTerms(pages), version(doc), false);
+        }
+        reindexContent(doc);
+    }
+
+    /**
+     * Réindexe les paires clé-valeur et les tables d'un document modifié.
+     * Sans effet si une version plus récente du document est déjà indexée.
+     *
+     * @param doc document tel que renvoyé par la mise à jour
+     */
+    public void reindexContent(FileDocument doc) {
+        long version = version(doc);
+        replace(doc.getId(), KEY_VALUES, keyValueTerms(doc.getKeyValuePairs()), version, false);
+        replace(doc.getId(), TABLES, tableTerms(doc.getTables()), version, false);
+    }
+
+    /**
+     * Recherche les documents contenant tous les termes de la requête.
+     * Un terme terminé par « * » est recherché comme préfixe. Les documents
+     * sont triés par nombre d'occurrences décroissant.
+     *
+     * @param query texte recherché
+     * @param limit nombre maximal de documents renvoyés
+     * @return Optional vide si la requête ne contient aucun terme
+     */
+    public Optional<List<SearchHit>> search(String query, int limit) {
+        List<String> terms = new ArrayList<>();
+        List<Boolean> prefixes = new ArrayList<>();
+        for (String part : query.trim().split("\\s+")) {
+            boolean prefix = part.endsWith("*");
+            List<String> tokens = tokens(part);
+            for (int i = 0; i < tokens.size(); i++) {
+                terms.add(tokens.get(i));
+                prefixes.add(prefix && i == tokens.size() - 1 && tokens.get(i).length() >= MIN_PREFIX_LENGTH);
+            }
+        }
+        if (terms.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(queryTimer.record(() -> read(() -> find(terms, prefixes, limit))));
+    }
+
+    /**
+     * Reconstruit l'index depuis la base, sur un thread virtuel.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!rebuildOnStartup) {
+            return;
+        }
+        Thread.ofVirtual().name("search-index-rebuild").start(() -> {
+            long start = System.nanoTime();
+            try {
+                try (Stream<FileDocument> docs = docRepo.streamAllBy()) {
+                    docs.forEach(doc -> {
+                        long version = version(doc);
+                        if (doc.getPages() != null) {
+                            replace(doc.getId(), WORDS, wordTerms(doc.getPages()), version, true);
+                        }
+                        replace(doc.getId(), KEY_VALUES, keyValueTerms(doc.getKeyValuePairs()), version, true);
+                        replace(doc.getId(), TABLES, tableTerms(doc.getTables()), version, true);
+                    });
+                }
+                try (Stream<PageChunk> chunks = pageRepo.streamAllByOrderByFileId()) {
+                    String fileId = null;
+                    List<DocumentPage> pages = new ArrayList<>();
+                    for (Iterator<PageChunk> it = chunks.iterator(); it.hasNext(); ) {
+                        PageChunk chunk = it.next();
+                        if (!chunk.getFileId().equals(fileId)) {
+                            if (fileId != null) {
+                                replace(fileId, WORDS, wordTerms(pages), -1, true);
+                            }
+                            fileId = chunk.getFileId();
+                            pages = new ArrayList<>();
+                        }
+                        pages.add(chunk.getPage());
+                    }
+                    if (fileId != null) {
+                        replace(fileId, WORDS, wordTerms(pages), -1, true);
+                    }
+                }
+                log.info("Search index rebuilt in {} ms: {} documents, {} terms",
+                        (System.nanoTime() - start) / 1_000_000, read(docIds::size), read(postings::size));
+            } catch (RuntimeException e) {
+                log.warn("Search index rebuild failed", e);
+            }
+        });
+    }
+
+    // ————————————————————— Écriture —————————————————————
+
+    /**
+     * Remplace le contenu indexé d'une source d'un document.
+     *
+     * @param content  occurrences par terme, construites hors verrou
+     * @param version  version du document indexé, -1 si inconnue
+     * @param ifAbsent ne rien faire si la source a déjà été indexée
+     */
+    private void replace(String docId, int source, Map<String, IntBuffer> content, long version, boolean ifAbsent) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = docOrdinals.get(docId);
+            if (ordinal == null) {
+                ordinal = docIds.size();
+                docOrdinals.put(docId, ordinal);
+                docIds.add(docId);
+                for (int s = 0; s < SOURCE_NAMES.length; s++) {
+                    docSlots.add(-1);
+                }
+            }
+            int previous = docSlots.get(ordinal * SOURCE_NAMES.length + source);
+            if (previous >= 0) {
+                if (ifAbsent || (version >= 0 && version < slotVersions[previous])) {
+                    return;
+                }
+                deadSlots.set(previous);
+                deadSlotCount++;
+                livePostings -= slotSizes.get(previous);
+                deadPostings += slotSizes.get(previous);
+            }
+            int slot = slotDocs.size();
+            slotDocs.add(ordinal);
+            slotSources.add(source);
+            if (slot == slotVersions.length) {
+                slotVersions = Arrays.copyOf(slotVersions, slot * 2);
+            }
+            slotVersions[slot] = version;
+            int size = 0;
+            for (Map.Entry<String, IntBuffer> entry : content.entrySet()) {
+                IntBuffer locs = entry.getValue();
+                IntBuffer list = postings.get(entry.getKey());
+                if (list == null) {
+                    list = new IntBuffer();
+                    postings.put(entry.getKey(), list);
+                    sortedTerms.add(entry.getKey());
+                }
+                list.add(slot);
+                list.add(locs.size());
+                list.addAll(locs);
+                size += locs.size();
+            }
+            slotSizes.add(size);
+            docSlots.set(ordinal * SOURCE_NAMES.length + source, slot);
+            livePostings += size;
+            if ((deadPostings > COMPACT_MIN_DEAD && deadPostings > livePostings)
+                    || (deadSlotCount > COMPACT_MIN_DEAD_SLOTS && deadSlotCount > slotDocs.size() - deadSlotCount)) {
+                compact();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Supprime les slots morts et leurs blocs, puis renumérote les slots
+     * vivants dans l'ordre ; appelé sous verrou d'écriture.
+     */
+    private void compact() {
+        int[] renumbered = new int[slotDocs.size()];
+        int live = 0;
+        for (int slot = 0; slot < renumbered.length; slot++) {
+            if (deadSlots.get(slot)) {
+                renumbered[slot] = -1;
+                continue;
+            }
+            renumbered[slot] = live;
+            slotDocs.set(live, slotDocs.get(slot));
+            slotSources.set(live, slotSources.get(slot));
+            slotSizes.set(live, slotSizes.get(slot));
+            slotVersions[live] = slotVersions[slot];
+            live++;
+        }
+        slotDocs.truncate(live);
+        slotSources.truncate(live);
+        slotSizes.truncate(live);
+        if (slotVersions.length > Math.max(live * 2, 16)) {
+            slotVersions = Arrays.copyOf(slotVersions, Math.max(live, 16));
+        }
+        for (int i = 0; i < docSlots.size(); i++) {
+            int slot = docSlots.get(i);
+            if (slot >= 0) {
+                docSlots.set(i, renumbered[slot]);
+            }
+        }
+
+        for (Iterator<Map.Entry<String, IntBuffer>> it = postings.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<String, IntBuffer> entry = it.next();
+            IntBuffer list = entry.getValue();
+            int[] data = list.data;
+            int write = 0;
+            for (int read = 0; read < list.size; ) {
+                int n = data[read + 1];
+                if (!deadSlots.get(data[read])) {
+                    System.arraycopy(data, read, data, write, n + 2);
+                    data[write] = renumbered[data[write]];
+                    write += n + 2;
+                }
+                read += n + 2;
+            }
+            list.truncate(write);
+            if (write == 0) {
+                it.remove();
+                sortedTerms.remove(entry.getKey());
+            }
+        }
+        deadSlots.clear();
+        deadSlotCount = 0;
+        deadPostings = 0;
+    }
+
+    // ————————————————————— Lecture —————————————————————
+
+    /**
+     * Intersection des termes puis collecte des occurrences des documents
+     * retenus ; appelé sous verrou de lecture.
+     */
+    private List<SearchHit> find(List<String> terms, List<Boolean> prefixes, int limit) {
+        List<List<Map.Entry<String, IntBuffer>>> lists = new ArrayList<>(terms.size());
+        for (int t = 0; t < terms.size(); t++) {
+            String term = terms.get(t);
+            List<Map.Entry<String, IntBuffer>> matching = new ArrayList<>();
+            if (prefixes.get(t)) {
+                for (String candidate : sortedTerms.subSet(term, true, term + Character.MAX_VALUE, false)) {
+                    if (matching.size() == MAX_PREFIX_TERMS) {
+                        break;
+                    }
+                    matching.add(Map.entry(candidate, postings.get(candidate)));
+                }
+            } else if (postings.containsKey(term)) {
+                matching.add(Map.entry(term, postings.get(term)));
+            }
+            if (matching.isEmpty()) {
+                return Collections.emptyList();
+            }
+            lists.add(matching);
+        }
+
+        // matched[d] = nombre de termes déjà trouvés dans le document d
+        int[] matched = new int[docIds.size()];
+        int[] occurrences = new int[docIds.size()];
+        for (int t = 0; t < lists.size(); t++) {
+            for (Map.Entry<String, IntBuffer> entry : lists.get(t)) {
+                int[] data = entry.getValue().data;
+                int size = entry.getValue().size;
+                for (int i = 0; i < size; i += data[i + 1] + 2) {
+                    int slot = data[i];
+                    if (deadSlots.get(slot)) {
+                        continue;
+                    }
+                    int doc = slotDocs.get(slot);
+                    if (matched[doc] == t) {
+                        matched[doc] = t + 1;
+                    }
+                    if (matched[doc] == t + 1) {
+                        occurrences[doc] += data[i + 1];
+                    }
+                }
+            }
+        }
+
+        List<Integer> found = new ArrayList<>();
+        for (int doc = 0; doc < matched.length; doc++) {
+            if (matched[doc] == lists.size()) {
+                found.add(doc);
+            }
+        }
+        found.sort((a, b) -> occurrences[b] != occurrences[a]
+                ? Integer.compare(occurrences[b], occurrences[a])
+                : Integer.compare(a, b));
+        if (found.size() > limit) {
+            found = found.subList(0, limit);
+        }
+
+        Map<Integer, SearchHit> hits = new LinkedHashMap<>();
+        for (int doc : found) {
+            SearchHit hit = new SearchHit();
+            hit.setDocumentId(docIds.get(doc));
+            hit.setOccurrences(occurrences[doc]);
+            hit.setMatches(new ArrayList<>());
+            hits.put(doc, hit);
+        }
+        for (List<Map.Entry<String, IntBuffer>> matching : lists) {
+            for (Map.Entry<String, IntBuffer> entry : matching) {
+                int[] data = entry.getValue().data;
+                int size = entry.getValue().size;
+                for (int i = 0; i < size; i += data[i + 1] + 2) {
+                    int slot = data[i];
+                    SearchHit hit = deadSlots.get(slot) ? null : hits.get(slotDocs.get(slot));
+                    for (int j = 0; hit != null && j < data[i + 1]
+                            && hit.getMatches().size() < maxMatchesPerHit; j++) {
+                        hit.getMatches().add(match(entry.getKey(), slotSources.get(slot), data[i + 2 + j]));
+                    }
+                }
+            }
+        }
+        return new ArrayList<>(hits.values());
+    }
+
+    private static SearchMatch match(String term, int source, int loc) {
+        int high = loc >>> LOW_BITS;
+        int low = loc & LOW_MASK;
+        SearchMatch match = new SearchMatch();
+        match.setSource(SOURCE_NAMES[source]);
+        match.setTerm(term);
+        if (source == TABLES) {
+            match.setPosition(high);
+            match.setCellIndex(low);
+        } else {
+            match.setPageNumber(high > 0 ? high : null);
+            match.setPosition(low);
+        }
+        return match;
+    }
+
+    /** Occurrences mortes pas encore purgées. */
+    long deadPostings() {
+        return read(() -> deadPostings);
+    }
+
+    /** Slots alloués, vivants et morts. */
+    int slotCount() {
+        return read(slotDocs::size);
+    }
+
+    private <T> T read(Supplier<T> reader) {
+        lock.readLock().lock();
+        try {
+            return reader.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ————————————————————— Extraction des termes —————————————————————
+
+    private static long version(FileDocument doc) {
+        return doc.getVersion() != null ? doc.getVersion() : -1;
+    }
+
+    private static Map<String, IntBuffer> wordTerms(List<DocumentPage> pages) {
+        Map<String, IntBuffer> terms = new HashMap<>();
+        for (DocumentPage page : pages) {
+            List<DocumentWord> words = page.getWords();
+            if (words == null) {
+                continue;
+            }
+            for (int w = 0; w < words.size(); w++) {
+                addTerms(terms, words.get(w).getContent(), page.getPageNumber(), w);
+            }
+        }
+        return terms;
+    }
+
+    private static Map<String, IntBuffer> keyValueTerms(List<KeyValuePair> pairs) {
+        Map<String, IntBuffer> terms = new HashMap<>();
+        if (pairs == null) {
+            return terms;
+        }
+        for (int p = 0; p < pairs.size(); p++) {
+            KeyValuePair pair = pairs.get(p);
+            if (pair.getKey() != null) {
+                addTerms(terms, pair.getKey().getContent(), firstPage(pair.getKey().getBoundingRegions()), p);
+            }
+            if (pair.getValue() != null) {
+                addTerms(terms, pair.getValue().getContent(), firstPage(pair.getValue().getBoundingRegions()), p);
+            }
+        }
+        return terms;
+    }
+
+    private static Map<String, IntBuffer> tableTerms(List<DocumentTable> tables) {
+        Map<String, IntBuffer> terms = new HashMap<>();
+        if (tables == null) {
+            return terms;
+        }
+        for (int t = 0; t < tables.size(); t++) {
+            List<DocumentTableCell> cells = tables.get(t).getCells();
+            if (cells == null) {
+                continue;
+            }
+            for (int c = 0; c < cells.size(); c++) {
+                addTerms(terms, cells.get(c).getContent(), t, c);
+            }
+        }
+        return terms;
+    }
+
+    private static int firstPage(List<BoundingRegion> regions) {
+        return regions == null || regions.isEmpty() ? 0 : regions.get(0).getPageNumber();
+    }
+
+    private static void addTerms(Map<String, IntBuffer> terms, String text, int high, int low) {
+        if (text == null || high < 0 || high > HIGH_MAX || low < 0 || low > LOW_MASK) {
+            return;
+        }
+        int loc = high << LOW_BITS | low;
+        for (String token : tokens(text)) {
+            terms.computeIfAbsent(token, t -> new IntBuffer()).add(loc);
+        }
+    }
+
+    /**
+     * Découpe un texte en termes normalisés : minuscules, accents retirés,
+     * séparation sur tout caractère qui n'est ni lettre ni chiffre.
+     */
+    static List<String> tokens(String text) {
+        String decomposed = isAscii(text) ? text : Normalizer.normalize(text, Normalizer.Form.NFD);
+        List<String> tokens = new ArrayList<>(2);
+        StringBuilder current = new StringBuilder();
+        for (int i = 0; i < decomposed.length(); ) {
+            int cp = decomposed.codePointAt(i);
+            i += Character.charCount(cp);
+            if (Character.getType(cp) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            if (Character.isLetterOrDigit(cp)) {
+                current.appendCodePoint(Character.toLowerCase(cp));
+            } else if (!current.isEmpty()) {
+                addToken(tokens, current);
+            }
+        }
+        if (!current.isEmpty()) {
+            addToken(tokens, current);
+        }
+        return tokens;
+    }
+
+    private static boolean isAscii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void addToken(List<String> tokens, StringBuilder current) {
+        if (current.length() <= MAX_TERM_LENGTH) {
+            tokens.add(current.toString());
+        }
+        current.setLength(0);
+    }
+
+    /**
+     * Tableau d'int extensible.
+     */
+    static final class IntBuffer {
+
+        private int[] data = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == data.length) {
+                data = Arrays.copyOf(data, size * 2);
+            }
+            data[size++] = value;
+        }
+
+        void addAll(IntBuffer other) {
+            if (size + other.size > data.length) {
+                data = Arrays.copyOf(data, Math.max(size + other.size, size * 2));
+            }
+            System.arraycopy(other.data, 0, data, size, other.size);
+            size += other.size;
+        }
+
+        int get(int index) {
+            return data[index];
+        }
+
+        void set(int index, int value) {
+            data[index] = value;
+        }
+
+        int size() {
+            return size;
+        }
+
+        /**
+         * Ne garde que les count premières valeurs, puis libère l'excédent de capacité.
+         */
+        void truncate(int count) {
+            size = count;
+            trim();
+        }
+
+        void trim() {
+            if (data.length > size * 2) {
+                data = Arrays.copyOf(data, Math.max(size, 4));
+            }
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.labels.fileslabelling.services;
+
+import com.azure.storage.blob.BlobClient;
+
+/**
+ * Résultat d'un upload : le blob stocké, ainsi que l'empreinte SHA-256 et
+ * la taille du contenu, calculées pendant le transfert (flux) ou juste avant
+ * (fichier multipart).
+ *
+ * @param blob        client du blob créé
+ * @param contentHash empreinte SHA-256 hexadécimale du contenu
+ * @param size        taille du contenu en octets
+ */
+public record StoredBlob(BlobClient blob, String contentHash, long size) {
+
+    /** URL du blob, transmise à Document Intelligence. */
+    public String url() {
+        return blob.getBlobUrl();
+    }
+}
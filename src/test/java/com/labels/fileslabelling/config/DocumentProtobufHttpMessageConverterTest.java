@@ -0,0 +1,118 @@
+package com.labels.fileslabelling.config;
+
+import com.google.protobuf.CodedOutputStream;
+import com.labels.fileslabelling.mappers.DocumentProtobuf;
+import com.labels.fileslabelling.models.DocumentKey;
+import com.labels.fileslabelling.models.DocumentPage;
+import com.labels.fileslabelling.models.KeyValuePair;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.StringHttpMessageConverter;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class DocumentProtobufHttpMessageConverterTest {
+
+    private static final int MAX_BODY_BYTES = 256;
+
+    private MockMvc mvc;
+
+    @BeforeEach
+    void setUp() {
+        mvc = MockMvcBuilders.standaloneSetup(new EchoController())
+                .setMessageConverters(new StringHttpMessageConverter(),
+                        new DocumentProtobufHttpMessageConverter(MAX_BODY_BYTES))
+                .build();
+    }
+
+    @Test
+    void readsAProtobufBody() throws Exception {
+        mvc.perform(patch("/pairs").contentType(DocumentProtobuf.MEDIA_TYPE).content(pairs(3)))
+                .andExpect(status().isOk())
+                .andExpect(content().string("3"));
+    }
+
+    @Test
+    void rejectsATruncatedPackedFieldWith400() throws Exception {
+        // Mot dont le polygone annonce 16 octets et n'en contient que 4
+        byte[] word = {2 << 3 | 2, 16, 0, 0, -128, 63};
+        byte[] page = new byte[word.length + 2];
+        page[0] = 6 << 3 | 2;
+        page[1] = 16 + 2;
+        System.arraycopy(word, 0, page, 2, word.length);
+
+        mvc.perform(patch("/page").contentType(DocumentProtobuf.MEDIA_TYPE).content(page))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void rejectsABodyOverTheSizeLimitWith400() throws Exception {
+        byte[] body = pairs(50);
+
+        mvc.perform(patch("/pairs").contentType(DocumentProtobuf.MEDIA_TYPE).content(body))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void acceptsABodyOfExactlyTheSizeLimitButNotOneByteMore() throws Exception {
+        // Champ inconnu complétant le corps jusqu'à la limite, puis un octet au-delà
+        byte[] pairs = pairs(3);
+        int padding = MAX_BODY_BYTES - pairs.length - 3;
+        byte[] body = Arrays.copyOf(pairs, MAX_BODY_BYTES);
+        body[pairs.length] = (byte) (15 << 3 | 2);
+        body[pairs.length + 1] = (byte) (padding & 0x7F | 0x80);
+        body[pairs.length + 2] = (byte) (padding >>> 7);
+
+        mvc.perform(patch("/pairs").contentType(DocumentProtobuf.MEDIA_TYPE).content(body))
+                .andExpect(status().isOk())
+                .andExpect(content().string("3"));
+
+        body[pairs.length + 1] = (byte) ((padding + 1) & 0x7F | 0x80);
+        body[pairs.length + 2] = (byte) ((padding + 1) >>> 7);
+        byte[] over = Arrays.copyOf(body, MAX_BODY_BYTES + 1);
+
+        mvc.perform(patch("/pairs").contentType(DocumentProtobuf.MEDIA_TYPE).content(over))
+                .andExpect(status().isBadRequest());
+    }
+
+    private static byte[] pairs(int count) throws IOException {
+        DocumentKey key = new DocumentKey();
+        key.setContent("Nom");
+        KeyValuePair pair = new KeyValuePair();
+        pair.setKey(key);
+        pair.setConfidence(0.5);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        CodedOutputStream out = CodedOutputStream.newInstance(bytes);
+        DocumentProtobuf.writeKeyValuePairs(out, Collections.nCopies(count, pair));
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    @RestController
+    static class EchoController {
+
+        @PatchMapping("/pairs")
+        ResponseEntity<String> pairs(@RequestBody List<KeyValuePair> pairs) {
+            return ResponseEntity.ok(String.valueOf(pairs.size()));
+        }
+
+        @PatchMapping("/page")
+        ResponseEntity<String> page(@RequestBody DocumentPage page) {
+            return ResponseEntity.ok(String.valueOf(page.getWords().size()));
+        }
+    }
+}
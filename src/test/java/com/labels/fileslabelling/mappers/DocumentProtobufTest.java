@@ -0,0 +1,354 @@
+package com.labels.fileslabelling.mappers;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.WireFormat;
+import com.labels.fileslabelling.models.BoundingRegion;
+import com.labels.fileslabelling.models.DocumentKey;
+import com.labels.fileslabelling.models.DocumentPage;
+import com.labels.fileslabelling.models.DocumentTable;
+import com.labels.fileslabelling.models.DocumentTableCell;
+import com.labels.fileslabelling.models.DocumentValue;
+import com.labels.fileslabelling.models.DocumentWord;
+import com.labels.fileslabelling.models.FileDocument;
+import com.labels.fileslabelling.models.KeyValuePair;
+import com.labels.fileslabelling.models.Span;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DocumentProtobufTest {
+
+    @Test
+    void roundTripsAFullDocument() throws IOException {
+        FileDocument doc = new FileDocument();
+        doc.setId("doc-1");
+        doc.setVersion(3L);
+        doc.setFileName("facture é.pdf");
+        doc.setAzureUrl("https://account.blob.core.windows.net/files/facture.pdf");
+        doc.setContentHash("ab12");
+        doc.setSourceDocumentId("doc-0");
+        doc.setAnalysisProfile("invoice");
+        doc.setUploadedAt(new Date(1_700_000_000_123L));
+        doc.setStatus("ANALYZED");
+        doc.setPageCount(2);
+        doc.setPages(List.of(page(1, word("Total", 0.5f, 1.25f, 2f, 3.75f)), page(2)));
+        doc.setKeyValuePairs(List.of(pair("Total", "42,00 €")));
+        doc.setTables(List.of(table(cell(0, 1, "a", "b"))));
+
+        FileDocument read = DocumentProtobuf.readFileDocument(CodedInputStream.newInstance(encode(doc)));
+
+        assertEquals("doc-1", read.getId());
+        assertEquals(3L, read.getVersion());
+        assertEquals("facture é.pdf", read.getFileName());
+        assertEquals(doc.getAzureUrl(), read.getAzureUrl());
+        assertEquals("ab12", read.getContentHash());
+        assertEquals("doc-0", read.getSourceDocumentId());
+        assertEquals("invoice", read.getAnalysisProfile());
+        assertEquals(doc.getUploadedAt(), read.getUploadedAt());
+        assertEquals("ANALYZED", read.getStatus());
+        assertEquals(2, read.getPageCount());
+
+        assertEquals(2, read.getPages().size());
+        DocumentPage page = read.getPages().get(0);
+        assertEquals(1, page.getPageNumber());
+        assertEquals(0.25, page.getAngle());
+        assertEquals(8.5, page.getWidth());
+        assertEquals(11.0, page.getHeight());
+        assertEquals("inch", page.getUnit());
+        DocumentWord word = page.getWords().get(0);
+        assertEquals("Total", word.getContent());
+        assertArrayEquals(new float[]{0.5f, 1.25f, 2f, 3.75f}, word.getPolygon());
+        assertEquals(0.98, word.getConfidence());
+        assertEquals(7, word.getSpan().getOffset());
+        assertEquals(5, word.getSpan().getLength());
+        assertNull(read.getPages().get(1).getWords());
+
+        KeyValuePair pair = read.getKeyValuePairs().get(0);
+        assertEquals("Total", pair.getKey().getContent());
+        assertEquals(1, pair.getKey().getBoundingRegions().get(0).getPageNumber());
+        assertArrayEquals(new float[]{1f, 2f, 3f, 4f}, pair.getKey().getBoundingRegions().get(0).getPolygon());
+        assertEquals(12, pair.getKey().getSpans().get(0).getOffset());
+        assertEquals("42,00 €", pair.getValue().getContent());
+        assertEquals(0.75, pair.getConfidence());
+
+        DocumentTable table = read.getTables().get(0);
+        assertEquals(1, table.getRowCount());
+        assertEquals(2, table.getColumnCount());
+        DocumentTableCell cell = table.getCells().get(0);
+        assertEquals("columnHeader", cell.getKind());
+        assertEquals(0, cell.getRowIndex());
+        assertEquals(1, cell.getColumnIndex());
+        assertEquals("a b", cell.getContent());
+        assertEquals(List.of("a", "b"), cell.getElements());
+    }
+
+    @Test
+    void readsNullAndEmptyStringsAsAbsent() throws IOException {
+        FileDocument doc = new FileDocument();
+        doc.setId(null);
+        doc.setFileName("");
+        doc.setStatus("");
+        doc.setPages(new ArrayList<>());
+        DocumentTableCell cell = new DocumentTableCell();
+        cell.setContent("");
+        cell.setElements(Arrays.asList("a", "", null));
+        doc.setTables(List.of(table(cell)));
+
+        byte[] bytes = encode(doc);
+        FileDocument read = DocumentProtobuf.readFileDocument(CodedInputStream.newInstance(bytes));
+
+        // proto3 : chaîne vide et chaîne absente sont équivalentes
+        assertNull(read.getId());
+        assertNull(read.getFileName());
+        assertNull(read.getStatus());
+        assertNull(read.getPages());
+        assertNull(read.getKeyValuePairs());
+        assertNull(read.getTables().get(0).getCells().get(0).getContent());
+        // Les éléments gardent leur position : null devient ""
+        assertEquals(List.of("a", "", ""), read.getTables().get(0).getCells().get(0).getElements());
+    }
+
+    @Test
+    void roundTripsNegativeNumbers() throws IOException {
+        FileDocument doc = new FileDocument();
+        doc.setVersion(-1L);
+        doc.setUploadedAt(new Date(-86_400_000L));
+        doc.setPageCount(-2);
+        DocumentWord word = word("w", -1.5f, -0f, Float.MIN_VALUE, -Float.MAX_VALUE);
+        word.getSpan().setOffset(-7);
+        word.getSpan().setLength(Integer.MIN_VALUE);
+        word.setConfidence(-0.5);
+        DocumentPage page = page(-3, word);
+        page.setAngle(-90.0);
+        doc.setPages(List.of(page));
+        doc.setTables(List.of(table(cell(-4, Integer.MAX_VALUE))));
+
+        FileDocument read = DocumentProtobuf.readFileDocument(CodedInputStream.newInstance(encode(doc)));
+
+        assertEquals(-1L, read.getVersion());
+        assertEquals(new Date(-86_400_000L), read.getUploadedAt());
+        assertEquals(-2, read.getPageCount());
+        DocumentPage readPage = read.getPages().get(0);
+        assertEquals(-3, readPage.getPageNumber());
+        assertEquals(-90.0, readPage.getAngle());
+        DocumentWord readWord = readPage.getWords().get(0);
+        assertArrayEquals(new float[]{-1.5f, -0f, Float.MIN_VALUE, -Float.MAX_VALUE}, readWord.getPolygon());
+        assertEquals(-0.5, readWord.getConfidence());
+        assertEquals(-7, readWord.getSpan().getOffset());
+        assertEquals(Integer.MIN_VALUE, readWord.getSpan().getLength());
+        assertEquals(-4, read.getTables().get(0).getCells().get(0).getRowIndex());
+        assertEquals(Integer.MAX_VALUE, read.getTables().get(0).getCells().get(0).getColumnIndex());
+    }
+
+    @Test
+    void roundTripsKeyValuePairAndTableLists() throws IOException {
+        List<KeyValuePair> pairs = List.of(pair("Nom", "Dupont"), pair("Date", ""));
+        List<DocumentTable> tables = List.of(table(cell(0, 0, "x")), table());
+
+        ByteArrayOutputStream pairBytes = new ByteArrayOutputStream();
+        CodedOutputStream out = CodedOutputStream.newInstance(pairBytes);
+        DocumentProtobuf.writeKeyValuePairs(out, pairs);
+        out.flush();
+        ByteArrayOutputStream tableBytes = new ByteArrayOutputStream();
+        out = CodedOutputStream.newInstance(tableBytes);
+        DocumentProtobuf.writeTables(out, tables);
+        out.flush();
+
+        List<KeyValuePair> readPairs = DocumentProtobuf.readKeyValuePairs(
+                CodedInputStream.newInstance(pairBytes.toByteArray()));
+        List<DocumentTable> readTables = DocumentProtobuf.readTables(
+                CodedInputStream.newInstance(tableBytes.toByteArray()));
+
+        assertEquals(2, readPairs.size());
+        assertEquals("Dupont", readPairs.get(0).getValue().getContent());
+        assertEquals("Date", readPairs.get(1).getKey().getContent());
+        assertNull(readPairs.get(1).getValue().getContent());
+        assertEquals(2, readTables.size());
+        assertEquals("x", readTables.get(0).getCells().get(0).getElements().get(0));
+        assertNull(readTables.get(1).getCells());
+    }
+
+    @Test
+    void decodesUnpackedFloatsAndSkipsUnknownFields() throws IOException {
+        // DocumentWord tel qu'un autre encodeur peut l'écrire : polygone non
+        // compacté, puis une suite compactée, et des champs inconnus de chaque type
+        ByteArrayOutputStream wordBytes = new ByteArrayOutputStream();
+        CodedOutputStream word = CodedOutputStream.newInstance(wordBytes);
+        word.writeFloat(2, 1.5f);
+        word.writeUInt64(99, Long.MAX_VALUE);
+        word.writeFloat(2, -2.5f);
+        word.writeTag(2, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+        word.writeUInt32NoTag(8);
+        word.writeFloatNoTag(3f);
+        word.writeFloatNoTag(4f);
+        word.writeString(1, "mot");
+        word.writeFixed32(100, 7);
+        word.writeFixed64(101, 8L);
+        word.flush();
+
+        ByteArrayOutputStream pageBytes = new ByteArrayOutputStream();
+        CodedOutputStream page = CodedOutputStream.newInstance(pageBytes);
+        page.writeString(50, "inconnu");
+        page.writeInt32(1, 4);
+        page.writeByteArray(6, wordBytes.toByteArray());
+        page.flush();
+
+        ByteArrayOutputStream docBytes = new ByteArrayOutputStream();
+        CodedOutputStream doc = CodedOutputStream.newInstance(docBytes);
+        doc.writeString(1, "doc-1");
+        doc.writeByteArray(14, new byte[]{1, 2, 3});
+        doc.writeByteArray(11, pageBytes.toByteArray());
+        doc.writeInt64(2, 5L);
+        doc.writeBool(200, true);
+        doc.flush();
+
+        FileDocument read = DocumentProtobuf.readFileDocument(CodedInputStream.newInstance(docBytes.toByteArray()));
+
+        assertEquals("doc-1", read.getId());
+        assertEquals(5L, read.getVersion());
+        DocumentPage readPage = read.getPages().get(0);
+        assertEquals(4, readPage.getPageNumber());
+        DocumentWord readWord = readPage.getWords().get(0);
+        assertEquals("mot", readWord.getContent());
+        assertArrayEquals(new float[]{1.5f, -2.5f, 3f, 4f}, readWord.getPolygon());
+    }
+
+    @Test
+    void decodesUnpackedRegionPolygons() throws IOException {
+        ByteArrayOutputStream regionBytes = new ByteArrayOutputStream();
+        CodedOutputStream region = CodedOutputStream.newInstance(regionBytes);
+        region.writeInt32(1, 2);
+        region.writeFloat(2, 10f);
+        region.writeFloat(2, 20f);
+        region.flush();
+
+        ByteArrayOutputStream keyBytes = new ByteArrayOutputStream();
+        CodedOutputStream key = CodedOutputStream.newInstance(keyBytes);
+        key.writeString(1, "Nom");
+        key.writeByteArray(2, regionBytes.toByteArray());
+        key.flush();
+
+        ByteArrayOutputStream pairBytes = new ByteArrayOutputStream();
+        CodedOutputStream pair = CodedOutputStream.newInstance(pairBytes);
+        pair.writeByteArray(1, keyBytes.toByteArray());
+        pair.writeDouble(3, 0.5);
+        pair.flush();
+
+        KeyValuePair read = DocumentProtobuf.readKeyValuePair(CodedInputStream.newInstance(pairBytes.toByteArray()));
+
+        BoundingRegion readRegion = read.getKey().getBoundingRegions().get(0);
+        assertEquals(2, readRegion.getPageNumber());
+        assertArrayEquals(new float[]{10f, 20f}, readRegion.getPolygon());
+        assertEquals(0.5, read.getConfidence());
+    }
+
+    @Test
+    void rejectsTruncatedPackedFloats() {
+        // Polygone annonçant 16 octets dont seuls 8 sont présents
+        byte[] word = {2 << 3 | 2, 16, 0, 0, -128, 63, 0, 0, 0, 64};
+        byte[] page = concat(new byte[]{6 << 3 | 2, (byte) word.length}, word);
+
+        assertThrows(InvalidProtocolBufferException.class,
+                () -> DocumentProtobuf.readDocumentPage(CodedInputStream.newInstance(page)));
+    }
+
+    @Test
+    void rejectsPackedFloatsWithAPartialValue() {
+        byte[] word = {2 << 3 | 2, 6, 0, 0, -128, 63, 0, 0};
+        byte[] page = concat(new byte[]{6 << 3 | 2, (byte) word.length}, word);
+
+        assertThrows(InvalidProtocolBufferException.class,
+                () -> DocumentProtobuf.readDocumentPage(CodedInputStream.newInstance(page)));
+    }
+
+    private static byte[] encode(FileDocument doc) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        CodedOutputStream out = CodedOutputStream.newInstance(bytes);
+        DocumentProtobuf.write(out, doc);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static byte[] concat(byte[] head, byte[] tail) {
+        byte[] bytes = Arrays.copyOf(head, head.length + tail.length);
+        System.arraycopy(tail, 0, bytes, head.length, tail.length);
+        return bytes;
+    }
+
+    private static DocumentPage page(int pageNumber, DocumentWord... words) {
+        DocumentPage page = new DocumentPage();
+        page.setPageNumber(pageNumber);
+        if (words.length > 0) {
+            page.setAngle(0.25);
+            page.setWidth(8.5);
+            page.setHeight(11.0);
+            page.setUnit("inch");
+            page.setWords(List.of(words));
+        }
+        return page;
+    }
+
+    private static DocumentWord word(String content, float... polygon) {
+        Span span = new Span();
+        span.setOffset(7);
+        span.setLength(content.length());
+        DocumentWord word = new DocumentWord();
+        word.setContent(content);
+        word.setPolygon(polygon);
+        word.setConfidence(0.98);
+        word.setSpan(span);
+        return word;
+    }
+
+    private static KeyValuePair pair(String keyContent, String valueContent) {
+        BoundingRegion region = new BoundingRegion();
+        region.setPageNumber(1);
+        region.setPolygon(new float[]{1f, 2f, 3f, 4f});
+        Span span = new Span();
+        span.setOffset(12);
+        span.setLength(keyContent.length());
+        DocumentKey key = new DocumentKey();
+        key.setContent(keyContent);
+        key.setBoundingRegions(List.of(region));
+        key.setSpans(List.of(span));
+        DocumentValue value = new DocumentValue();
+        value.setContent(valueContent);
+        KeyValuePair pair = new KeyValuePair();
+        pair.setKey(key);
+        pair.setValue(value);
+        pair.setConfidence(0.75);
+        return pair;
+    }
+
+    private static DocumentTable table(DocumentTableCell... cells) {
+        DocumentTable table = new DocumentTable();
+        if (cells.length > 0) {
+            table.setRowCount(1);
+            table.setColumnCount(2);
+            table.setCells(List.of(cells));
+        }
+        return table;
+    }
+
+    private static DocumentTableCell cell(int rowIndex, int columnIndex, String... elements) {
+        DocumentTableCell cell = new DocumentTableCell();
+        cell.setKind("columnHeader");
+        cell.setRowIndex(rowIndex);
+        cell.setColumnIndex(columnIndex);
+        cell.setContent(String.join(" ", elements));
+        cell.setElements(List.of(elements));
+        return cell;
+    }
+}
@@ -0,0 +1,85 @@
+package com.labels.fileslabelling.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FileDocumentViewTest {
+
+    @Test
+    void defaultsToTheWholeDocumentWithoutPages() {
+        FileDocumentView view = FileDocumentView.of(null, null, null);
+
+        assertNull(view.fields());
+        assertNull(view.pageRanges());
+        assertTrue(view.includeWords());
+        assertTrue(view.includes("tables"));
+        assertFalse(view.includesPage(1));
+    }
+
+    @Test
+    void selectsFieldsAndAlwaysKeepsTheId() {
+        FileDocumentView view = FileDocumentView.of(" status, ,keyValuePairs", null, null);
+
+        assertEquals(Set.of("status", "keyValuePairs", "id"), view.fields());
+        assertFalse(view.includes("tables"));
+        assertFalse(view.includes("pages"));
+    }
+
+    @Test
+    void addsPagesToTheSelectedFieldsWhenPagesAreRequested() {
+        FileDocumentView view = FileDocumentView.of("status", "2", null);
+
+        assertTrue(view.includes("pages"));
+    }
+
+    @Test
+    void parsesSinglePagesAndOpenRanges() {
+        assertEquals(List.of("1-1", "4-" + Integer.MAX_VALUE), ranges(FileDocumentView.of(null, "1, 4-", null)));
+    }
+
+    @Test
+    void mergesOverlappingAdjacentAndUnorderedRanges() {
+        assertEquals(List.of("1-5"), ranges(FileDocumentView.of(null, "1-5,3-4", null)));
+        assertEquals(List.of("1-5"), ranges(FileDocumentView.of(null, "5,1-4", null)));
+        assertEquals(List.of("2-3", "7-9"), ranges(FileDocumentView.of(null, "8-9,2,7,3,8", null)));
+        assertEquals(List.of("1-" + Integer.MAX_VALUE), ranges(FileDocumentView.of(null, "3-,1-2,10-", null)));
+    }
+
+    @Test
+    void rejectsMalformedPages() {
+        for (String pages : List.of("0", "0-3", "5-3", "a", "1,,2", "-3", "1-2-3", "1;2")) {
+            assertThrows(IllegalArgumentException.class, () -> FileDocumentView.of(null, pages, null), pages);
+        }
+    }
+
+    @Test
+    void parsesTheWordsOption() {
+        assertFalse(FileDocumentView.of(null, null, "words=false").includeWords());
+        assertTrue(FileDocumentView.of(null, null, "words=true").includeWords());
+        assertTrue(FileDocumentView.of(null, null, "words").includeWords());
+    }
+
+    @Test
+    void rejectsUnknownOrMisspelledIncludeOptions() {
+        for (String include : List.of("words=flase", "words=FALSE", "words=", "pages=false", "word")) {
+            assertThrows(IllegalArgumentException.class, () -> FileDocumentView.of(null, null, include), include);
+        }
+    }
+
+    private static List<String> ranges(FileDocumentView view) {
+        List<String> ranges = new ArrayList<>();
+        for (int[] range : view.pageRanges()) {
+            ranges.add(range[0] + "-" + range[1]);
+        }
+        return ranges;
+    }
+}
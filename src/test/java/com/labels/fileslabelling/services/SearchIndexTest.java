@@ -0,0 +1,140 @@
+package com.labels.fileslabelling.services;
+
+import com.labels.fileslabelling.models.DocumentKey;
+import com.labels.fileslabelling.models.DocumentTable;
+import com.labels.fileslabelling.models.DocumentTableCell;
+import com.labels.fileslabelling.models.DocumentValue;
+import com.labels.fileslabelling.models.FileDocument;
+import com.labels.fileslabelling.models.KeyValuePair;
+import com.labels.fileslabelling.models.SearchHit;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SearchIndexTest {
+
+    private SearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new SearchIndex(null, null, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(index, "maxMatchesPerHit", 50);
+    }
+
+    @Test
+    void returnsOnlyDocumentsContainingEveryTerm() {
+        index.index(document("a", 0, "Invoice total", "120 €"), null);
+        index.index(document("b", 0, "Invoice date", "2024-01-31"), null);
+
+        assertEquals(List.of("a"), ids("invoice total"));
+        assertEquals(List.of("a", "b"), ids("INVOICE"));
+        assertEquals(List.of(), ids("total date"));
+    }
+
+    @Test
+    void matchesPrefixesOfAtLeastTwoCharacters() {
+        index.index(document("a", 0, "Total", "120"), null);
+        index.index(document("b", 0, "Totalisation", "4"), null);
+        index.index(document("c", 0, "Date", "31"), null);
+
+        assertEquals(List.of("a", "b"), ids("tot*"));
+        assertEquals(List.of("b"), ids("totalis*"));
+        assertEquals(List.of(), ids("t*"));
+    }
+
+    @Test
+    void foldsCaseAndAccents() {
+        index.index(document("a", 0, "Numéro de facture", "F-1"), null);
+
+        assertEquals(List.of("a"), ids("NUMERO facture"));
+    }
+
+    @Test
+    void ignoresReindexingWithAnOlderVersion() {
+        index.index(document("a", 1, "Total", "120"), null);
+        index.reindexContent(document("a", 3, "Montant", "130"));
+        index.reindexContent(document("a", 2, "Somme", "125"));
+
+        assertEquals(List.of("a"), ids("montant"));
+        assertEquals(List.of(), ids("somme"));
+        assertEquals(List.of(), ids("total"));
+    }
+
+    @Test
+    void compactsDeadPostingsOnceTheyOutnumberLiveOnes() {
+        FileDocument large = document("a", 1, "Total", "120");
+        large.setTables(List.of(table("alpha", 120_000)));
+        index.index(large, null);
+        index.index(document("b", 0, "Alpha", "1"), null);
+
+        FileDocument edited = document("a", 2, "Total", "120");
+        edited.setTables(List.of(table("beta", 1)));
+        index.reindexContent(edited);
+
+        assertEquals(0, index.deadPostings());
+        assertEquals(List.of("b"), ids("alpha"));
+        assertEquals(List.of("a"), ids("beta"));
+        assertEquals(List.of("a"), ids("total"));
+    }
+
+    @Test
+    void reclaimsSlotsOfRepeatedEdits() {
+        index.index(document("a", 0, "Total", "120"), null);
+        index.index(document("b", 0, "Date", "31"), null);
+        for (int version = 1; version <= 20_000; version++) {
+            index.reindexContent(document("a", version, "Total", String.valueOf(version)));
+        }
+
+        assertTrue(index.slotCount() <= 2 * 10_000 + 4, "slots: " + index.slotCount());
+        assertEquals(List.of("a"), ids("total 20000"));
+        assertEquals(List.of(), ids("19999"));
+        assertEquals(List.of("b"), ids("date 31"));
+        index.reindexContent(document("a", 3, "Montant", "1"));
+        assertEquals(List.of("a"), ids("total"));
+    }
+
+    private List<String> ids(String query) {
+        List<String> ids = new ArrayList<>();
+        for (SearchHit hit : index.search(query, 10).orElse(Collections.emptyList())) {
+            ids.add(hit.getDocumentId());
+        }
+        Collections.sort(ids);
+        return ids;
+    }
+
+    private static FileDocument document(String id, long version, String key, String value) {
+        DocumentKey documentKey = new DocumentKey();
+        documentKey.setContent(key);
+        DocumentValue documentValue = new DocumentValue();
+        documentValue.setContent(value);
+        KeyValuePair pair = new KeyValuePair();
+        pair.setKey(documentKey);
+        pair.setValue(documentValue);
+
+        FileDocument doc = new FileDocument();
+        doc.setId(id);
+        doc.setVersion(version);
+        doc.setKeyValuePairs(List.of(pair));
+        return doc;
+    }
+
+    private static DocumentTable table(String content, int cellCount) {
+        List<DocumentTableCell> cells = new ArrayList<>(cellCount);
+        for (int c = 0; c < cellCount; c++) {
+            DocumentTableCell cell = new DocumentTableCell();
+            cell.setContent(content);
+            cells.add(cell);
+        }
+        DocumentTable table = new DocumentTable();
+        table.setCells(cells);
+        return table;
+    }
+}